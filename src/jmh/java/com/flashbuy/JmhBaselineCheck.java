@@ -0,0 +1,108 @@
+package com.flashbuy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result (-rf json) against the stored baseline
+ *
+ * Flags a benchmark when its score moves the wrong way by more than the threshold
+ * (throughput down, time per op up) or when it allocates more per op
+ * (gc.alloc.rate.norm, needs -prof gc on both runs). Exits with 1 on any regression
+ *
+ * Run: mvn -Pjmh exec:exec -Djmh.main=com.flashbuy.JmhBaselineCheck \
+ *          -Djmh.args="src/jmh/baseline/seckill.json target/jmh-result.json 10"
+ */
+public final class JmhBaselineCheck {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    // Ignore allocation changes below this many bytes per op
+    private static final double ALLOC_SLACK_BYTES = 16;
+
+    private record Score(String mode, double score, double allocPerOp) {
+    }
+
+    private JmhBaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhBaselineCheck <baseline.json> <result.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100.0 : 0.10;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("NEW   %s %.3f%n", entry.getKey(), after.score());
+                continue;
+            }
+
+            double change = (after.score() - before.score()) / before.score();
+            boolean higherIsBetter = "thrpt".equals(after.mode());
+            boolean slower = higherIsBetter ? change < -threshold : change > threshold;
+
+            boolean moreAlloc = !Double.isNaN(before.allocPerOp()) && !Double.isNaN(after.allocPerOp())
+                    && after.allocPerOp() - before.allocPerOp() > ALLOC_SLACK_BYTES
+                    && after.allocPerOp() > before.allocPerOp() * (1 + threshold);
+
+            String status = slower || moreAlloc ? "WORSE" : "OK";
+            if (slower || moreAlloc) {
+                regressions++;
+            }
+            System.out.printf("%-5s %s score %.3f -> %.3f (%+.1f%%), alloc %.1f -> %.1f B/op%n",
+                    status, entry.getKey(), before.score(), after.score(), change * 100,
+                    before.allocPerOp(), after.allocPerOp());
+        }
+
+        System.out.printf("%d benchmarks compared, %d regressions (threshold %.0f%%)%n",
+                current.size(), regressions, threshold * 100);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * benchmark{param=value,...} -> score
+     */
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (params.isObject()) {
+                key.append('{');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(',');
+                    }
+                }
+                key.append('}');
+            }
+
+            JsonNode alloc = run.path("secondaryMetrics").path(ALLOC_NORM);
+            scores.put(key.toString(), new Score(
+                    run.path("mode").asText(),
+                    run.path("primaryMetric").path("score").asDouble(),
+                    alloc.isMissingNode() ? Double.NaN : alloc.path("score").asDouble()
+            ));
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,264 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.common.BusinessException;
+import com.flashbuy.infrastructure.cache.BuyerRegistry;
+import com.flashbuy.infrastructure.cache.InMemoryStockLuaScript;
+import com.flashbuy.infrastructure.cache.LocalStockCache;
+import com.flashbuy.infrastructure.cache.SeckillResultStore;
+import com.flashbuy.infrastructure.cache.SegmentedStockScript;
+import com.flashbuy.infrastructure.cache.StockDeductionBatcher;
+import com.flashbuy.infrastructure.cache.StockLeaseManager;
+import com.flashbuy.infrastructure.cache.StockLuaScript;
+import com.flashbuy.infrastructure.cache.StockStatusBroadcaster;
+import com.flashbuy.infrastructure.mq.OrderDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end SeckillService.execute throughput, Redis replaced by InMemoryStockLuaScript
+ *
+ * - soldOut*: every SKU is marked sold out, requests stop at the local cache
+ * - deduct*:  stock never runs out and every request is a new buyer, so each one
+ *             runs the full deduction + ticket + dispatch path
+ *
+ * skus = 1 puts every thread on one hot SKU, skus = 1024 spreads them out;
+ * the T1 / T8 / T64 variants run the same path on 1, 8 and 64 threads
+ *
+ * Run with -prof gc for allocation per request (gc.alloc.rate.norm)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SeckillServiceBenchmark {
+
+    private static final long EVENT_ID = 1L;
+    private static final long FIRST_SKU_ID = 100_000L;
+
+    /**
+     * One SeckillService wired to in-memory stand-ins, rebuilt every iteration
+     * so buyer sets do not grow across iterations
+     */
+    @State(Scope.Benchmark)
+    public abstract static class Fixture {
+
+        @Param({"1", "1024"})
+        public int skus;
+
+        SeckillService seckillService;
+        LocalStockCache localStockCache;
+        InMemoryStockLuaScript stockLuaScript;
+        StockDeductionBatcher stockDeductionBatcher;
+
+        final AtomicLong nextUserId = new AtomicLong();
+
+        void init() {
+            localStockCache = new LocalStockCache(3600);
+            stockLuaScript = new InMemoryStockLuaScript();
+
+            RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+            StringRedisTemplate stringRedisTemplate = new StringRedisTemplate();
+            RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+            BuyerRegistry buyerRegistry = new BuyerRegistry(stringRedisTemplate, "set", "", 16);
+            stockDeductionBatcher = new StockDeductionBatcher(stockLuaScript, buyerRegistry, false, 1000, 64, 3000);
+
+            LocalOnlyBroadcaster broadcaster = new LocalOnlyBroadcaster(localStockCache, stringRedisTemplate, listenerContainer);
+
+            SegmentedStockScript segmentedStockScript = new SegmentedStockScript(redisTemplate, buyerRegistry, 1, 10);
+            StockLeaseManager stockLeaseManager = new StockLeaseManager(redisTemplate, buyerRegistry, broadcaster, false, 50, 10, 3000);
+            seckillService = new SeckillService(
+                    localStockCache,
+                    broadcaster,
+                    stockLuaScript,
+                    segmentedStockScript,
+                    stockLeaseManager,
+                    stockDeductionBatcher,
+                    new CountingDispatcher(),
+                    null,
+                    new NoOpResultStore(stringRedisTemplate, listenerContainer),
+                    null,
+                    new SeckillMetrics(),
+                    buyerRegistry,
+                    new SeckillRollback(stockLuaScript, segmentedStockScript, stockLeaseManager, buyerRegistry)
+            );
+
+            for (int i = 0; i < skus; i++) {
+                stockLuaScript.initStock(StockLuaScript.stockKey(FIRST_SKU_ID + i), Integer.MAX_VALUE);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            stockDeductionBatcher.shutdown();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SoldOut extends Fixture {
+
+        SeckillRequest[] requests;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            init();
+            requests = new SeckillRequest[skus];
+            for (int i = 0; i < skus; i++) {
+                requests[i] = new SeckillRequest(EVENT_ID, FIRST_SKU_ID + i, 1, 1L);
+                localStockCache.markEmpty(FIRST_SKU_ID + i);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class InStock extends Fixture {
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            init();
+        }
+    }
+
+    /**
+     * Per-thread position in the SKU rotation
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        int nextSku(int skus) {
+            int sku = next;
+            next = sku + 1 == skus ? 0 : sku + 1;
+            return sku;
+        }
+    }
+
+    // ==================== Sold-out fast path ====================
+
+    @Benchmark
+    @Threads(1)
+    public Object soldOutT1(SoldOut state, Cursor cursor) {
+        return soldOut(state, cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object soldOutT8(SoldOut state, Cursor cursor) {
+        return soldOut(state, cursor);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object soldOutT64(SoldOut state, Cursor cursor) {
+        return soldOut(state, cursor);
+    }
+
+    // ==================== Deduction path ====================
+
+    @Benchmark
+    @Threads(1)
+    public Object deductT1(InStock state, Cursor cursor) {
+        return deduct(state, cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object deductT8(InStock state, Cursor cursor) {
+        return deduct(state, cursor);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object deductT64(InStock state, Cursor cursor) {
+        return deduct(state, cursor);
+    }
+
+    private static Object soldOut(SoldOut state, Cursor cursor) {
+        SeckillRequest request = state.requests[cursor.nextSku(state.skus)];
+        try {
+            return state.seckillService.execute(request);
+        } catch (BusinessException e) {
+            return e;
+        }
+    }
+
+    private static Object deduct(InStock state, Cursor cursor) {
+        SeckillRequest request = new SeckillRequest(
+                EVENT_ID, FIRST_SKU_ID + cursor.nextSku(state.skus), 1, state.nextUserId.incrementAndGet());
+        return state.seckillService.execute(request);
+    }
+
+    /**
+     * Accepts every message, the order pipeline is not part of the request path
+     */
+    static final class CountingDispatcher implements OrderDispatcher {
+
+        final LongAdder dispatched = new LongAdder();
+
+        @Override
+        public boolean dispatch(TradeOrderMessage message) {
+            dispatched.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Sold-out marks stay on this node (no pub/sub)
+     */
+    static final class LocalOnlyBroadcaster extends StockStatusBroadcaster {
+
+        private final LocalStockCache localStockCache;
+
+        LocalOnlyBroadcaster(LocalStockCache localStockCache,
+                             StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer) {
+            super(localStockCache, stringRedisTemplate, listenerContainer);
+            this.localStockCache = localStockCache;
+        }
+
+        @Override
+        public void markEmpty(long skuId) {
+            localStockCache.markEmpty(skuId);
+        }
+    }
+
+    /**
+     * Queue tickets are dropped; results are never polled in this benchmark
+     */
+    static final class NoOpResultStore extends SeckillResultStore {
+
+        NoOpResultStore(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer listenerContainer) {
+            super(stringRedisTemplate, listenerContainer, 60);
+        }
+
+        @Override
+        public void markQueuing(String queueId) {
+        }
+
+        @Override
+        public void markSuccess(String queueId, Long orderId) {
+        }
+
+        @Override
+        public void markFailed(String queueId, String message) {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for StockLuaScript, for benchmarks without a Redis server
+ *
+ * Follows deduct_stock.lua step for step (buyer check, stock check, DECRBY, SADD).
+ * Each stock key is guarded by its own monitor, the way a script serializes on
+ * the shard that owns the key, so one hot SKU contends and many SKUs do not.
+ * Network round trips and per-user limits above one unit are not modelled
+ */
+public class InMemoryStockLuaScript extends StockLuaScript {
+
+    private final Map<String, SkuState> skus = new ConcurrentHashMap<>();
+
+    private static final class SkuState {
+        long stock;
+        final Set<String> buyers = ConcurrentHashMap.newKeySet();
+    }
+
+    public InMemoryStockLuaScript() {
+        super(new RedisTemplate<>());
+    }
+
+    @Override
+    public Long deductStock(String stockKey, BuyerRegistry.Slot buyer, int count) {
+        return deduct(stockKey, member(buyer.key(), buyer.encoding(), buyer.member()), count);
+    }
+
+    /**
+     * Bit offsets only identify a user within their chunk key
+     */
+    private static String member(String key, BuyerRegistry.Encoding encoding, String member) {
+        return encoding == BuyerRegistry.Encoding.SET ? member : key + "/" + member;
+    }
+
+    private Long deduct(String stockKey, String buyer, int count) {
+        SkuState sku = skus.computeIfAbsent(stockKey, key -> new SkuState());
+        synchronized (sku) {
+            if (sku.buyers.contains(buyer)) {
+                return -2L;
+            }
+            if (sku.stock < count) {
+                return -1L;
+            }
+            sku.stock -= count;
+            sku.buyers.add(buyer);
+            return sku.stock;
+        }
+    }
+
+    @Override
+    public List<Long> deductStockBatch(String stockKey, String buyerKey, String quotaKey, String countKey,
+                                       BuyerRegistry.Encoding encoding, List<String> members,
+                                       List<String> userIds, List<Integer> counts) {
+        Long[] results = new Long[members.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deduct(stockKey, member(buyerKey, encoding, members.get(i)), counts.get(i));
+        }
+        return List.of(results);
+    }
+
+    @Override
+    public void initStock(String stockKey, int stock) {
+        SkuState sku = new SkuState();
+        sku.stock = stock;
+        skus.put(stockKey, sku);
+    }
+
+    @Override
+    public void initStocks(Map<String, Integer> stocks) {
+        stocks.forEach(this::initStock);
+    }
+
+    @Override
+    public void initStocks(Map<String, Integer> stocks, Map<String, Integer> limits) {
+        initStocks(stocks);
+    }
+
+    @Override
+    public int getStock(String stockKey) {
+        SkuState sku = skus.get(stockKey);
+        if (sku == null) {
+            return 0;
+        }
+        synchronized (sku) {
+            return (int) Math.min(Integer.MAX_VALUE, sku.stock);
+        }
+    }
+
+    @Override
+    public void recoverStock(String stockKey, int count) {
+        SkuState sku = skus.computeIfAbsent(stockKey, key -> new SkuState());
+        synchronized (sku) {
+            sku.stock += count;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.flashbuy.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sold-out check: primitive-keyed LocalStockCache vs. the previous
+ * Caffeine implementation keyed by "stock_empty_" + skuId strings
+ *
+ * Run with -prof gc to compare allocation per check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SoldOutCacheBenchmark {
+
+    private static final int SKU_COUNT = 1024;
+
+    /**
+     * Share of SKUs marked sold out (0 = every check misses, 100 = every check hits)
+     */
+    @Param({"0", "100"})
+    public int soldOutPercent;
+
+    private LocalStockCache localStockCache;
+    private CaffeineStockCache caffeineStockCache;
+    private Long[] skuIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        localStockCache = new LocalStockCache(60);
+        caffeineStockCache = new CaffeineStockCache();
+        skuIds = new Long[SKU_COUNT];
+        for (int i = 0; i < SKU_COUNT; i++) {
+            skuIds[i] = 100_000L + i;
+            if (i * 100 / SKU_COUNT < soldOutPercent) {
+                localStockCache.markEmpty(skuIds[i]);
+                caffeineStockCache.markEmpty(skuIds[i].toString());
+            }
+        }
+    }
+
+    private Long nextSku() {
+        cursor = (cursor + 1) & (SKU_COUNT - 1);
+        return skuIds[cursor];
+    }
+
+    @Benchmark
+    public boolean primitiveSet() {
+        return localStockCache.isEmpty(nextSku());
+    }
+
+    @Benchmark
+    public boolean caffeineStringKey() {
+        // Mirrors the previous call site: request.skuId().toString()
+        return caffeineStockCache.isEmpty(nextSku().toString());
+    }
+
+    /**
+     * Previous LocalStockCache implementation, kept here as the baseline
+     */
+    static final class CaffeineStockCache {
+
+        private final Cache<String, Boolean> cache = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build();
+
+        void markEmpty(String skuId) {
+            cache.put("stock_empty_" + skuId, true);
+        }
+
+        boolean isEmpty(String skuId) {
+            return cache.getIfPresent("stock_empty_" + skuId) != null;
+        }
+    }
+}
@@ -2,9 +2,14 @@ package com.flashbuy.api;
 
 import com.flashbuy.application.admin.AdminDashboardService;
 import com.flashbuy.application.admin.DashboardData;
+import com.flashbuy.application.product.ProductDetailCache;
+import com.flashbuy.application.product.ProductSearchIndex;
+import com.flashbuy.application.seckill.SeckillMetrics;
 import com.flashbuy.common.Result;
+import com.flashbuy.infrastructure.metrics.QueryCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,6 +20,7 @@ import java.sql.Connection;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Map;
 
 /**
  * Admin Dashboard API Controller
@@ -27,10 +33,24 @@ public class AdminController {
 
     private final AdminDashboardService adminDashboardService;
     private final DataSource dataSource;
+    private final ProductDetailCache productDetailCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final SeckillMetrics seckillMetrics;
+    private final QueryCounter queryCounter;
 
-    public AdminController(AdminDashboardService adminDashboardService, DataSource dataSource) {
+    public AdminController(
+            AdminDashboardService adminDashboardService,
+            DataSource dataSource,
+            ProductDetailCache productDetailCache,
+            ProductSearchIndex productSearchIndex,
+            SeckillMetrics seckillMetrics,
+            QueryCounter queryCounter) {
         this.adminDashboardService = adminDashboardService;
         this.dataSource = dataSource;
+        this.productDetailCache = productDetailCache;
+        this.productSearchIndex = productSearchIndex;
+        this.seckillMetrics = seckillMetrics;
+        this.queryCounter = queryCounter;
     }
 
     /**
@@ -43,6 +63,50 @@ public class AdminController {
         return Result.ok(data);
     }
 
+    /**
+     * 查询本节点秒杀链路指标
+     * GET /api/v1/admin/seckill/metrics
+     *
+     * 各阶段耗时分布（微秒，count/mean/p50/p90/p99/p999/max）、成功排队数与各拒绝原因计数；
+     * 指标为单节点数据，集群需逐个节点采集
+     */
+    @GetMapping("/seckill/metrics")
+    public Result<Map<String, Object>> getSeckillMetrics() {
+        return Result.ok(seckillMetrics.snapshot());
+    }
+
+    /**
+     * 重置本节点秒杀链路指标，用于压测前开启新的统计窗口
+     * DELETE /api/v1/admin/seckill/metrics
+     */
+    @DeleteMapping("/seckill/metrics")
+    public Result<Void> resetSeckillMetrics() {
+        seckillMetrics.reset();
+        return Result.ok();
+    }
+
+    /**
+     * 查询本节点商品接口SQL查询统计
+     * GET /api/v1/admin/product/metrics/queries
+     *
+     * 各商品接口（flash-list、flash-detail、search、hot）的调用次数、SQL查询总数、平均及单次最大查询数，
+     * 用于确认列表页查询次数不随每页条数增长；统计为单节点数据
+     */
+    @GetMapping("/product/metrics/queries")
+    public Result<Map<String, Object>> getQueryMetrics() {
+        return Result.ok(queryCounter.snapshot());
+    }
+
+    /**
+     * 重置本节点商品接口SQL查询统计
+     * DELETE /api/v1/admin/product/metrics/queries
+     */
+    @DeleteMapping("/product/metrics/queries")
+    public Result<Void> resetQueryMetrics() {
+        queryCounter.reset();
+        return Result.ok();
+    }
+
     /**
      * 初始化测试数据
      * POST /api/v1/admin/init-test-data
@@ -174,6 +238,10 @@ public class AdminController {
             stmt.execute(sessionSql);
             log.info("已插入4个拼团会话");
 
+            // 商品数据已整体替换，清空各节点的商品详情缓存并重建本节点搜索索引
+            productDetailCache.evictAll();
+            productSearchIndex.rebuild();
+
             log.info("✅ 测试数据初始化完成！");
 
             return Result.ok("测试数据初始化成功！已插入：5个用户、10个商品、8个秒杀商品、6个拼团规则");
@@ -87,16 +87,18 @@ public class GroupBuyController {
      * </p>
      *
      * @param userId 用户ID
-     * @param pageNum 页码（默认1）
+     * @param pageNum 页码（默认1，传入 cursor 时忽略）
      * @param pageSize 每页大小（默认10）
-     * @return 我的拼团记录列表
+     * @param cursor 翻页游标（上一页返回的 nextCursor，可选；深翻页耗时与第一页相同）
+     * @return 我的拼团记录列表（nextCursor 为空表示没有下一页）
      */
     @GetMapping("/my")
     public Result<GroupBuyService.MyGroupsResponse> getMyGroups(
         @RequestParam Long userId,
         @RequestParam(defaultValue = "1") Integer pageNum,
-        @RequestParam(defaultValue = "10") Integer pageSize) {
-        return Result.ok(groupBuyService.getMyGroups(userId, pageNum, pageSize));
+        @RequestParam(defaultValue = "10") Integer pageSize,
+        @RequestParam(required = false) String cursor) {
+        return Result.ok(groupBuyService.getMyGroups(userId, pageNum, pageSize, cursor));
     }
 
     /**
@@ -23,17 +23,19 @@ public class OrderController {
      *
      * @param userId user ID
      * @param status order status (optional, 0 for all)
-     * @param pageNum page number (default 1)
+     * @param pageNum page number (default 1, ignored when a cursor is given)
      * @param pageSize page size (default 10)
-     * @return order list
+     * @param cursor nextCursor of the previous page (optional; deep pages cost the same as the first)
+     * @return order list (nextCursor is null on the last page)
      */
     @GetMapping("/list")
     public Result<OrderService.OrderListResponse> getOrderList(
         @RequestParam Long userId,
         @RequestParam(required = false) Integer status,
         @RequestParam(defaultValue = "1") Integer pageNum,
-        @RequestParam(defaultValue = "10") Integer pageSize) {
-        return Result.ok(orderService.getUserOrders(userId, status, pageNum, pageSize));
+        @RequestParam(defaultValue = "10") Integer pageSize,
+        @RequestParam(required = false) String cursor) {
+        return Result.ok(orderService.getUserOrders(userId, status, pageNum, pageSize, cursor));
     }
 
     /**
@@ -1,12 +1,17 @@
 package com.flashbuy.api;
 
+import com.flashbuy.application.product.FlashListSnapshot;
 import com.flashbuy.application.product.FlashProductDto;
+import com.flashbuy.application.product.ProductDetailCache;
 import com.flashbuy.application.product.ProductService;
 import com.flashbuy.common.Result;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * 商品中心-秒杀商品服务
  *
@@ -20,9 +25,16 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final FlashListSnapshot flashListSnapshot;
+    private final ProductDetailCache productDetailCache;
 
-    public ProductController(ProductService productService) {
+    public ProductController(
+            ProductService productService,
+            FlashListSnapshot flashListSnapshot,
+            ProductDetailCache productDetailCache) {
         this.productService = productService;
+        this.flashListSnapshot = flashListSnapshot;
+        this.productDetailCache = productDetailCache;
     }
 
     /**
@@ -31,17 +43,31 @@ public class ProductController {
      * <p>
      * 返回当前可抢购的秒杀商品列表。
      * 前端用于首页展示秒杀商品卡片。
+     * 列表由内存快照直接返回（预先序列化的JSON），不访问数据库；
+     * 快照定时重建，任一节点发生售罄/补货时也会立即重建。
      * </p>
      *
-     * @param timeSlot 时间段（可选，如"08:00"、"12:00"、"20:00"）
-     * @return 秒杀商品列表，包含商品标题、价格、库存进度等信息
-     * @apiNote 建议前端每30秒刷新一次列表，获取最新库存状态
+     * @param timeSlot 时间段（可选，如"08:00"、"12:00"、"20:00"；暂不过滤，所有时间段返回同一列表）
+     * @param ifNoneMatch 上次响应的ETag（可选）
+     * @return Result&lt;List&lt;FlashProductDto&gt;&gt;，包含商品标题、价格、库存进度等信息；列表未变化时返回304
+     * @apiNote 建议前端每30秒刷新一次列表，并携带If-None-Match头，列表未变化时无需重新下载
      */
     @GetMapping("/flash-list")
-    public Result<List<FlashProductDto>> getFlashList(
-            @RequestParam(required = false) String timeSlot) {
-        List<FlashProductDto> products = productService.getFlashList(timeSlot);
-        return Result.ok(products);
+    public ResponseEntity<byte[]> getFlashList(
+            @RequestParam(required = false) String timeSlot,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        FlashListSnapshot.Snapshot snapshot = flashListSnapshot.get();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
     }
 
     /**
@@ -49,6 +75,8 @@ public class ProductController {
      *
      * <p>
      * 返回指定SKU的商品详细信息。
+     * 详情经本地缓存（Caffeine）+ Redis 两级缓存读取，同一SKU的并发未命中只会查询一次数据库；
+     * 商品或库存变更后通过 Redis 发布订阅通知各节点失效。
      * </p>
      *
      * @param skuId 商品SKU编号
@@ -56,7 +84,7 @@ public class ProductController {
      */
     @GetMapping("/detail/{skuId}")
     public Result<FlashProductDto> getProductDetail(@PathVariable Long skuId) {
-        FlashProductDto product = productService.getFlashProduct(skuId);
+        FlashProductDto product = productDetailCache.get(skuId);
         if (product == null) {
             return Result.error("商品不存在");
         }
@@ -81,20 +109,22 @@ public class ProductController {
      * 搜索商品
      *
      * <p>
-     * 根据关键词搜索商品。
+     * 根据关键词搜索商品名称（不区分大小写），关键词出现位置越靠前、名称越短的商品越靠前。
      * </p>
      *
      * @param keyword 搜索关键词
-     * @param pageNum 页码（默认1）
+     * @param pageNum 页码（默认1，传入 cursor 时忽略）
      * @param pageSize 每页大小（默认20）
-     * @return 搜索结果
+     * @param cursor 翻页游标（上一页返回的 nextCursor，可选；深翻页耗时与第一页相同）
+     * @return 搜索结果（nextCursor 为空表示没有下一页）
      */
     @GetMapping("/search")
     public Result<ProductService.SearchResponse> searchProducts(
         @RequestParam String keyword,
         @RequestParam(defaultValue = "1") Integer pageNum,
-        @RequestParam(defaultValue = "20") Integer pageSize) {
-        return Result.ok(productService.searchProducts(keyword, pageNum, pageSize));
+        @RequestParam(defaultValue = "20") Integer pageSize,
+        @RequestParam(required = false) String cursor) {
+        return Result.ok(productService.searchProducts(keyword, pageNum, pageSize, cursor));
     }
 
     /**
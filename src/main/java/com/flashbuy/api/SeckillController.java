@@ -2,9 +2,12 @@ package com.flashbuy.api;
 
 import com.flashbuy.application.seckill.SeckillRequest;
 import com.flashbuy.application.seckill.SeckillResponse;
+import com.flashbuy.application.seckill.SeckillResultNotifier;
 import com.flashbuy.application.seckill.SeckillService;
 import com.flashbuy.common.Result;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * 交易中心-秒杀服务
@@ -19,9 +22,12 @@ import org.springframework.web.bind.annotation.*;
 public class SeckillController {
 
     private final SeckillService seckillService;
+    private final SeckillResultNotifier seckillResultNotifier;
 
-    public SeckillController(SeckillService seckillService) {
+    public SeckillController(SeckillService seckillService,
+                             SeckillResultNotifier seckillResultNotifier) {
         this.seckillService = seckillService;
+        this.seckillResultNotifier = seckillResultNotifier;
     }
 
     /**
@@ -29,7 +35,7 @@ public class SeckillController {
      *
      * <p>
      * 核心高并发接口，采用异步削峰架构。
-     * 前端需轮询查询结果。
+     * 前端通过结果推送接口（SSE）等待结果，或轮询查询结果。
      * </p>
      *
      * <p>
@@ -44,7 +50,7 @@ public class SeckillController {
      *
      * @param request 秒杀请求参数（包含商品ID、数量、用户ID等）
      * @return 包含订单ID或排队状态的响应数据
-     * @apiNote 1. 必须先登录；2. 接口含防刷限流；3. 单次限购1件
+     * @apiNote 1. 必须先登录；2. 接口含防刷限流；3. 每人累计购买不超过商品限购数量
      */
     @PostMapping("/seckill")
     public Result<SeckillResponse> doSeckill(@RequestBody SeckillRequest request) {
@@ -57,16 +63,38 @@ public class SeckillController {
      *
      * <p>
      * 前端通过此接口轮询获取秒杀订单的处理结果。
+     * 建议优先使用结果推送接口 /result/{queueId}/stream，仅在不支持SSE时轮询。
      * 建议轮询间隔：500ms-1000ms。
      * </p>
      *
      * @param queueId 排队凭证ID（从秒杀下单接口返回）
      * @return 订单处理状态（QUEUING排队中/SUCCESS成功/FAIL失败）
-     * @apiNote 轮询最多10次，超过仍未返回结果则视为失败
+     * @apiNote 轮询最多10次，超过仍未返回结果则视为失败；排队凭证过期或不存在时返回4004
      */
     @GetMapping("/result/{queueId}")
     public Result<SeckillResponse> getResult(@PathVariable String queueId) {
-        // TODO: Implement order status query from Redis cache
-        return Result.ok(SeckillResponse.queuing());
+        SeckillResponse response = seckillService.getResult(queueId);
+        if (response == null) {
+            return Result.error(4004, "Queue ticket not found or expired");
+        }
+        return Result.ok(response);
+    }
+
+    /**
+     * 推送秒杀订单结果（SSE）
+     *
+     * <p>
+     * 建立Server-Sent Events连接，订单创建成功或失败时服务端立即推送一次
+     * 名为 result 的事件并关闭连接，无需轮询。
+     * 结果已确定时立即推送；连接超时（默认30秒）时推送当前排队状态，前端可重新连接。
+     * </p>
+     *
+     * @param queueId 排队凭证ID（从秒杀下单接口返回）
+     * @return SSE事件流，事件数据与结果查询接口一致
+     * @apiNote 任意节点创建的订单结果均会通过Redis频道推送到持有连接的节点
+     */
+    @GetMapping(value = "/result/{queueId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamResult(@PathVariable String queueId) {
+        return seckillResultNotifier.subscribe(queueId);
     }
 }
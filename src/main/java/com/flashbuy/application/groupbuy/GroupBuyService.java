@@ -1,12 +1,15 @@
 package com.flashbuy.application.groupbuy;
 
 import com.flashbuy.common.BusinessException;
+import com.flashbuy.common.PageCursor;
 import com.flashbuy.domain.marketing.entity.GroupRule;
 import com.flashbuy.domain.marketing.entity.GroupSession;
 import com.flashbuy.domain.marketing.mapper.GroupRuleMapper;
 import com.flashbuy.domain.marketing.mapper.GroupSessionMapper;
 import com.flashbuy.domain.trade.entity.TradeOrder;
 import com.flashbuy.domain.trade.mapper.TradeOrderMapper;
+import com.flashbuy.domain.trade.repository.TradeOrderRepository;
+import com.flashbuy.infrastructure.id.IdGenerator;
 import com.mybatisflex.core.query.QueryWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +21,6 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Group Buy Service
@@ -32,9 +34,8 @@ public class GroupBuyService {
     private final GroupRuleMapper groupRuleMapper;
     private final GroupSessionMapper groupSessionMapper;
     private final TradeOrderMapper tradeOrderMapper;
-
-    private final AtomicLong orderIdGenerator = new AtomicLong(20000);
-    private final AtomicLong sessionIdGenerator = new AtomicLong(1000);
+    private final TradeOrderRepository tradeOrderRepository;
+    private final IdGenerator idGenerator;
 
     private static final int STATUS_IN_PROGRESS = 0;
     private static final int STATUS_SUCCESS = 1;
@@ -43,10 +44,14 @@ public class GroupBuyService {
     public GroupBuyService(
             GroupRuleMapper groupRuleMapper,
             GroupSessionMapper groupSessionMapper,
-            TradeOrderMapper tradeOrderMapper) {
+            TradeOrderMapper tradeOrderMapper,
+            TradeOrderRepository tradeOrderRepository,
+            IdGenerator idGenerator) {
         this.groupRuleMapper = groupRuleMapper;
         this.groupSessionMapper = groupSessionMapper;
         this.tradeOrderMapper = tradeOrderMapper;
+        this.tradeOrderRepository = tradeOrderRepository;
+        this.idGenerator = idGenerator;
     }
 
     /**
@@ -67,7 +72,7 @@ public class GroupBuyService {
 
         // Step 3: Create group session
         GroupSession session = new GroupSession();
-        session.setId(sessionIdGenerator.incrementAndGet());
+        session.setId(idGenerator.nextId());
         session.setRuleId(ruleId);
         session.setInitiatorId(userId);
         session.setStatus(STATUS_IN_PROGRESS);
@@ -152,7 +157,7 @@ public class GroupBuyService {
      */
     private TradeOrder createOrder(Long userId, Long marketingId, Long skuId, BigDecimal price) {
         TradeOrder order = new TradeOrder();
-        order.setId(orderIdGenerator.incrementAndGet());
+        order.setId(idGenerator.nextId());
         order.setUserId(userId);
         order.setTotalAmount(price);
         order.setPayAmount(price);
@@ -223,28 +228,22 @@ public class GroupBuyService {
      * Get user's group buy records
      *
      * @param userId user ID
-     * @param pageNum page number
+     * @param pageNum page number (ignored when a cursor is given)
      * @param pageSize page size
+     * @param cursor nextCursor of the previous page (optional)
      * @return user's group buy records
      */
-    public MyGroupsResponse getMyGroups(Long userId, Integer pageNum, Integer pageSize) {
-        log.info("Get user's group buy records, userId={}", userId);
+    public MyGroupsResponse getMyGroups(Long userId, Integer pageNum, Integer pageSize, String cursor) {
+        log.info("Get user's group buy records, userId={}, cursor={}", userId, cursor);
 
-        // Find orders where user participated in group buy
-        List<TradeOrder> orders = tradeOrderMapper.selectListByQuery(
-            QueryWrapper.create()
-                .where(TradeOrder::getUserId).eq(userId)
-                .and(TradeOrder::getOrderType).eq("GROUP")
-                .orderBy(TradeOrder::getCreateTime, false)
-                .limit(pageSize)
-                .offset((pageNum - 1) * pageSize)
-        );
+        // (createTime, id) of the last order seen
+        long[] before = PageCursor.decode(cursor, 2);
 
-        int total = Math.toIntExact(tradeOrderMapper.selectCountByQuery(
-            QueryWrapper.create()
-                .where(TradeOrder::getUserId).eq(userId)
-                .and(TradeOrder::getOrderType).eq("GROUP")
-        ));
+        // Find orders where user participated in group buy
+        List<TradeOrder> orders = before != null
+            ? tradeOrderRepository.findGroupOrdersByUserIdBefore(userId, PageCursor.toTime(before[0]), before[1], pageSize)
+            : tradeOrderRepository.findGroupOrdersByUserId(userId, pageNum, pageSize);
+        int total = tradeOrderRepository.countGroupOrdersByUserId(userId);
 
         List<MyGroupDetail> groups = new ArrayList<>();
         for (TradeOrder order : orders) {
@@ -277,7 +276,7 @@ public class GroupBuyService {
             }
         }
 
-        return new MyGroupsResponse(total, groups);
+        return new MyGroupsResponse(total, groups, TradeOrderRepository.nextCursor(orders, pageSize));
     }
 
     /**
@@ -343,7 +342,8 @@ public class GroupBuyService {
     // DTOs
     public record MyGroupsResponse(
         Integer total,
-        List<MyGroupDetail> groups
+        List<MyGroupDetail> groups,
+        String nextCursor
     ) {}
 
     public record MyGroupDetail(
@@ -1,6 +1,7 @@
 package com.flashbuy.application.order;
 
 import com.flashbuy.common.BusinessException;
+import com.flashbuy.common.PageCursor;
 import com.flashbuy.domain.trade.entity.TradeOrder;
 import com.flashbuy.domain.trade.repository.TradeOrderRepository;
 import com.flashbuy.domain.item.repository.ProductSkuRepository;
@@ -37,15 +38,25 @@ public class OrderService {
      *
      * @param userId user ID
      * @param status order status (optional, 0 for all)
-     * @param pageNum page number
+     * @param pageNum page number (ignored when a cursor is given)
      * @param pageSize page size
+     * @param cursor nextCursor of the previous page (optional)
      * @return order list
      */
-    public OrderListResponse getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize) {
-        log.info("Get user orders, userId={}, status={}", userId, status);
+    public OrderListResponse getUserOrders(Long userId, Integer status, Integer pageNum, Integer pageSize, String cursor) {
+        log.info("Get user orders, userId={}, status={}, cursor={}", userId, status, cursor);
+
+        // (createTime, id) of the last order seen
+        long[] before = PageCursor.decode(cursor, 2);
 
         List<TradeOrder> orders;
-        if (status == null || status == 0) {
+        boolean allStatuses = status == null || status == 0;
+        if (before != null) {
+            LocalDateTime createTime = PageCursor.toTime(before[0]);
+            orders = allStatuses
+                ? orderRepository.findByUserIdBefore(userId, createTime, before[1], pageSize)
+                : orderRepository.findByUserIdAndStatusBefore(userId, status, createTime, before[1], pageSize);
+        } else if (allStatuses) {
             orders = orderRepository.findByUserId(userId, pageNum, pageSize);
         } else {
             orders = orderRepository.findByUserIdAndStatus(userId, status, pageNum, pageSize);
@@ -60,7 +71,8 @@ public class OrderService {
         return new OrderListResponse(
             total,
             orderDetails.size(),
-            orderDetails
+            orderDetails,
+            TradeOrderRepository.nextCursor(orders, pageSize)
         );
     }
 
@@ -201,7 +213,8 @@ public class OrderService {
     public record OrderListResponse(
         Integer total,
         Integer count,
-        List<OrderDetailResponse> orders
+        List<OrderDetailResponse> orders,
+        String nextCursor
     ) {}
 
     public record OrderDetailResponse(
@@ -0,0 +1,123 @@
+package com.flashbuy.application.product;
+
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.entity.ProductSku;
+import com.flashbuy.domain.item.entity.ProductSpu;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.item.mapper.ProductSkuMapper;
+import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import com.mybatisflex.core.query.QueryWrapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalog page assembly with batch loading
+ * Loads the SKUs, SPUs and flash items behind one page with IN (...) queries
+ * and stitches them in memory, so a page costs a fixed number of queries
+ * whatever its size (instead of one or two per row)
+ */
+@Component
+public class CatalogAssembler {
+
+    private final FlashItemMapper flashItemMapper;
+    private final ProductSkuMapper productSkuMapper;
+    private final ProductSpuMapper productSpuMapper;
+
+    public CatalogAssembler(
+            FlashItemMapper flashItemMapper,
+            ProductSkuMapper productSkuMapper,
+            ProductSpuMapper productSpuMapper) {
+        this.flashItemMapper = flashItemMapper;
+        this.productSkuMapper = productSkuMapper;
+        this.productSpuMapper = productSpuMapper;
+    }
+
+    /**
+     * One catalog row: product, the SKU shown for it and its flash item (may be null)
+     */
+    public record Entry(ProductSpu spu, ProductSku sku, FlashItem flashItem) {
+    }
+
+    /**
+     * Rows for flash items, in the given order (2 queries: SKUs, SPUs)
+     * Items whose SKU or SPU no longer exists are left out
+     */
+    public List<Entry> forFlashItems(List<FlashItem> flashItems) {
+        if (flashItems.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> skuIds = new LinkedHashSet<>();
+        flashItems.forEach(flashItem -> skuIds.add(flashItem.getSkuId()));
+        Map<Long, ProductSku> skus = new HashMap<>();
+        productSkuMapper.selectListByIds(skuIds).forEach(sku -> skus.put(sku.getId(), sku));
+
+        Map<Long, ProductSpu> spus = loadSpus(skus.values());
+
+        List<Entry> entries = new ArrayList<>(flashItems.size());
+        for (FlashItem flashItem : flashItems) {
+            ProductSku sku = skus.get(flashItem.getSkuId());
+            ProductSpu spu = sku == null ? null : spus.get(sku.getSpuId());
+            if (spu != null) {
+                entries.add(new Entry(spu, sku, flashItem));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Rows for products, in the given order, each with its first SKU and that SKU's
+     * first flash item (2 queries: SKUs, flash items)
+     * Products without any SKU are left out
+     */
+    public List<Entry> forSpus(List<ProductSpu> spus) {
+        if (spus.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> spuIds = spus.stream().map(ProductSpu::getId).toList();
+        Map<Long, ProductSku> firstSkus = new HashMap<>();
+        for (ProductSku sku : productSkuMapper.selectListByQuery(
+                QueryWrapper.create()
+                        .where(ProductSku::getSpuId).in(spuIds)
+                        .orderBy(ProductSku::getId, true))) {
+            firstSkus.putIfAbsent(sku.getSpuId(), sku);
+        }
+
+        Map<Long, FlashItem> flashItems = new HashMap<>();
+        if (!firstSkus.isEmpty()) {
+            List<Long> skuIds = firstSkus.values().stream().map(ProductSku::getId).toList();
+            for (FlashItem flashItem : flashItemMapper.selectListByQuery(
+                    QueryWrapper.create()
+                            .where(FlashItem::getSkuId).in(skuIds)
+                            .orderBy(FlashItem::getId, true))) {
+                flashItems.putIfAbsent(flashItem.getSkuId(), flashItem);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(spus.size());
+        for (ProductSpu spu : spus) {
+            ProductSku sku = firstSkus.get(spu.getId());
+            if (sku != null) {
+                entries.add(new Entry(spu, sku, flashItems.get(sku.getId())));
+            }
+        }
+        return entries;
+    }
+
+    private Map<Long, ProductSpu> loadSpus(Iterable<ProductSku> skus) {
+        Set<Long> spuIds = new LinkedHashSet<>();
+        skus.forEach(sku -> spuIds.add(sku.getSpuId()));
+        Map<Long, ProductSpu> spus = new HashMap<>();
+        if (!spuIds.isEmpty()) {
+            productSpuMapper.selectListByIds(spuIds).forEach(spu -> spus.put(spu.getId(), spu));
+        }
+        return spus;
+    }
+}
@@ -0,0 +1,151 @@
+package com.flashbuy.application.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashbuy.common.Result;
+import com.flashbuy.infrastructure.cache.StockStatusBroadcaster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-serialized flash list, served from memory
+ *
+ * The list is built off the request path and kept as the UTF-8 JSON bytes of the
+ * full Result response plus an ETag, so a request costs no DB access and no
+ * Jackson work (and nothing at all to send when the client's ETag still matches)
+ *
+ * The flash list does not filter by time slot yet, so every slot shares one snapshot;
+ * per-slot snapshots only pay off once the query actually narrows by slot
+ *
+ * Rebuilt every refresh-ms, and within check-ms of a sold-out / replenish event on any node.
+ * The ETag is a digest of the list only: a rebuild that finds the same list keeps the
+ * previous snapshot, so clients polling the list keep getting 304
+ */
+@Component
+public class FlashListSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashListSnapshot.class);
+
+    /**
+     * One materialized list
+     *
+     * @param body          Complete response body (Result JSON, UTF-8)
+     * @param etag          Quoted strong ETag
+     * @param builtAtMillis When the list was last found changed
+     */
+    public record Snapshot(byte[] body, String etag, long builtAtMillis) {
+
+        /**
+         * Whether an If-None-Match header value names this snapshot
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final long refreshMillis;
+
+    // Null until first asked for
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+    private volatile long lastRefreshMillis;
+
+    public FlashListSnapshot(
+            ProductService productService,
+            ObjectMapper objectMapper,
+            StockStatusBroadcaster stockStatusBroadcaster,
+            @Value("${pinshop.product.flash-list.refresh-ms:5000}") long refreshMillis) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.refreshMillis = refreshMillis;
+        stockStatusBroadcaster.addListener(skuId -> stockChanged.set(true));
+    }
+
+    /**
+     * Current snapshot, built on the spot only the first time it is asked for
+     */
+    public Snapshot get() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = build(null);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Rebuild the snapshot when it is due or stock changed somewhere in the cluster
+     */
+    @Scheduled(fixedDelayString = "${pinshop.product.flash-list.check-ms:200}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        boolean changed = stockChanged.getAndSet(false);
+        if (!changed && now - lastRefreshMillis < refreshMillis) {
+            return;
+        }
+        lastRefreshMillis = now;
+
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            Snapshot rebuilt = build(snapshot);
+            synchronized (this) {
+                snapshot = rebuilt;
+            }
+        } catch (Exception e) {
+            // Keep serving the previous snapshot
+            log.warn("Flash list refresh failed", e);
+        }
+    }
+
+    private Snapshot build(Snapshot previous) {
+        List<FlashProductDto> products = productService.getFlashList(null);
+        try {
+            String etag = "\"" + digest(objectMapper.writeValueAsBytes(products)) + "\"";
+            if (previous != null && previous.etag().equals(etag)) {
+                return previous;
+            }
+            return new Snapshot(objectMapper.writeValueAsBytes(Result.ok(products)), etag, System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize flash list", e);
+        }
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.flashbuy.application.product;
+
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.entity.ProductSku;
+import com.flashbuy.domain.item.entity.ProductSpu;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.item.mapper.ProductSkuMapper;
+import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import com.mybatisflex.core.query.QueryWrapper;
+import com.mybatisflex.core.util.LambdaGetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drops cached product details of SKUs whose product_sku, product_spu or flash_item rows
+ * changed, including changes made outside this service (back office, SQL)
+ *
+ * Polls update_time (idx_update_time on each table) on every node and evicts through
+ * ProductDetailCache.evictLocal, so no node depends on another one to see a change.
+ * Rows sharing the watermark's millisecond are re-read on the next poll but only evicted once
+ */
+@Component
+public class ProductChangeWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeWatcher.class);
+
+    private final ProductSkuMapper productSkuMapper;
+    private final ProductSpuMapper productSpuMapper;
+    private final FlashItemMapper flashItemMapper;
+    private final ProductDetailCache productDetailCache;
+
+    // Touched only by the scheduler thread
+    private final Watermark skuWatermark = new Watermark();
+    private final Watermark spuWatermark = new Watermark();
+    private final Watermark flashItemWatermark = new Watermark();
+
+    public ProductChangeWatcher(
+            ProductSkuMapper productSkuMapper,
+            ProductSpuMapper productSpuMapper,
+            FlashItemMapper flashItemMapper,
+            ProductDetailCache productDetailCache) {
+        this.productSkuMapper = productSkuMapper;
+        this.productSpuMapper = productSpuMapper;
+        this.flashItemMapper = flashItemMapper;
+        this.productDetailCache = productDetailCache;
+    }
+
+    @Scheduled(fixedDelayString = "${pinshop.product.detail.change-poll-ms:5000}")
+    public void poll() {
+        try {
+            Set<Long> skuIds = new HashSet<>();
+
+            for (ProductSku sku : productSkuMapper.selectListByQuery(skuWatermark.since(
+                    QueryWrapper.create().select(ProductSku::getId, ProductSku::getUpdateTime),
+                    ProductSku::getUpdateTime))) {
+                if (skuWatermark.advance(sku.getId(), sku.getUpdateTime())) {
+                    skuIds.add(sku.getId());
+                }
+            }
+
+            Set<Long> spuIds = new HashSet<>();
+            for (ProductSpu spu : productSpuMapper.selectListByQuery(spuWatermark.since(
+                    QueryWrapper.create().select(ProductSpu::getId, ProductSpu::getUpdateTime),
+                    ProductSpu::getUpdateTime))) {
+                if (spuWatermark.advance(spu.getId(), spu.getUpdateTime())) {
+                    spuIds.add(spu.getId());
+                }
+            }
+            if (!spuIds.isEmpty()) {
+                for (ProductSku sku : productSkuMapper.selectListByQuery(
+                        QueryWrapper.create()
+                                .select(ProductSku::getId)
+                                .where(ProductSku::getSpuId).in(spuIds))) {
+                    skuIds.add(sku.getId());
+                }
+            }
+
+            for (FlashItem flashItem : flashItemMapper.selectListByQuery(flashItemWatermark.since(
+                    QueryWrapper.create().select(FlashItem::getId, FlashItem::getSkuId, FlashItem::getUpdateTime),
+                    FlashItem::getUpdateTime))) {
+                if (flashItemWatermark.advance(flashItem.getId(), flashItem.getUpdateTime())) {
+                    skuIds.add(flashItem.getSkuId());
+                }
+            }
+
+            if (!skuIds.isEmpty()) {
+                productDetailCache.evictLocal(skuIds);
+                log.debug("Product details evicted after row changes: skus={}", skuIds.size());
+            }
+        } catch (Exception e) {
+            log.warn("Product change poll failed", e);
+        }
+    }
+
+    /**
+     * Newest update_time seen in one table, plus the row IDs seen at exactly that time
+     * Until the first poll there is no watermark: it only reads the newest row and evicts nothing
+     */
+    private static final class Watermark {
+        private LocalDateTime time;
+        private final Set<Long> seenAtTime = new HashSet<>();
+
+        private <T> QueryWrapper since(QueryWrapper query, LambdaGetter<T> updateTime) {
+            if (time == null) {
+                return query.orderBy(updateTime, false).limit(1);
+            }
+            // >= so rows sharing the watermark's millisecond are not missed; oldest first
+            // so the watermark only moves forward within one poll
+            return query.where(updateTime).ge(time).orderBy(updateTime, true);
+        }
+
+        /**
+         * @return true if the row changed since the last poll
+         */
+        private boolean advance(Long id, LocalDateTime updated) {
+            if (updated == null) {
+                return false;
+            }
+            boolean initial = time == null;
+            if (initial || updated.isAfter(time)) {
+                time = updated;
+                seenAtTime.clear();
+            }
+            return seenAtTime.add(id) && !initial;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.flashbuy.application.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through two-level cache for assembled product details
+ *
+ * L1: the "items" Caffeine cache (per node). Caffeine loads each key once, so concurrent
+ *     misses for one SKU on a node wait for a single load
+ * L2: Redis, product:detail:{skuId} as JSON. On an L2 miss only the node holding
+ *     product:detail:lock:{skuId} loads from the DB; the others poll L2 for up to load-wait-ms
+ *
+ * So a burst of misses for a just-launched SKU costs one DB load cluster-wide.
+ * Missing products are cached as a short-lived empty marker.
+ *
+ * Invalidation: evict() drops L2 and tells every node over pub/sub to drop L1
+ * (channel product:detail:evict, message {skuIds|*}:{nodeId}). Rows changed outside
+ * this service are picked up by ProductChangeWatcher, which calls evictLocal() on every node
+ *
+ * Evictions bump product:version:{skuId} (product:version for evictAll) before dropping L2.
+ * A loader reads the versions before going to the DB and deletes its L2 write again if
+ * they moved meanwhile, so a load that raced an eviction cannot leave a stale entry behind
+ */
+@Component
+public class ProductDetailCache implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductDetailCache.class);
+
+    private static final String CACHE_NAME = "items";
+    private static final String KEY_PREFIX = "product:detail:";
+    private static final String LOCK_PREFIX = "product:detail:lock:";
+    private static final String VERSION_PREFIX = "product:version:";
+    private static final String GLOBAL_VERSION = "product:version";
+    private static final String CHANNEL = "product:detail:evict";
+    private static final String ALL = "*";
+    private static final String MISSING = "";
+
+    private static final Duration MISSING_TTL = Duration.ofSeconds(30);
+    private static final long POLL_MILLIS = 20;
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private final ProductService productService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache items;
+    private final Duration ttl;
+    private final Duration lockTtl;
+    private final long loadWaitMillis;
+
+    // Identifies this node so its own evictions are not applied twice
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ProductDetailCache(
+            ProductService productService,
+            StringRedisTemplate stringRedisTemplate,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${pinshop.product.detail.ttl-seconds:300}") long ttlSeconds,
+            @Value("${pinshop.product.detail.load-wait-ms:500}") long loadWaitMillis) {
+        this.productService = productService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.items = cacheManager.getCache(CACHE_NAME);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.loadWaitMillis = loadWaitMillis;
+        this.lockTtl = Duration.ofMillis(Math.max(1000, loadWaitMillis * 2));
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Product detail for a SKU, or null if it does not exist
+     */
+    public FlashProductDto get(Long skuId) {
+        return items.get(skuId, () -> load(skuId));
+    }
+
+    /**
+     * Drop cached details of SKUs on every node (after SKU / SPU / flash item rows change)
+     */
+    public void evict(Collection<Long> skuIds) {
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        evictLocal(skuIds);
+        publish(skuIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Drop L2 and this node's L1 without notifying the other nodes
+     * (for callers that run on every node, like ProductChangeWatcher)
+     */
+    public void evictLocal(Collection<Long> skuIds) {
+        if (skuIds.isEmpty()) {
+            return;
+        }
+        try {
+            // Versions first: a loader that read them before this point will see the bump
+            bumpVersions(skuIds);
+            stringRedisTemplate.delete(skuIds.stream().map(ProductDetailCache::key).toList());
+        } catch (Exception e) {
+            log.warn("Failed to drop L2 product details: skuIds={}", skuIds, e);
+        }
+        skuIds.forEach(items::evict);
+    }
+
+    public void evict(Long skuId) {
+        evict(List.of(skuId));
+    }
+
+    /**
+     * Drop every cached detail on every node (e.g. after a bulk data load)
+     */
+    public void evictAll() {
+        try {
+            stringRedisTemplate.opsForValue().increment(GLOBAL_VERSION);
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                stringRedisTemplate.delete(keys);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to drop L2 product details", e);
+        }
+        items.clear();
+        publish(ALL);
+    }
+
+    /**
+     * L2 lookup result; product is null for a cached miss
+     */
+    private record Hit(FlashProductDto product) {
+    }
+
+    private FlashProductDto load(Long skuId) {
+        String key = key(skuId);
+        Hit cached = readL2(key);
+        if (cached != null) {
+            return cached.product();
+        }
+
+        // Cluster-wide single flight: one node loads, the others wait for its L2 write
+        String lockKey = LOCK_PREFIX + skuId;
+        boolean owner = tryLock(lockKey);
+        if (!owner) {
+            cached = awaitL2(key);
+            if (cached != null) {
+                return cached.product();
+            }
+            // Loader is slow or gone, load on our own
+        }
+
+        try {
+            List<String> versions = versions(skuId);
+            FlashProductDto product = productService.getFlashProduct(skuId);
+            writeL2(key, product);
+            if (versions != null && !versions.equals(versions(skuId))) {
+                // Evicted while loading: the product may predate the change
+                deleteL2(key);
+            }
+            return product;
+        } finally {
+            if (owner) {
+                unlock(lockKey);
+            }
+        }
+    }
+
+    /**
+     * @return Cached detail, or null if L2 has nothing
+     */
+    private Hit readL2(String key) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            if (json == null) {
+                return null;
+            }
+            if (json.equals(MISSING)) {
+                return new Hit(null);
+            }
+            return new Hit(objectMapper.readValue(json, FlashProductDto.class));
+        } catch (Exception e) {
+            log.warn("Failed to read L2 product detail: key={}", key, e);
+            return null;
+        }
+    }
+
+    private Hit awaitL2(String key) {
+        long deadline = System.currentTimeMillis() + loadWaitMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Hit cached = readL2(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private void writeL2(String key, FlashProductDto product) {
+        try {
+            if (product == null) {
+                stringRedisTemplate.opsForValue().set(key, MISSING, MISSING_TTL);
+            } else {
+                stringRedisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(product), ttl);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to write L2 product detail: key={}", key, e);
+        }
+    }
+
+    private void deleteL2(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to drop L2 product detail: key={}", key, e);
+        }
+    }
+
+    /**
+     * Eviction versions of a SKU and of the whole cache, or null if Redis is unavailable
+     */
+    private List<String> versions(Long skuId) {
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(List.of(VERSION_PREFIX + skuId, GLOBAL_VERSION));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void bumpVersions(Collection<Long> skuIds) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) {
+                for (Long skuId : skuIds) {
+                    String versionKey = VERSION_PREFIX + skuId;
+                    operations.opsForValue().increment(versionKey);
+                    // Only loads still running need the version; they finish well within the L2 TTL
+                    operations.expire(versionKey, ttl);
+                }
+                return null;
+            }
+        });
+    }
+
+    private boolean tryLock(String lockKey) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, nodeId, lockTtl));
+        } catch (Exception e) {
+            // Redis unavailable: every node loads on its own
+            return true;
+        }
+    }
+
+    private void unlock(String lockKey) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), nodeId);
+        } catch (Exception e) {
+            // Lock expires on its own
+            log.debug("Failed to release product detail load lock: {}", lockKey, e);
+        }
+    }
+
+    private void publish(String skuIds) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, skuIds + ":" + nodeId);
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 expiry
+            log.warn("Failed to broadcast product detail eviction: skuIds={}", skuIds, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":");
+        if (parts.length != 2 || nodeId.equals(parts[1])) {
+            return;
+        }
+
+        if (ALL.equals(parts[0])) {
+            items.clear();
+            return;
+        }
+        try {
+            for (String skuId : parts[0].split(",")) {
+                items.evict(Long.parseLong(skuId));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Malformed product detail eviction: {}", body);
+        }
+    }
+
+    private static String key(Long skuId) {
+        return KEY_PREFIX + skuId;
+    }
+}
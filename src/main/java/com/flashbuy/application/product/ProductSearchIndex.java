@@ -0,0 +1,492 @@
+package com.flashbuy.application.product;
+
+import com.flashbuy.domain.item.entity.ProductSpu;
+import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import com.mybatisflex.core.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory n-gram index over SPU names for product search
+ *
+ * Names are normalized (NFKC, lower case) and split into runs of letters / digits.
+ * Every character (unigram) and every adjacent pair (bigram) of a run is a gram, which
+ * works for Chinese names without a word segmenter. A query is answered by intersecting
+ * the postings of its bigrams (its unigram for one-character runs) and confirming each
+ * candidate with a substring check, so results match the old LIKE '%keyword%' exactly
+ *
+ * Postings are sorted document numbers, delta + varint encoded into one byte[] per gram.
+ * The postings are immutable; SPUs changed since the last build sit in a small overlay
+ * that is scanned directly and folded into new postings once it grows past OVERLAY_LIMIT
+ *
+ * Pages are taken by offset or, for cursor paging, strictly after the RankKey of the
+ * previous page's last row
+ *
+ * Built when the application is ready, then kept current by polling update_time every
+ * refresh-ms. Deleted rows never show up in that poll: a search that finds an SPU's row
+ * gone drops it through remove(), and a full reload every rebuild-ms drops the rest
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int LOAD_BATCH = 5000;
+    private static final int OVERLAY_LIMIT = 1024;
+
+    /**
+     * One page of search results
+     *
+     * @param total  Number of matching SPUs
+     * @param spuIds SPU ids of the page, best match first
+     * @param last   Rank of the page's last row, null for an empty page
+     */
+    public record Page(int total, List<Long> spuIds, RankKey last) {
+    }
+
+    /**
+     * Position of a row in the ranking: keyword position, then name length, then newer SPU first
+     */
+    public record RankKey(int position, int length, long spuId) implements Comparable<RankKey> {
+
+        private static final Comparator<RankKey> ORDER = Comparator.comparingInt(RankKey::position)
+                .thenComparingInt(RankKey::length)
+                .thenComparing(Comparator.comparingLong(RankKey::spuId).reversed());
+
+        @Override
+        public int compareTo(RankKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private final ProductSpuMapper productSpuMapper;
+    private final long rebuildMillis;
+
+    // Current index, null until the first build; replaced as a whole on every change
+    private volatile Snapshot snapshot;
+
+    // Guarded by this
+    private LocalDateTime watermark;
+    private long lastRebuildMillis;
+
+    public ProductSearchIndex(
+            ProductSpuMapper productSpuMapper,
+            @Value("${pinshop.product.search.rebuild-ms:600000}") long rebuildMillis) {
+        this.productSpuMapper = productSpuMapper;
+        this.rebuildMillis = rebuildMillis;
+    }
+
+    /**
+     * Whether the index has been built (searches fall back to SQL until then)
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Search SPU names containing the keyword (case-insensitive)
+     * Ranked by where the keyword occurs in the name, then shorter names, then newer SPUs
+     *
+     * @return The page, or null if the index is not built yet
+     */
+    public Page search(String keyword, int offset, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+
+        List<RankKey> matches = current.search(normalize(keyword == null ? "" : keyword));
+        matches.sort(null);
+
+        int from = Math.min(Math.max(offset, 0), matches.size());
+        return page(matches.size(), matches.subList(from, matches.size()), limit);
+    }
+
+    /**
+     * Search, returning the rows ranked strictly after the given one
+     *
+     * @return The page, or null if the index is not built yet
+     */
+    public Page searchAfter(String keyword, RankKey after, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+
+        List<RankKey> matches = current.search(normalize(keyword == null ? "" : keyword));
+        // Only rows past the cursor are sorted
+        List<RankKey> remaining = new ArrayList<>();
+        for (RankKey match : matches) {
+            if (match.compareTo(after) > 0) {
+                remaining.add(match);
+            }
+        }
+        remaining.sort(null);
+        return page(matches.size(), remaining, limit);
+    }
+
+    private static Page page(int total, List<RankKey> ranked, int limit) {
+        int count = Math.min(Math.max(limit, 0), ranked.size());
+        List<Long> spuIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            spuIds.add(ranked.get(i).spuId());
+        }
+        return new Page(total, spuIds, count == 0 ? null : ranked.get(count - 1));
+    }
+
+    /**
+     * Drop an SPU (visible to the next search)
+     */
+    public synchronized void remove(Long spuId) {
+        Map<Long, String> change = new HashMap<>();
+        change.put(spuId, null);
+        apply(change);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            // Searches use SQL until the next refresh succeeds
+            log.warn("Failed to build product search index", e);
+        }
+    }
+
+    /**
+     * Pick up SPUs changed since the last poll; reload everything when a rebuild is due
+     */
+    @Scheduled(fixedDelayString = "${pinshop.product.search.refresh-ms:10000}")
+    public void refresh() {
+        try {
+            synchronized (this) {
+                if (snapshot == null || System.currentTimeMillis() - lastRebuildMillis >= rebuildMillis) {
+                    rebuild();
+                    return;
+                }
+                loadChanges();
+            }
+        } catch (Exception e) {
+            log.warn("Product search index refresh failed", e);
+        }
+    }
+
+    /**
+     * Reload every SPU name from the database and replace the index
+     */
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        Map<Long, String> names = new HashMap<>();
+        LocalDateTime newest = null;
+
+        // Keyset scan by primary key, LOAD_BATCH rows at a time
+        long lastId = 0;
+        while (true) {
+            List<ProductSpu> batch = productSpuMapper.selectListByQuery(
+                    QueryWrapper.create()
+                            .select(ProductSpu::getId, ProductSpu::getName, ProductSpu::getUpdateTime)
+                            .where(ProductSpu::getId).gt(lastId)
+                            .orderBy(ProductSpu::getId, true)
+                            .limit(LOAD_BATCH));
+            for (ProductSpu spu : batch) {
+                names.put(spu.getId(), normalize(spu.getName() == null ? "" : spu.getName()));
+                newest = later(newest, spu.getUpdateTime());
+                lastId = Math.max(lastId, spu.getId());
+            }
+            if (batch.size() < LOAD_BATCH) {
+                break;
+            }
+        }
+
+        snapshot = new Snapshot(Postings.build(names), Map.of());
+        watermark = newest;
+        lastRebuildMillis = System.currentTimeMillis();
+        log.info("Product search index built: spus={}, costMs={}", names.size(), lastRebuildMillis - started);
+    }
+
+    private void loadChanges() {
+        QueryWrapper query = QueryWrapper.create()
+                .select(ProductSpu::getId, ProductSpu::getName, ProductSpu::getUpdateTime);
+        if (watermark != null) {
+            // >= so rows sharing the watermark's millisecond are not missed; re-applying is harmless
+            query.where(ProductSpu::getUpdateTime).ge(watermark);
+        }
+        List<ProductSpu> changed = productSpuMapper.selectListByQuery(query);
+
+        Map<Long, String> change = new HashMap<>();
+        for (ProductSpu spu : changed) {
+            change.put(spu.getId(), normalize(spu.getName() == null ? "" : spu.getName()));
+            watermark = later(watermark, spu.getUpdateTime());
+        }
+        if (!change.isEmpty()) {
+            apply(change);
+        }
+    }
+
+    /**
+     * Merge changes into the overlay (null name = removed), folding it into new postings when large
+     */
+    private void apply(Map<Long, String> change) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = new Snapshot(Postings.build(Map.of()), Map.of());
+        }
+
+        Map<Long, String> overlay = new HashMap<>(current.overlay());
+        overlay.putAll(change);
+        if (overlay.size() <= OVERLAY_LIMIT) {
+            snapshot = new Snapshot(current.postings(), overlay);
+            return;
+        }
+
+        Map<Long, String> names = current.postings().names();
+        overlay.forEach((spuId, name) -> {
+            if (name == null) {
+                names.remove(spuId);
+            } else {
+                names.put(spuId, name);
+            }
+        });
+        snapshot = new Snapshot(Postings.build(names), Map.of());
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Gram keys of a normalized text: a unigram is the char, a bigram packs two chars into one int
+     *
+     * @param query For a query, only the most selective grams (bigrams, unigrams of single-char runs)
+     */
+    static Set<Integer> grams(String text, boolean query) {
+        Set<Integer> grams = new LinkedHashSet<>();
+        int runStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+                if (!query) {
+                    grams.add((int) text.charAt(i));
+                }
+                if (i > runStart) {
+                    grams.add(text.charAt(i - 1) << 16 | text.charAt(i));
+                }
+            } else {
+                if (query && runStart >= 0 && i - runStart == 1) {
+                    grams.add((int) text.charAt(runStart));
+                }
+                runStart = -1;
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Immutable postings plus the SPUs changed after they were built (name null = removed)
+     */
+    private record Snapshot(Postings postings, Map<Long, String> overlay) {
+
+        List<RankKey> search(String keyword) {
+            List<RankKey> matches = new ArrayList<>();
+            postings.search(keyword, overlay, matches);
+            overlay.forEach((spuId, name) -> {
+                int position = name == null ? -1 : name.indexOf(keyword);
+                if (position >= 0) {
+                    matches.add(new RankKey(position, name.length(), spuId));
+                }
+            });
+            return matches;
+        }
+    }
+
+    /**
+     * Gram -> compressed posting list over document numbers (SPUs in id order)
+     */
+    private static final class Postings {
+
+        private final long[] spuIds;
+        private final String[] names;
+        private final Map<Integer, byte[]> lists;
+        private final Map<Integer, Integer> sizes;
+
+        private Postings(long[] spuIds, String[] names, Map<Integer, byte[]> lists, Map<Integer, Integer> sizes) {
+            this.spuIds = spuIds;
+            this.names = names;
+            this.lists = lists;
+            this.sizes = sizes;
+        }
+
+        static Postings build(Map<Long, String> source) {
+            long[] spuIds = source.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            String[] names = new String[spuIds.length];
+            Map<Integer, PostingWriter> writers = new HashMap<>();
+            for (int doc = 0; doc < spuIds.length; doc++) {
+                names[doc] = source.get(spuIds[doc]);
+                for (Integer gram : grams(names[doc], false)) {
+                    writers.computeIfAbsent(gram, g -> new PostingWriter()).add(doc);
+                }
+            }
+
+            Map<Integer, byte[]> lists = new HashMap<>(writers.size() * 4 / 3 + 1);
+            Map<Integer, Integer> sizes = new HashMap<>(writers.size() * 4 / 3 + 1);
+            writers.forEach((gram, writer) -> {
+                lists.put(gram, writer.toBytes());
+                sizes.put(gram, writer.size);
+            });
+            return new Postings(spuIds, names, lists, sizes);
+        }
+
+        /**
+         * Copy of the indexed names, for folding in the overlay
+         */
+        Map<Long, String> names() {
+            Map<Long, String> copy = new HashMap<>(spuIds.length * 4 / 3 + 1);
+            for (int doc = 0; doc < spuIds.length; doc++) {
+                copy.put(spuIds[doc], names[doc]);
+            }
+            return copy;
+        }
+
+        void search(String keyword, Map<Long, String> overlay, List<RankKey> matches) {
+            int[] candidates = candidates(keyword);
+            int count = candidates == null ? spuIds.length : candidates.length;
+            for (int i = 0; i < count; i++) {
+                int doc = candidates == null ? i : candidates[i];
+                if (overlay.containsKey(spuIds[doc])) {
+                    continue;
+                }
+                int position = names[doc].indexOf(keyword);
+                if (position >= 0) {
+                    matches.add(new RankKey(position, names[doc].length(), spuIds[doc]));
+                }
+            }
+        }
+
+        /**
+         * Documents holding every gram of the keyword, or null when it has no grams (check all)
+         */
+        private int[] candidates(String keyword) {
+            Set<Integer> grams = grams(keyword, true);
+            if (grams.isEmpty()) {
+                return null;
+            }
+
+            List<Integer> ordered = new ArrayList<>(grams.size());
+            for (Integer gram : grams) {
+                if (!lists.containsKey(gram)) {
+                    return new int[0];
+                }
+                ordered.add(gram);
+            }
+            // Start from the rarest gram so the candidate set is small from the outset
+            ordered.sort(Comparator.comparingInt(sizes::get));
+
+            int[] result = decode(lists.get(ordered.get(0)), sizes.get(ordered.get(0)));
+            for (int i = 1; i < ordered.size() && result.length > 0; i++) {
+                result = intersect(result, lists.get(ordered.get(i)));
+            }
+            return result;
+        }
+
+        private static int[] decode(byte[] list, int size) {
+            int[] docs = new int[size];
+            int[] pos = {0};
+            int doc = 0;
+            for (int i = 0; i < size; i++) {
+                doc += readVarint(list, pos);
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        private static int[] intersect(int[] docs, byte[] list) {
+            int[] result = new int[docs.length];
+            int count = 0;
+            int[] pos = {0};
+            int doc = -1;
+            int i = 0;
+            while (i < docs.length) {
+                if (doc < docs[i]) {
+                    if (pos[0] >= list.length) {
+                        break;
+                    }
+                    doc = (doc < 0 ? 0 : doc) + readVarint(list, pos);
+                } else if (doc > docs[i]) {
+                    i++;
+                } else {
+                    result[count++] = doc;
+                    i++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+
+        private static int readVarint(byte[] list, int[] pos) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = list[pos[0]++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * Appends ascending document numbers as varint deltas (the first delta is from 0)
+     */
+    private static final class PostingWriter {
+
+        private byte[] bytes = new byte[8];
+        private int length;
+        private int size;
+        private int last;
+
+        void add(int doc) {
+            int delta = doc - last;
+            last = doc;
+            size++;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+
+        byte[] toBytes() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
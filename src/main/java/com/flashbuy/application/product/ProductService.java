@@ -1,24 +1,40 @@
 package com.flashbuy.application.product;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.flashbuy.common.BusinessException;
+import com.flashbuy.common.PageCursor;
 import com.flashbuy.domain.item.entity.FlashItem;
 import com.flashbuy.domain.item.entity.ProductSku;
 import com.flashbuy.domain.item.entity.ProductSpu;
 import com.flashbuy.domain.item.mapper.FlashItemMapper;
 import com.flashbuy.domain.item.mapper.ProductSkuMapper;
 import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import com.flashbuy.infrastructure.metrics.QueryCounter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mybatisflex.core.query.QueryWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商品服务
  *
  * <p>提供秒杀商品查询、列表展示等功能</p>
  *
+ * <p>列表类接口通过 CatalogAssembler 批量加载 SKU/SPU/秒杀商品，每页查询次数固定，
+ * 各接口的查询次数由 QueryCounter 统计</p>
+ *
+ * <p>商品搜索由 ProductSearchIndex（内存 n-gram 倒排索引）完成匹配、排序与计数，
+ * 索引未就绪时回退到 SQL LIKE 查询</p>
+ *
  * @author FlashBuy Team
  * @since 1.6.0
  */
@@ -27,17 +43,34 @@ public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
+    private static final ObjectReader IMAGE_LIST_READER =
+            new ObjectMapper().readerFor(new TypeReference<List<String>>() {});
+
+    // detail_images JSON -> parsed list, shared by every SKU of a product
+    private final Cache<String, List<String>> parsedImages = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .build();
+
     private final FlashItemMapper flashItemMapper;
     private final ProductSkuMapper productSkuMapper;
     private final ProductSpuMapper productSpuMapper;
+    private final CatalogAssembler catalogAssembler;
+    private final ProductSearchIndex productSearchIndex;
+    private final QueryCounter queryCounter;
 
     public ProductService(
             FlashItemMapper flashItemMapper,
             ProductSkuMapper productSkuMapper,
-            ProductSpuMapper productSpuMapper) {
+            ProductSpuMapper productSpuMapper,
+            CatalogAssembler catalogAssembler,
+            ProductSearchIndex productSearchIndex,
+            QueryCounter queryCounter) {
         this.flashItemMapper = flashItemMapper;
         this.productSkuMapper = productSkuMapper;
         this.productSpuMapper = productSpuMapper;
+        this.catalogAssembler = catalogAssembler;
+        this.productSearchIndex = productSearchIndex;
+        this.queryCounter = queryCounter;
     }
 
     /**
@@ -47,6 +80,10 @@ public class ProductService {
      * @return 秒杀商品列表
      */
     public List<FlashProductDto> getFlashList(String timeSlot) {
+        return queryCounter.measure("flash-list", () -> loadFlashList(timeSlot));
+    }
+
+    private List<FlashProductDto> loadFlashList(String timeSlot) {
         log.info("Fetching flash product list for timeSlot={}", timeSlot);
 
         // 查询所有秒杀商品
@@ -59,18 +96,11 @@ public class ProductService {
 
         List<FlashProductDto> result = new ArrayList<>();
 
-        for (FlashItem flashItem : flashItems) {
-            // 查询SKU信息
-            ProductSku sku = productSkuMapper.selectOneById(flashItem.getSkuId());
-            if (sku == null) {
-                continue;
-            }
-
-            // 查询SPU信息
-            ProductSpu spu = productSpuMapper.selectOneById(sku.getSpuId());
-            if (spu == null) {
-                continue;
-            }
+        // 批量加载SKU与SPU信息
+        for (CatalogAssembler.Entry entry : catalogAssembler.forFlashItems(flashItems)) {
+            FlashItem flashItem = entry.flashItem();
+            ProductSku sku = entry.sku();
+            ProductSpu spu = entry.spu();
 
             // 计算库存百分比
             int stockPercent = (flashItem.getFlashStock() - flashItem.getLockStock()) * 100 / flashItem.getFlashStock();
@@ -100,12 +130,16 @@ public class ProductService {
     }
 
     /**
-     * 根据SKU ID获取商品详情
+     * 根据SKU ID获取商品详情（直接查库，接口层经 ProductDetailCache 读取）
      *
      * @param skuId SKU编号
      * @return 商品详情
      */
     public FlashProductDto getFlashProduct(Long skuId) {
+        return queryCounter.measure("flash-detail", () -> loadFlashProduct(skuId));
+    }
+
+    private FlashProductDto loadFlashProduct(Long skuId) {
         log.info("Fetching flash product details for skuId={}", skuId);
 
         ProductSku sku = productSkuMapper.selectOneById(skuId);
@@ -158,20 +192,20 @@ public class ProductService {
     }
 
     /**
-     * 解析图片列表
+     * 解析图片列表（按原始JSON缓存解析结果）
      */
     private List<String> parseImages(String detailImages) {
         if (detailImages == null || detailImages.isEmpty()) {
             return List.of();
         }
+        return parsedImages.get(detailImages, ProductService::readImages);
+    }
+
+    private static List<String> readImages(String detailImages) {
         try {
             // detailImages is a JSON string like "[\"url1\",\"url2\"]"
             if (detailImages.startsWith("[")) {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(
-                    detailImages,
-                    new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {}
-                );
+                return List.copyOf(IMAGE_LIST_READER.<List<String>>readValue(detailImages));
             }
         } catch (Exception e) {
             log.warn("Failed to parse detail images: {}", detailImages, e);
@@ -218,73 +252,107 @@ public class ProductService {
 
     /**
      * Search products by keyword
+     * Matching, ranking and the total come from ProductSearchIndex; only the page's rows are read
      *
      * @param keyword search keyword
-     * @param pageNum page number
+     * @param pageNum page number (ignored when a cursor is given)
      * @param pageSize page size
+     * @param cursor nextCursor of the previous page (optional)
      * @return search results
      */
-    public SearchResponse searchProducts(String keyword, Integer pageNum, Integer pageSize) {
-        log.info("Search products, keyword={}, pageNum={}, pageSize={}", keyword, pageNum, pageSize);
-
-        // Search in SPU
-        List<ProductSpu> spus = productSpuMapper.selectListByQuery(
-            QueryWrapper.create()
-                .where(ProductSpu::getName).like(keyword)
-                .orderBy(ProductSpu::getId, false)
-                .limit(pageSize)
-                .offset((pageNum - 1) * pageSize)
-        );
-
-        int total = Math.toIntExact(productSpuMapper.selectCountByQuery(
-            QueryWrapper.create()
-                .where(ProductSpu::getName).like(keyword)
-        ));
+    public SearchResponse searchProducts(String keyword, Integer pageNum, Integer pageSize, String cursor) {
+        return queryCounter.measure("search", () -> doSearchProducts(keyword, pageNum, pageSize, cursor));
+    }
 
-        List<FlashProductDto> products = new ArrayList<>();
-        for (ProductSpu spu : spus) {
-            // Get first SKU
-            List<ProductSku> skus = productSkuMapper.selectListByQuery(
+    private SearchResponse doSearchProducts(String keyword, Integer pageNum, Integer pageSize, String cursor) {
+        log.info("Search products, keyword={}, pageNum={}, pageSize={}, cursor={}", keyword, pageNum, pageSize, cursor);
+
+        // (position, length, spuId) of the last row seen
+        long[] after = PageCursor.decode(cursor, 3);
+
+        List<ProductSpu> spus;
+        int total;
+        String nextCursor = null;
+        ProductSearchIndex.Page page = after != null
+                ? productSearchIndex.searchAfter(keyword,
+                        new ProductSearchIndex.RankKey((int) after[0], (int) after[1], after[2]), pageSize)
+                : productSearchIndex.search(keyword, (pageNum - 1) * pageSize, pageSize);
+        if (page != null) {
+            spus = loadSpusInOrder(page.spuIds());
+            total = page.total();
+            if (page.last() != null && page.spuIds().size() == pageSize) {
+                nextCursor = PageCursor.encode(page.last().position(), page.last().length(), page.last().spuId());
+            }
+        } else if (after != null) {
+            // Cursors are positions in the index ranking, which the SQL fallback cannot continue
+            throw new BusinessException(503, "Search is warming up, please retry");
+        } else {
+            // Index not built yet, no cursor for these pages
+            spus = productSpuMapper.selectListByQuery(
                 QueryWrapper.create()
-                    .where(ProductSku::getSpuId).eq(spu.getId())
-                    .limit(1)
+                    .where(ProductSpu::getName).like(keyword)
+                    .orderBy(ProductSpu::getId, false)
+                    .limit(pageSize)
+                    .offset((pageNum - 1) * pageSize)
             );
+            total = Math.toIntExact(productSpuMapper.selectCountByQuery(
+                QueryWrapper.create()
+                    .where(ProductSpu::getName).like(keyword)
+            ));
+        }
 
-            if (!skus.isEmpty()) {
-                ProductSku sku = skus.get(0);
-
-                // Check if has flash item
-                FlashItem flashItem = flashItemMapper.selectOneByQuery(
-                    QueryWrapper.create()
-                        .where(FlashItem::getSkuId).eq(sku.getId())
-                        .limit(1)
-                );
+        List<FlashProductDto> products = new ArrayList<>();
+        // First SKU of each product and its flash item, loaded for the whole page
+        for (CatalogAssembler.Entry entry : catalogAssembler.forSpus(spus)) {
+            ProductSpu spu = entry.spu();
+            ProductSku sku = entry.sku();
+            FlashItem flashItem = entry.flashItem();
+            java.math.BigDecimal price = flashItem != null ? flashItem.getFlashPrice() : sku.getMarketPrice();
+            int stockPercent = flashItem != null ? 100 : 0;
+            int status = flashItem != null && flashItem.getFlashStock() > 0 ? 1 : 2;
+
+            products.add(new FlashProductDto(
+                sku.getId(),
+                spu.getName(),
+                "", // subtitle
+                spu.getMainImage() != null ? spu.getMainImage() : "",
+                List.of(spu.getMainImage()), // images
+                price,
+                sku.getSalePrice() != null ? sku.getSalePrice() : sku.getMarketPrice(),
+                sku.getMarketPrice(),
+                stockPercent,
+                flashItem != null ? flashItem.getFlashStock() : 0, // stock
+                0, // sales
+                status,
+                "", // flashEndTime
+                List.of(), // tags
+                ""  // content
+            ));
+        }
 
-                java.math.BigDecimal price = flashItem != null ? flashItem.getFlashPrice() : sku.getMarketPrice();
-                int stockPercent = flashItem != null ? 100 : 0;
-                int status = flashItem != null && flashItem.getFlashStock() > 0 ? 1 : 2;
+        return new SearchResponse(total, products, nextCursor);
+    }
 
-                products.add(new FlashProductDto(
-                    sku.getId(),
-                    spu.getName(),
-                    "", // subtitle
-                    spu.getMainImage() != null ? spu.getMainImage() : "",
-                    List.of(spu.getMainImage()), // images
-                    price,
-                    sku.getSalePrice() != null ? sku.getSalePrice() : sku.getMarketPrice(),
-                    sku.getMarketPrice(),
-                    stockPercent,
-                    flashItem != null ? flashItem.getFlashStock() : 0, // stock
-                    0, // sales
-                    status,
-                    "", // flashEndTime
-                    List.of(), // tags
-                    ""  // content
-                ));
+    /**
+     * Load SPUs by primary key, keeping the given order
+     * Rows deleted since indexing are skipped and dropped from the search index
+     */
+    private List<ProductSpu> loadSpusInOrder(List<Long> spuIds) {
+        if (spuIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductSpu> byId = new HashMap<>();
+        productSpuMapper.selectListByIds(spuIds).forEach(spu -> byId.put(spu.getId(), spu));
+        List<ProductSpu> spus = new ArrayList<>(spuIds.size());
+        for (Long spuId : spuIds) {
+            ProductSpu spu = byId.get(spuId);
+            if (spu != null) {
+                spus.add(spu);
+            } else {
+                productSearchIndex.remove(spuId);
             }
         }
-
-        return new SearchResponse(total, products);
+        return spus;
     }
 
     /**
@@ -294,6 +362,10 @@ public class ProductService {
      * @return hot product list
      */
     public List<FlashProductDto> getHotProducts(Integer limit) {
+        return queryCounter.measure("hot", () -> loadHotProducts(limit));
+    }
+
+    private List<FlashProductDto> loadHotProducts(Integer limit) {
         log.info("Get hot products, limit={}", limit);
 
         List<ProductSpu> spus = productSpuMapper.selectListByQuery(
@@ -303,44 +375,31 @@ public class ProductService {
         );
 
         List<FlashProductDto> products = new ArrayList<>();
-        for (ProductSpu spu : spus) {
-            List<ProductSku> skus = productSkuMapper.selectListByQuery(
-                QueryWrapper.create()
-                    .where(ProductSku::getSpuId).eq(spu.getId())
-                    .limit(1)
-            );
-
-            if (!skus.isEmpty()) {
-                ProductSku sku = skus.get(0);
-
-                FlashItem flashItem = flashItemMapper.selectOneByQuery(
-                    QueryWrapper.create()
-                        .where(FlashItem::getSkuId).eq(sku.getId())
-                        .limit(1)
-                );
-
-                java.math.BigDecimal price = flashItem != null ? flashItem.getFlashPrice() : sku.getMarketPrice();
-                int stockPercent = flashItem != null && flashItem.getFlashStock() > 0 ? 100 : 0;
-                int status = flashItem != null && flashItem.getFlashStock() > 0 ? 1 : 2;
-
-                products.add(new FlashProductDto(
-                    sku.getId(),
-                    spu.getName(),
-                    "", // subtitle
-                    spu.getMainImage() != null ? spu.getMainImage() : "",
-                    List.of(spu.getMainImage()), // images
-                    price,
-                    sku.getSalePrice() != null ? sku.getSalePrice() : sku.getMarketPrice(),
-                    sku.getMarketPrice(),
-                    stockPercent,
-                    flashItem != null ? flashItem.getFlashStock() : 0, // stock
-                    0, // sales
-                    status,
-                    "", // flashEndTime
-                    List.of(), // tags
-                    ""  // content
-                ));
-            }
+        for (CatalogAssembler.Entry entry : catalogAssembler.forSpus(spus)) {
+            ProductSpu spu = entry.spu();
+            ProductSku sku = entry.sku();
+            FlashItem flashItem = entry.flashItem();
+            java.math.BigDecimal price = flashItem != null ? flashItem.getFlashPrice() : sku.getMarketPrice();
+            int stockPercent = flashItem != null && flashItem.getFlashStock() > 0 ? 100 : 0;
+            int status = flashItem != null && flashItem.getFlashStock() > 0 ? 1 : 2;
+
+            products.add(new FlashProductDto(
+                sku.getId(),
+                spu.getName(),
+                "", // subtitle
+                spu.getMainImage() != null ? spu.getMainImage() : "",
+                List.of(spu.getMainImage()), // images
+                price,
+                sku.getSalePrice() != null ? sku.getSalePrice() : sku.getMarketPrice(),
+                sku.getMarketPrice(),
+                stockPercent,
+                flashItem != null ? flashItem.getFlashStock() : 0, // stock
+                0, // sales
+                status,
+                "", // flashEndTime
+                List.of(), // tags
+                ""  // content
+            ));
         }
 
         return products;
@@ -355,6 +414,7 @@ public class ProductService {
 
     public record SearchResponse(
         Integer total,
-        List<FlashProductDto> products
+        List<FlashProductDto> products,
+        String nextCursor
     ) {}
 }
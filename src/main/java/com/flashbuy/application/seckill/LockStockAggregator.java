@@ -0,0 +1,89 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.application.product.ProductDetailCache;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind sync of flash_item.lock_stock
+ * Redis is the source of truth during a sale; the DB column only feeds
+ * product listings, so confirmed orders are summed per FlashItem in memory
+ * and flushed as one conditional UPDATE per item per interval
+ *
+ * UPDATE flash_item SET lock_stock = lock_stock + ? WHERE id = ? AND lock_stock + ? <= flash_stock
+ *
+ * One row lock per SKU per interval instead of one per order
+ *
+ * Cached product details of the flushed SKUs are evicted after each flush,
+ * so the stock shown on detail pages lags by at most one interval
+ */
+@Component
+public class LockStockAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(LockStockAggregator.class);
+
+    private final FlashItemMapper flashItemMapper;
+    private final ProductDetailCache productDetailCache;
+
+    // flashItemId -> units confirmed since the last flush
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // flashItemId -> skuId, for cache eviction
+    private final Map<Long, Long> skuIds = new ConcurrentHashMap<>();
+
+    public LockStockAggregator(FlashItemMapper flashItemMapper, ProductDetailCache productDetailCache) {
+        this.flashItemMapper = flashItemMapper;
+        this.productDetailCache = productDetailCache;
+    }
+
+    /**
+     * Record units sold for a FlashItem (called once the order is committed)
+     */
+    public void record(Long flashItemId, Long skuId, int count) {
+        skuIds.putIfAbsent(flashItemId, skuId);
+        pending.computeIfAbsent(flashItemId, id -> new LongAdder()).add(count);
+    }
+
+    @Scheduled(fixedDelayString = "${pinshop.seckill.lock-stock-flush-ms:1000}")
+    public void flush() {
+        Set<Long> flushedSkus = new HashSet<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta <= 0) {
+                continue;
+            }
+
+            Long flashItemId = entry.getKey();
+            try {
+                if (flashItemMapper.addLockStock(flashItemId, (int) delta) == 0) {
+                    // More confirmed than allocated: Redis and DB stock disagree
+                    log.warn("Lock stock would exceed flash stock: flashItemId={}, delta={}", flashItemId, delta);
+                    flashItemMapper.fillLockStock(flashItemId);
+                }
+                flushedSkus.add(skuIds.get(flashItemId));
+            } catch (Exception e) {
+                // Keep the delta for the next flush
+                entry.getValue().add(delta);
+                log.warn("Failed to flush lock stock: flashItemId={}, delta={}", flashItemId, delta, e);
+            }
+        }
+
+        if (!flushedSkus.isEmpty()) {
+            productDetailCache.evict(flushedSkus);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
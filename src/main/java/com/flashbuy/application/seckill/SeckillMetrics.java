@@ -0,0 +1,120 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.infrastructure.metrics.LatencyHistogram;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-path metrics for SeckillService.execute
+ * Per-stage latency histograms (System.nanoTime) and outcome counters,
+ * recorded without locks or logging so they can stay on at full load
+ *
+ * Read through GET /api/v1/admin/seckill/metrics, reset through DELETE on the same path
+ */
+@Component
+public class SeckillMetrics {
+
+    /**
+     * Timed stages of one seckill request
+     */
+    public enum Stage {
+        LOCAL_CACHE,
+        DEDUCT,
+        QUEUE_TICKET,
+        PUBLISH,
+        ROLLBACK,
+        TOTAL
+    }
+
+    /**
+     * Why a request did not get a queue ticket
+     */
+    public enum Rejection {
+        INVALID_REQUEST,
+        SOLD_OUT_LOCAL,
+        INSUFFICIENT_STOCK,
+        ALREADY_PURCHASED,
+        LIMIT_EXCEEDED,
+        DEDUCT_FAILED,
+        REDIS_ERROR,
+        PUBLISH_FAILED
+    }
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Rejection, LongAdder> rejections = new EnumMap<>(Rejection.class);
+    private final LongAdder accepted = new LongAdder();
+
+    private volatile Instant since = Instant.now();
+
+    public SeckillMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+        for (Rejection rejection : Rejection.values()) {
+            rejections.put(rejection, new LongAdder());
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).record(nanos);
+    }
+
+    public void reject(Rejection rejection) {
+        rejections.get(rejection).increment();
+    }
+
+    public void accept() {
+        accepted.increment();
+    }
+
+    /**
+     * Latency in microseconds per stage, plus outcome counts since the last reset
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        histograms.forEach((stage, histogram) -> stages.put(key(stage), toMicros(histogram.snapshot())));
+
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        rejections.forEach((rejection, counter) -> rejected.put(key(rejection), counter.sum()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since.toString());
+        result.put("accepted", accepted.sum());
+        result.put("rejected", rejected);
+        result.put("latencyMicros", stages);
+        return result;
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        rejections.values().forEach(LongAdder::reset);
+        accepted.reset();
+        since = Instant.now();
+    }
+
+    private static Map<String, Object> toMicros(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("mean", micros(snapshot.mean()));
+        stats.put("p50", micros(snapshot.p50()));
+        stats.put("p90", micros(snapshot.p90()));
+        stats.put("p99", micros(snapshot.p99()));
+        stats.put("p999", micros(snapshot.p999()));
+        stats.put("max", micros(snapshot.max()));
+        return stats;
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    private static String key(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,170 @@
+package com.flashbuy.application.seckill;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for seckill order creation
+ * Accumulates messages for up to maxSize messages or maxWait, then creates
+ * them with one multi-row insert and one commit
+ *
+ * A failed batch is retried message by message, so one poison message
+ * only fails itself instead of the whole batch
+ */
+@Component
+public class SeckillOrderBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SeckillOrderBatchWriter.class);
+
+    private record Pending(TradeOrderMessage message, CompletableFuture<Void> future) {
+    }
+
+    private final SeckillOrderCreator seckillOrderCreator;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    public SeckillOrderBatchWriter(
+            SeckillOrderCreator seckillOrderCreator,
+            @Value("${pinshop.seckill.order-batch.enabled:true}") boolean enabled,
+            @Value("${pinshop.seckill.order-batch.max-size:200}") int maxSize,
+            @Value("${pinshop.seckill.order-batch.max-wait-ms:10}") long maxWaitMillis) {
+        this.seckillOrderCreator = seckillOrderCreator;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.flusher = enabled
+                ? Thread.ofPlatform().name("order-batch-writer").daemon().start(this::flushLoop)
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Queue one message for the next batch (for per-message callers such as the MQ listener)
+     * The future completes once the order is committed, or exceptionally if it could not be created
+     */
+    public CompletableFuture<Void> submit(TradeOrderMessage message) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!enabled || !running) {
+            future.completeExceptionally(new IllegalStateException("Order batch writer not running"));
+            return future;
+        }
+        queue.add(new Pending(message, future));
+        return future;
+    }
+
+    /**
+     * Create a batch of orders in one transaction, falling back to one transaction
+     * per message if the batch fails
+     *
+     * @return Messages whose order could not be created
+     */
+    public List<TradeOrderMessage> write(List<TradeOrderMessage> messages) {
+        try {
+            seckillOrderCreator.createBatch(messages);
+            return List.of();
+        } catch (Exception e) {
+            log.warn("Order batch failed, retrying {} messages individually", messages.size(), e);
+        }
+
+        List<TradeOrderMessage> failed = new ArrayList<>();
+        for (TradeOrderMessage message : messages) {
+            try {
+                seckillOrderCreator.create(message);
+            } catch (Exception e) {
+                log.error("Failed to create seckill order: {}", message, e);
+                failed.add(message);
+            }
+        }
+        return failed;
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        List<TradeOrderMessage> messages = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or the window closes
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (queue.drainTo(batch, maxSize - batch.size()) == 0) {
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                }
+
+                for (Pending pending : batch) {
+                    messages.add(pending.message());
+                }
+                List<TradeOrderMessage> failed = write(messages);
+                for (Pending pending : batch) {
+                    if (failed.contains(pending.message())) {
+                        pending.future().completeExceptionally(
+                                new IllegalStateException("Failed to create seckill order"));
+                    } else {
+                        pending.future().complete(null);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Order batch writer error", e);
+                for (Pending pending : batch) {
+                    pending.future().completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+                messages.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.trade.entity.OrderItem;
+import com.flashbuy.domain.trade.entity.TradeOrder;
+import com.flashbuy.domain.trade.mapper.OrderItemMapper;
+import com.flashbuy.domain.trade.mapper.TradeOrderMapper;
+import com.flashbuy.infrastructure.cache.SeckillResultStore;
+import com.flashbuy.infrastructure.id.IdGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mybatisflex.core.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the trade order for a deducted seckill request
+ * Shared by every order path: RocketMQ consumer, in-JVM ring pipeline and journal replay
+ *
+ * Batch path (createBatch):
+ * 1. Resolve every FlashItem from a local cache, missing ones in a single query
+ * 2. Multi-row insert of trade_order and order_item
+ * 3. One commit per batch; results are published only after the commit
+ * 4. Sold units feed LockStockAggregator, which syncs flash_item.lock_stock
+ *
+ * Idempotent per queueId: trade_order.queue_id is unique, so a message delivered again
+ * (MQ redelivery after a consumer timeout, outbox resend, journal replay) skips the insert
+ * and is reported as a success with the order created the first time
+ */
+@Component
+public class SeckillOrderCreator {
+
+    private static final Logger log = LoggerFactory.getLogger(SeckillOrderCreator.class);
+
+    private static final int MAX_INSERT_ATTEMPTS = 3;
+
+    private static final String RECEIVER_INFO = "{\"name\":\"Test User\",\"phone\":\"13800138000\",\"address\":\"Test Address\"}";
+
+    private final TradeOrderMapper tradeOrderMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final FlashItemMapper flashItemMapper;
+    private final SeckillResultStore seckillResultStore;
+    private final IdGenerator idGenerator;
+    private final LockStockAggregator lockStockAggregator;
+    private final SeckillRollback seckillRollback;
+
+    // Flash price / item lookups repeat for every buyer of the same SKU
+    private final Cache<ItemKey, FlashItem> flashItemCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    private record ItemKey(Long eventId, Long skuId) {
+    }
+
+    public SeckillOrderCreator(
+            TradeOrderMapper tradeOrderMapper,
+            OrderItemMapper orderItemMapper,
+            FlashItemMapper flashItemMapper,
+            SeckillResultStore seckillResultStore,
+            IdGenerator idGenerator,
+            LockStockAggregator lockStockAggregator,
+            SeckillRollback seckillRollback) {
+        this.tradeOrderMapper = tradeOrderMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.flashItemMapper = flashItemMapper;
+        this.seckillResultStore = seckillResultStore;
+        this.idGenerator = idGenerator;
+        this.lockStockAggregator = lockStockAggregator;
+        this.seckillRollback = seckillRollback;
+    }
+
+    /**
+     * Create the order for one message
+     * Throws on database failure so the caller can retry
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void create(TradeOrderMessage message) {
+        createBatch(List.of(message));
+    }
+
+    /**
+     * Create the orders for a batch of messages in one transaction
+     * Throws on database failure; the whole batch is rolled back and the caller
+     * should retry the messages one by one to isolate a poison message
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void createBatch(List<TradeOrderMessage> messages) {
+        // Step 1: Get flash item info
+        Map<ItemKey, FlashItem> flashItems = resolveFlashItems(messages);
+
+        // Step 2: Build orders
+        LocalDateTime now = LocalDateTime.now();
+        long[] orderIds = idGenerator.nextIds(messages.size());
+        int nextOrderId = 0;
+        List<TradeOrder> orders = new ArrayList<>(messages.size());
+        List<OrderItem> items = new ArrayList<>(messages.size());
+        List<FlashItem> orderFlashItems = new ArrayList<>(messages.size());
+        List<TradeOrderMessage> failed = new ArrayList<>();
+        Set<String> seenQueueIds = new HashSet<>();
+
+        for (TradeOrderMessage message : messages) {
+            if (message.queueId() != null && !seenQueueIds.add(message.queueId())) {
+                // Same message twice in one batch
+                continue;
+            }
+            FlashItem flashItem = flashItems.get(new ItemKey(message.eventId(), message.skuId()));
+            if (flashItem == null) {
+                log.error("Flash item not found: skuId={}", message.skuId());
+                failed.add(message);
+                continue;
+            }
+
+            BigDecimal amount = flashItem.getFlashPrice().multiply(BigDecimal.valueOf(message.count()));
+
+            TradeOrder order = new TradeOrder();
+            order.setId(orderIds[nextOrderId++]);
+            order.setUserId(message.userId());
+            order.setTotalAmount(amount);
+            order.setPayAmount(amount);
+            order.setStatus(10); // 10: Unpaid
+            order.setOrderType("FLASH");
+            order.setMarketingId(message.eventId());
+            order.setReceiverInfo(RECEIVER_INFO);
+            order.setCreateTime(now);
+            order.setExtraJson("{\"skuId\":" + message.skuId() + ",\"count\":" + message.count() + "}");
+            order.setQueueId(message.queueId());
+            orders.add(order);
+
+            OrderItem item = new OrderItem();
+            item.setOrderId(order.getId());
+            item.setSkuId(message.skuId());
+            item.setPrice(flashItem.getFlashPrice());
+            item.setQuantity(message.count());
+            item.setCreateTime(now);
+            items.add(item);
+            orderFlashItems.add(flashItem);
+        }
+
+        // Step 3: Multi-row insert, committed once for the whole batch; already created orders are skipped
+        List<String> successQueueIds = new ArrayList<>(orders.size());
+        List<Long> successOrderIds = new ArrayList<>(orders.size());
+        Map<Long, Integer> soldPerItem = new HashMap<>();
+        Map<Long, Long> skuPerItem = new HashMap<>();
+        int duplicates = 0;
+        if (!orders.isEmpty()) {
+            Map<String, Long> stored = insertOrders(orders, items);
+
+            List<OrderItem> insertedItems = new ArrayList<>(items.size());
+            for (int i = 0; i < orders.size(); i++) {
+                TradeOrder order = orders.get(i);
+                Long storedId = order.getQueueId() == null ? order.getId() : stored.get(order.getQueueId());
+                successQueueIds.add(order.getQueueId());
+                successOrderIds.add(storedId);
+                if (!order.getId().equals(storedId)) {
+                    duplicates++;
+                    continue;
+                }
+                insertedItems.add(items.get(i));
+                FlashItem flashItem = orderFlashItems.get(i);
+                soldPerItem.merge(flashItem.getId(), items.get(i).getQuantity(), Integer::sum);
+                skuPerItem.put(flashItem.getId(), flashItem.getSkuId());
+            }
+            if (!insertedItems.isEmpty()) {
+                orderItemMapper.insertBatch(insertedItems);
+            }
+        }
+
+        log.debug("Orders created: count={}, duplicates={}, rejected={}",
+                orders.size() - duplicates, duplicates, failed.size());
+
+        afterCommit(() -> {
+            // Step 4: Update locked stock in DB (write-behind, one conditional UPDATE per item per interval)
+            soldPerItem.forEach((flashItemId, sold) ->
+                    lockStockAggregator.record(flashItemId, skuPerItem.get(flashItemId), sold));
+
+            // Step 5: Write order status to Redis for frontend polling, once the rows are durable
+            for (int i = 0; i < successQueueIds.size(); i++) {
+                seckillResultStore.markSuccess(successQueueIds.get(i), successOrderIds.get(i));
+            }
+            // No order will ever exist for these: give the deduction back before failing them
+            for (TradeOrderMessage message : failed) {
+                try {
+                    seckillRollback.rollback(message);
+                } catch (Exception e) {
+                    // Left to the stock reconciler
+                    log.error("Failed to roll back seckill deduction: {}", message, e);
+                }
+                seckillResultStore.markFailed(message.queueId(), "Flash item not found");
+            }
+        });
+    }
+
+    /**
+     * Pre-populate the FlashItem cache (event warm-up), so the first orders skip the lookup
+     */
+    public void preloadFlashItems(List<FlashItem> flashItems) {
+        for (FlashItem flashItem : flashItems) {
+            flashItemCache.put(new ItemKey(flashItem.getEventId(), flashItem.getSkuId()), flashItem);
+        }
+    }
+
+    /**
+     * Insert the orders of a batch, skipping those whose queue_id already exists
+     * The upsert skips a generated ID that collides with an existing order as well, which leaves
+     * nothing stored under the queue_id; such orders get fresh IDs and are inserted again.
+     * Orders without a queue_id take a plain insert, so a collision fails the whole batch
+     *
+     * @return queueId -> ID of the order stored under it
+     */
+    private Map<String, Long> insertOrders(List<TradeOrder> orders, List<OrderItem> items) {
+        List<TradeOrder> anonymous = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (orders.get(i).getQueueId() == null) {
+                anonymous.add(orders.get(i));
+            } else {
+                pending.add(i);
+            }
+        }
+        if (!anonymous.isEmpty()) {
+            tradeOrderMapper.insertBatch(anonymous);
+        }
+
+        Map<String, Long> stored = new HashMap<>(pending.size() * 2);
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            List<TradeOrder> batch = new ArrayList<>(pending.size());
+            for (int i : pending) {
+                batch.add(orders.get(i));
+            }
+            tradeOrderMapper.insertBatchSkipDuplicates(batch);
+            stored.putAll(storedOrderIds(batch));
+
+            List<Integer> collided = new ArrayList<>();
+            for (int i : pending) {
+                if (!stored.containsKey(orders.get(i).getQueueId())) {
+                    collided.add(i);
+                }
+            }
+            if (!collided.isEmpty()) {
+                if (attempt >= MAX_INSERT_ATTEMPTS) {
+                    throw new IllegalStateException("Order ID collided with existing orders: count=" + collided.size());
+                }
+                log.warn("Order ID collided with existing orders, retrying with fresh IDs: count={}", collided.size());
+                long[] freshIds = idGenerator.nextIds(collided.size());
+                for (int k = 0; k < collided.size(); k++) {
+                    int i = collided.get(k);
+                    orders.get(i).setId(freshIds[k]);
+                    items.get(i).setOrderId(freshIds[k]);
+                }
+            }
+            pending = collided;
+        }
+        return stored;
+    }
+
+    /**
+     * queueId -> ID of the order stored under it, for the orders of a batch just inserted
+     */
+    private Map<String, Long> storedOrderIds(List<TradeOrder> orders) {
+        List<String> queueIds = new ArrayList<>(orders.size());
+        for (TradeOrder order : orders) {
+            if (order.getQueueId() != null) {
+                queueIds.add(order.getQueueId());
+            }
+        }
+        Map<String, Long> stored = new HashMap<>(queueIds.size() * 2);
+        if (queueIds.isEmpty()) {
+            return stored;
+        }
+        for (TradeOrder order : tradeOrderMapper.selectListByQuery(
+                QueryWrapper.create()
+                        .select(TradeOrder::getId, TradeOrder::getQueueId)
+                        .where(TradeOrder::getQueueId).in(queueIds))) {
+            stored.put(order.getQueueId(), order.getId());
+        }
+        return stored;
+    }
+
+    private Map<ItemKey, FlashItem> resolveFlashItems(List<TradeOrderMessage> messages) {
+        Map<ItemKey, FlashItem> resolved = new HashMap<>();
+        Set<Long> missingEvents = new HashSet<>();
+        Set<Long> missingSkus = new HashSet<>();
+
+        for (TradeOrderMessage message : messages) {
+            ItemKey key = new ItemKey(message.eventId(), message.skuId());
+            if (resolved.containsKey(key)) {
+                continue;
+            }
+            FlashItem cached = flashItemCache.getIfPresent(key);
+            if (cached != null) {
+                resolved.put(key, cached);
+            } else {
+                missingEvents.add(message.eventId());
+                missingSkus.add(message.skuId());
+            }
+        }
+
+        if (!missingSkus.isEmpty()) {
+            List<FlashItem> loaded = flashItemMapper.selectListByQuery(
+                    QueryWrapper.create()
+                            .where(FlashItem::getSkuId).in(missingSkus)
+                            .and(FlashItem::getEventId).in(missingEvents)
+            );
+            for (FlashItem flashItem : loaded) {
+                ItemKey key = new ItemKey(flashItem.getEventId(), flashItem.getSkuId());
+                flashItemCache.put(key, flashItem);
+                resolved.put(key, flashItem);
+            }
+        }
+        return resolved;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
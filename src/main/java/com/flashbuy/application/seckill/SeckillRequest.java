@@ -7,7 +7,7 @@ package com.flashbuy.application.seckill;
  *
  * @param eventId 秒杀场次ID（必填）
  * @param skuId 商品SKU编号（必填）
- * @param count 购买数量（可选，默认1，单次限购1件）
+ * @param count 购买数量（可选，默认1，累计不超过商品的每人限购数量）
  * @param userId 用户ID（必填，从登录Token中获取）
  * @author FlashBuy Team
  * @since 1.0.0
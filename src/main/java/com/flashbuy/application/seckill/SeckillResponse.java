@@ -21,7 +21,11 @@ public record SeckillResponse(
         Long timestamp
 ) {
     public static SeckillResponse queuing() {
-        return new SeckillResponse(0, "Order processing, please wait", null, "Q-" + System.currentTimeMillis(), System.currentTimeMillis());
+        return queuing("Q-" + System.currentTimeMillis());
+    }
+
+    public static SeckillResponse queuing(String queueId) {
+        return new SeckillResponse(0, "Order processing, please wait", null, queueId, System.currentTimeMillis());
     }
 
     public static SeckillResponse success(Long orderId) {
@@ -0,0 +1,93 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.common.Result;
+import com.flashbuy.infrastructure.cache.SeckillResultStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-Sent Events push for seckill outcomes
+ * Parks one async SSE connection per queueId (no thread held) and completes it
+ * as soon as the order is created or rejected on any node
+ *
+ * Fan-out: SeckillResultStore relays finished results over Redis pub/sub,
+ * every node checks its own parked connections by queueId
+ */
+@Component
+public class SeckillResultNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(SeckillResultNotifier.class);
+
+    private static final String EVENT_NAME = "result";
+
+    private final SeckillResultStore seckillResultStore;
+    private final long timeoutMillis;
+
+    private final Map<String, SseEmitter> waiters = new ConcurrentHashMap<>();
+
+    public SeckillResultNotifier(
+            SeckillResultStore seckillResultStore,
+            @Value("${pinshop.seckill.result-stream-timeout-ms:30000}") long timeoutMillis) {
+        this.seckillResultStore = seckillResultStore;
+        this.timeoutMillis = timeoutMillis;
+        seckillResultStore.addListener(this::onResult);
+    }
+
+    /**
+     * Open a push connection for a queue ticket
+     * Completes immediately when the result is already final or the ticket is unknown;
+     * on timeout the current (queuing) state is sent and the client may reconnect
+     */
+    public SseEmitter subscribe(String queueId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onTimeout(() -> {
+            if (waiters.remove(queueId, emitter)) {
+                send(emitter, Result.ok(SeckillResponse.queuing(queueId)));
+            }
+        });
+        emitter.onCompletion(() -> waiters.remove(queueId, emitter));
+        emitter.onError(e -> waiters.remove(queueId, emitter));
+
+        // A reconnecting client replaces its previous connection
+        SseEmitter previous = waiters.put(queueId, emitter);
+        if (previous != null) {
+            previous.complete();
+        }
+
+        // Register first, then read the store: a result landing in between is delivered once either way
+        SeckillResponse current = seckillResultStore.find(queueId);
+        if (current == null) {
+            if (waiters.remove(queueId, emitter)) {
+                send(emitter, Result.error(4004, "Queue ticket not found or expired"));
+            }
+        } else if (current.status() != 0) {
+            onResult(queueId, current);
+        }
+        return emitter;
+    }
+
+    private void onResult(String queueId, SeckillResponse response) {
+        SseEmitter emitter = waiters.remove(queueId);
+        if (emitter != null) {
+            send(emitter, Result.ok(response));
+        }
+    }
+
+    private void send(SseEmitter emitter, Result<SeckillResponse> result) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(result));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            log.debug("Failed to push seckill result", e);
+            emitter.completeWithError(e);
+        }
+    }
+}
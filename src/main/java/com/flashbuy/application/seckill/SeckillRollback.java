@@ -0,0 +1,50 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.infrastructure.cache.BuyerRegistry;
+import com.flashbuy.infrastructure.cache.SegmentedStockScript;
+import com.flashbuy.infrastructure.cache.StockLeaseManager;
+import com.flashbuy.infrastructure.cache.StockLuaScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Undoes a Redis deduction whose order will never be created
+ * Gives the units back (to the local lease, the user's home bucket or the stock key, per stock mode)
+ * and releases the buyer claim and quota, so the user may try again
+ */
+@Component
+public class SeckillRollback {
+
+    private final StockLuaScript stockLuaScript;
+    private final SegmentedStockScript segmentedStockScript;
+    private final StockLeaseManager stockLeaseManager;
+    private final BuyerRegistry buyerRegistry;
+
+    public SeckillRollback(
+            StockLuaScript stockLuaScript,
+            SegmentedStockScript segmentedStockScript,
+            StockLeaseManager stockLeaseManager,
+            BuyerRegistry buyerRegistry) {
+        this.stockLuaScript = stockLuaScript;
+        this.segmentedStockScript = segmentedStockScript;
+        this.stockLeaseManager = stockLeaseManager;
+        this.buyerRegistry = buyerRegistry;
+    }
+
+    public void rollback(TradeOrderMessage message) {
+        int count = message.count();
+        if (segmentedStockScript.isEnabled() && !stockLeaseManager.isEnabled()) {
+            segmentedStockScript.rollback(message.eventId(), message.skuId(), message.userId(), count);
+            return;
+        }
+
+        String stockKey = StockLuaScript.stockKey(message.skuId());
+        if (stockLeaseManager.isEnabled()) {
+            stockLeaseManager.recoverStock(message.skuId(), count);
+        } else {
+            stockLuaScript.recoverStock(stockKey, count);
+        }
+        BuyerRegistry.Slot buyer = buyerRegistry.slot(
+                message.eventId(), BuyerRegistry.userKey(message.eventId(), message.skuId()), message.userId());
+        buyerRegistry.release(buyer, StockLuaScript.limitKey(stockKey), count);
+    }
+}
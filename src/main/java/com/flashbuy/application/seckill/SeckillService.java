@@ -2,25 +2,44 @@ package com.flashbuy.application.seckill;
 
 import com.flashbuy.domain.item.entity.FlashItem;
 import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.infrastructure.cache.BuyerRegistry;
 import com.flashbuy.infrastructure.cache.LocalStockCache;
+import com.flashbuy.infrastructure.cache.SeckillResultStore;
+import com.flashbuy.infrastructure.cache.SegmentedStockScript;
+import com.flashbuy.infrastructure.cache.StockDeductionBatcher;
+import com.flashbuy.infrastructure.cache.StockLeaseManager;
 import com.flashbuy.infrastructure.cache.StockLuaScript;
-import com.flashbuy.infrastructure.mq.rocketmq.SeckillOrderProducer;
+import com.flashbuy.infrastructure.cache.StockStatusBroadcaster;
+import com.flashbuy.infrastructure.mq.OrderDispatcher;
+import com.flashbuy.infrastructure.mq.journal.OrderJournal;
 import com.flashbuy.common.BusinessException;
+import com.flashbuy.common.ExpectedRejectionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Flash Sale Core Service
  * Implements high-concurrency flash sale logic
  *
  * Core Flow:
- * 1. Local cache check (Caffeine) - block 90% requests when stock empty
+ * 1. Local cache check - block 90% requests when stock empty
+ *    (sold-out / replenish marks are broadcast to every node)
  * 2. Redis atomic deduction (Lua script) - thread-safe stock deduction
- * 3. MQ async order creation - prevent DB pressure
- * 4. Return immediately - frontend polls for result
+ *    (optionally spread across segmented stock buckets for hot SKUs,
+ *    or served from a node-local stock lease, or micro-batched per SKU)
+ * 3. Async order creation via OrderDispatcher (RocketMQ or in-JVM ring) - prevent DB pressure
+ *    (journaled locally when no dispatcher is configured)
+ * 4. Return immediately - frontend polls for result by queueId
+ *
+ * Every stage is timed into SeckillMetrics (nanoTime histograms, rejection counters)
+ * instead of being logged per request
  */
 @Service
 public class SeckillService {
@@ -28,23 +47,47 @@ public class SeckillService {
     private static final Logger log = LoggerFactory.getLogger(SeckillService.class);
 
     private final LocalStockCache localStockCache;
+    private final StockStatusBroadcaster stockStatusBroadcaster;
     private final StockLuaScript stockLuaScript;
-    private final SeckillOrderProducer mqProducer;
+    private final SegmentedStockScript segmentedStockScript;
+    private final StockLeaseManager stockLeaseManager;
+    private final StockDeductionBatcher stockDeductionBatcher;
+    private final OrderDispatcher orderDispatcher;
     private final FlashItemMapper flashItemMapper;
-
-    private static final String STOCK_PREFIX = "flash:stock:";
-    private static final String USER_PREFIX = "flash:user:";
+    private final SeckillResultStore seckillResultStore;
+    private final OrderJournal orderJournal;
+    private final SeckillMetrics seckillMetrics;
+    private final BuyerRegistry buyerRegistry;
+    private final SeckillRollback seckillRollback;
 
     @Autowired
     public SeckillService(
             LocalStockCache localStockCache,
+            StockStatusBroadcaster stockStatusBroadcaster,
             StockLuaScript stockLuaScript,
-            @Nullable SeckillOrderProducer mqProducer,
-            FlashItemMapper flashItemMapper) {
+            SegmentedStockScript segmentedStockScript,
+            StockLeaseManager stockLeaseManager,
+            StockDeductionBatcher stockDeductionBatcher,
+            @Nullable OrderDispatcher orderDispatcher,
+            FlashItemMapper flashItemMapper,
+            SeckillResultStore seckillResultStore,
+            @Nullable OrderJournal orderJournal,
+            SeckillMetrics seckillMetrics,
+            BuyerRegistry buyerRegistry,
+            SeckillRollback seckillRollback) {
         this.localStockCache = localStockCache;
+        this.stockStatusBroadcaster = stockStatusBroadcaster;
         this.stockLuaScript = stockLuaScript;
-        this.mqProducer = mqProducer;
+        this.segmentedStockScript = segmentedStockScript;
+        this.stockLeaseManager = stockLeaseManager;
+        this.stockDeductionBatcher = stockDeductionBatcher;
+        this.orderDispatcher = orderDispatcher;
         this.flashItemMapper = flashItemMapper;
+        this.seckillResultStore = seckillResultStore;
+        this.orderJournal = orderJournal;
+        this.seckillMetrics = seckillMetrics;
+        this.buyerRegistry = buyerRegistry;
+        this.seckillRollback = seckillRollback;
     }
 
     /**
@@ -52,92 +95,199 @@ public class SeckillService {
      * This method must complete within 50ms to handle 100K+ QPS
      */
     public SeckillResponse execute(SeckillRequest request) {
+        long startNanos = System.nanoTime();
+        try {
+            return doExecute(request, startNanos);
+        } finally {
+            seckillMetrics.record(SeckillMetrics.Stage.TOTAL, System.nanoTime() - startNanos);
+        }
+    }
+
+    private SeckillResponse doExecute(SeckillRequest request, long startNanos) {
         // 参数校验
         if (request.userId() == null) {
+            seckillMetrics.reject(SeckillMetrics.Rejection.INVALID_REQUEST);
             throw new BusinessException("User ID is required");
         }
         if (request.eventId() == null) {
+            seckillMetrics.reject(SeckillMetrics.Rejection.INVALID_REQUEST);
             throw new BusinessException("Event ID is required");
         }
         if (request.skuId() == null) {
+            seckillMetrics.reject(SeckillMetrics.Rejection.INVALID_REQUEST);
             throw new BusinessException("SKU ID is required");
         }
 
-        long startTime = System.currentTimeMillis();
-
         // Step 1: Local cache check (Level 1 defense)
-        if (localStockCache.isEmpty(request.skuId().toString())) {
-            log.warn("Local cache: stock empty for skuId={}", request.skuId());
-            throw new BusinessException("Flash sale ended");
+        boolean soldOut = localStockCache.isEmpty(request.skuId());
+        long cacheCheckedNanos = System.nanoTime();
+        seckillMetrics.record(SeckillMetrics.Stage.LOCAL_CACHE, cacheCheckedNanos - startNanos);
+        if (soldOut) {
+            // Counted, not logged: this is the path most traffic takes once a SKU sells out
+            seckillMetrics.reject(SeckillMetrics.Rejection.SOLD_OUT_LOCAL);
+            throw new ExpectedRejectionException("Flash sale ended");
         }
 
         // Step 2: Build Redis keys
-        String stockKey = STOCK_PREFIX + request.skuId();
-        String userLimitKey = USER_PREFIX + request.eventId() + ":" + request.skuId();
+        String stockKey = StockLuaScript.stockKey(request.skuId());
+        String userLimitKey = BuyerRegistry.userKey(request.eventId(), request.skuId());
 
         // Step 3: Redis atomic deduction with Lua script (Level 2 defense)
         Long result;
         try {
-            result = stockLuaScript.deductStock(
-                    stockKey,
-                    userLimitKey,
-                    request.userId().toString(),
-                    request.count()
-            );
+            if (stockLeaseManager.isEnabled()) {
+                result = stockLeaseManager.deductStock(
+                        request.eventId(),
+                        request.skuId(),
+                        request.userId(),
+                        request.count()
+                );
+            } else if (segmentedStockScript.isEnabled()) {
+                result = segmentedStockScript.deductStock(
+                        request.eventId(),
+                        request.skuId(),
+                        request.userId(),
+                        request.count()
+                ).result();
+            } else if (stockDeductionBatcher.isEnabled()) {
+                result = stockDeductionBatcher.deductStock(
+                        stockKey,
+                        buyerRegistry.slot(request.eventId(), userLimitKey, request.userId()),
+                        request.count()
+                );
+            } else {
+                result = stockLuaScript.deductStock(
+                        stockKey,
+                        buyerRegistry.slot(request.eventId(), userLimitKey, request.userId()),
+                        request.count()
+                );
+            }
         } catch (Exception e) {
+            seckillMetrics.record(SeckillMetrics.Stage.DEDUCT, System.nanoTime() - cacheCheckedNanos);
+            seckillMetrics.reject(SeckillMetrics.Rejection.REDIS_ERROR);
             log.error("Redis operation failed, attempting fallback", e);
             // Redis不可用时的降级处理：直接查询数据库
             throw new BusinessException("System is busy, please try again later");
         }
+        long deductedNanos = System.nanoTime();
+        seckillMetrics.record(SeckillMetrics.Stage.DEDUCT, deductedNanos - cacheCheckedNanos);
 
         // Step 4: Handle result
         if (result == null || result < 0) {
-            if (result == -1) {
-                // Insufficient stock - mark as empty in local cache
-                localStockCache.markEmpty(request.skuId().toString());
-                throw new BusinessException("Insufficient stock");
-            } else if (result == -2) {
-                throw new BusinessException("You have already purchased this item");
+            if (result != null && result == -1) {
+                // Insufficient stock - mark as empty in local cache of every node
+                seckillMetrics.reject(SeckillMetrics.Rejection.INSUFFICIENT_STOCK);
+                if (!stockLeaseManager.isEnabled()) {
+                    // In lease mode -1 only means this node's lease and Redis are dry;
+                    // other nodes may still hold leased units, so nothing is marked
+                    stockStatusBroadcaster.markEmpty(request.skuId());
+                }
+                throw new ExpectedRejectionException("Insufficient stock");
+            } else if (result != null && result == -2) {
+                seckillMetrics.reject(SeckillMetrics.Rejection.ALREADY_PURCHASED);
+                throw new ExpectedRejectionException("You have already purchased this item");
+            } else if (result != null && result == -4) {
+                seckillMetrics.reject(SeckillMetrics.Rejection.LIMIT_EXCEEDED);
+                throw new ExpectedRejectionException("Purchase limit per user exceeded");
             }
+            seckillMetrics.reject(SeckillMetrics.Rejection.DEDUCT_FAILED);
             throw new BusinessException("Flash sale failed");
         }
 
         // Step 5: Send MQ message for async order creation (if MQ is available)
-        if (mqProducer != null) {
-            TradeOrderMessage mqMessage = new TradeOrderMessage(
-                    request.userId(),
-                    request.eventId(),
-                    request.skuId(),
-                    request.count(),
-                    System.currentTimeMillis()
-            );
-
-            boolean sent = mqProducer.sendOrderMessage(mqMessage);
-            if (!sent) {
-                // Rollback stock if MQ fails
-                stockLuaScript.recoverStock(stockKey, request.count());
-                throw new BusinessException("System busy, please try again");
-            }
+        String queueId = nextQueueId(request.userId());
+        seckillResultStore.markQueuing(queueId);
+        long ticketedNanos = System.nanoTime();
+        seckillMetrics.record(SeckillMetrics.Stage.QUEUE_TICKET, ticketedNanos - deductedNanos);
+
+        TradeOrderMessage mqMessage = new TradeOrderMessage(
+                request.userId(),
+                request.eventId(),
+                request.skuId(),
+                request.count(),
+                System.currentTimeMillis(),
+                queueId
+        );
+
+        boolean sent;
+        if (orderDispatcher != null) {
+            sent = orderDispatcher.dispatch(mqMessage);
+        } else if (orderJournal != null) {
+            // No dispatcher: journal the deduction, orders are created when it is replayed
+            sent = orderJournal.append(mqMessage);
         } else {
-            log.warn("MQ producer not available, seckill executed without async order creation");
+            log.warn("Order dispatcher not available, seckill executed without async order creation");
+            sent = true;
         }
+        long publishedNanos = System.nanoTime();
+        seckillMetrics.record(SeckillMetrics.Stage.PUBLISH, publishedNanos - ticketedNanos);
 
-        long duration = System.currentTimeMillis() - startTime;
-        log.info("Seckill executed successfully: userId={}, skuId={}, duration={}ms",
-                request.userId(), request.skuId(), duration);
+        if (!sent) {
+            // Rollback stock, buyer claim and quota if MQ fails, so the user may try again
+            seckillRollback.rollback(mqMessage);
+            seckillResultStore.markFailed(queueId, "System busy, please try again");
+            seckillMetrics.record(SeckillMetrics.Stage.ROLLBACK, System.nanoTime() - publishedNanos);
+            seckillMetrics.reject(SeckillMetrics.Rejection.PUBLISH_FAILED);
+            throw new BusinessException("System busy, please try again");
+        }
+
+        seckillMetrics.accept();
 
         // Step 6: Return immediately (frontend polls for order status)
-        return SeckillResponse.queuing();
+        return SeckillResponse.queuing(queueId);
+    }
+
+    /**
+     * Query the outcome of a queued seckill request
+     *
+     * @return Queuing / success / failed response, or null if the ticket is unknown or expired
+     */
+    public SeckillResponse getResult(String queueId) {
+        return seckillResultStore.find(queueId);
+    }
+
+    /**
+     * Queue ticket: time + user + random suffix, base36 to keep it short
+     */
+    private static String nextQueueId(Long userId) {
+        return "Q-" + Long.toString(System.currentTimeMillis(), 36)
+                + "-" + Long.toString(userId, 36)
+                + "-" + Integer.toString(ThreadLocalRandom.current().nextInt(1 << 20), 36);
     }
 
     /**
      * Warm-up: Preload stock to Redis before event starts
-     * Called by scheduled job
+     * Called manually for a single SKU; StockWarmUpJob uses warmUpStocks. The per-user limit
+     * is written with the stock, so a key left over from an earlier sale never applies
+     *
+     * @param limitPerUser units one user may buy (flash_item.limit_per_user)
      */
-    public void warmUpStock(Long skuId, Integer stock) {
-        String stockKey = STOCK_PREFIX + skuId;
-        stockLuaScript.initStock(stockKey, stock);
-        localStockCache.clearEmpty(skuId.toString());
-        log.info("Stock warmed up: skuId={}, stock={}", skuId, stock);
+    public void warmUpStock(Long skuId, Integer stock, Integer limitPerUser) {
+        warmUpStocks(Map.of(skuId, stock), Map.of(skuId, Math.max(1, limitPerUser == null ? 1 : limitPerUser)));
+    }
+
+    /**
+     * Bulk warm-up for every item of an event: one pipelined Redis call for the stock
+     * and per-user limits, then sold-out marks are cleared on every node
+     *
+     * @param stocks skuId -> stock
+     * @param limits skuId -> units one user may buy (flash_item.limit_per_user)
+     */
+    public void warmUpStocks(Map<Long, Integer> stocks, Map<Long, Integer> limits) {
+        if (stocks.isEmpty()) {
+            return;
+        }
+        if (segmentedStockScript.isEnabled() && !stockLeaseManager.isEnabled()) {
+            segmentedStockScript.initStocks(stocks, limits);
+        } else {
+            Map<String, Integer> keyed = new HashMap<>(stocks.size() * 2);
+            stocks.forEach((skuId, stock) -> keyed.put(StockLuaScript.stockKey(skuId), stock));
+            Map<String, Integer> keyedLimits = new HashMap<>(limits.size() * 2);
+            limits.forEach((skuId, limit) -> keyedLimits.put(StockLuaScript.stockKey(skuId), limit));
+            // Leases of the old stock are dropped on every node by the replenish below
+            stockLuaScript.initStocks(keyed, keyedLimits);
+        }
+        stocks.keySet().forEach(stockStatusBroadcaster::replenish);
+        log.info("Stock warmed up: skus={}", stocks.size());
     }
 }
@@ -0,0 +1,424 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.trade.mapper.TradeOrderMapper;
+import com.flashbuy.infrastructure.cache.BuyerRegistry;
+import com.flashbuy.infrastructure.cache.SegmentedStockScript;
+import com.flashbuy.infrastructure.cache.StockLeaseManager;
+import com.flashbuy.infrastructure.cache.StockLuaScript;
+import com.flashbuy.infrastructure.mq.OrderDispatcher;
+import com.flashbuy.infrastructure.mq.journal.OrderJournal;
+import com.mybatisflex.core.query.QueryWrapper;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled Job to Reconcile Redis Stock with Created Orders
+ * Catches inventory leaked by lost order messages or rollbacks
+ *
+ * Each tick handles one bounded SCAN step over the buyer registries (flash:user:*)
+ * and compares, per event / SKU:
+ * - Redis remaining stock vs flash_stock - units in trade_order
+ * - Redis buyers vs distinct buyers in trade_order
+ *
+ * SCAN runs on each master in turn (a single server counts as one), and the
+ * master and its cursor are checkpointed in Redis, so passes resume where the last
+ * one stopped (on any node) and load stays flat during a sale
+ *
+ * Orders still in flight show up as positive drift, so stock is only repaired
+ * when repair is enabled, no node reports a local order backlog (outbox, ring or
+ * journal), and the same drift has been seen for at least min-drift-age-ms.
+ * Messages waiting in the broker or in consumer retries are invisible to the nodes,
+ * and a stalled consumer holds the drift steady, so that age has to cover the
+ * broker's retention and retry horizon: only then can no pending order still land
+ */
+@Component
+public class StockReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReconciler.class);
+
+    private static final String LOCK_KEY = "flash:reconcile:lock";
+    // {master node ID}|{cursor}; the master ID is empty for a single server
+    private static final String CURSOR_KEY = "flash:reconcile:cursor";
+    // eventId:skuId -> {drift}|{epoch millis it was first seen}
+    private static final String DRIFT_KEY = "flash:reconcile:drift";
+    // nodeId -> epoch millis until which that node's last reported backlog counts
+    private static final String BACKLOG_KEY = "flash:reconcile:backlog";
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final String USER_PATTERN = "flash:user:*";
+    private static final String USER_PREFIX = "flash:user:";
+    private static final String STANDALONE = "";
+    private static final Duration SCAN_TIMEOUT = Duration.ofSeconds(3);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final StockLuaScript stockLuaScript;
+    private final SegmentedStockScript segmentedStockScript;
+    private final StockLeaseManager stockLeaseManager;
+    private final BuyerRegistry buyerRegistry;
+    private final FlashItemMapper flashItemMapper;
+    private final TradeOrderMapper tradeOrderMapper;
+    private final ObjectProvider<OrderDispatcher> orderDispatcher;
+    private final ObjectProvider<OrderJournal> orderJournal;
+    private final int scanCount;
+    private final boolean repair;
+    private final long intervalMillis;
+    private final long minDriftAgeMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private record SkuKey(Long eventId, Long skuId) {
+    }
+
+    public StockReconciler(
+            StringRedisTemplate stringRedisTemplate,
+            StockLuaScript stockLuaScript,
+            SegmentedStockScript segmentedStockScript,
+            StockLeaseManager stockLeaseManager,
+            BuyerRegistry buyerRegistry,
+            FlashItemMapper flashItemMapper,
+            TradeOrderMapper tradeOrderMapper,
+            ObjectProvider<OrderDispatcher> orderDispatcher,
+            ObjectProvider<OrderJournal> orderJournal,
+            @Value("${pinshop.seckill.reconcile.scan-count:100}") int scanCount,
+            @Value("${pinshop.seckill.reconcile.repair:false}") boolean repair,
+            @Value("${pinshop.seckill.reconcile.interval-ms:5000}") long intervalMillis,
+            @Value("${pinshop.seckill.reconcile.min-drift-age-ms:259200000}") long minDriftAgeMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.stockLuaScript = stockLuaScript;
+        this.segmentedStockScript = segmentedStockScript;
+        this.stockLeaseManager = stockLeaseManager;
+        this.buyerRegistry = buyerRegistry;
+        this.flashItemMapper = flashItemMapper;
+        this.tradeOrderMapper = tradeOrderMapper;
+        this.orderDispatcher = orderDispatcher;
+        this.orderJournal = orderJournal;
+        this.scanCount = scanCount;
+        this.repair = repair;
+        this.intervalMillis = intervalMillis;
+        this.minDriftAgeMillis = minDriftAgeMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${pinshop.seckill.reconcile.interval-ms:5000}")
+    public void reconcileStep() {
+        reportBacklog();
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, Duration.ofMinutes(1));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.debug("Reconcile lock unavailable, skipping step", e);
+            return;
+        }
+
+        try {
+            ScanStep step = scan(stringRedisTemplate.opsForValue().get(CURSOR_KEY));
+
+            Set<SkuKey> skus = new HashSet<>();
+            for (String key : step.keys()) {
+                SkuKey sku = parse(key);
+                if (sku != null) {
+                    skus.add(sku);
+                }
+            }
+            if (!skus.isEmpty()) {
+                reconcile(skus, repair && !backlogReported());
+            }
+
+            stringRedisTemplate.opsForValue().set(CURSOR_KEY, step.checkpoint());
+        } catch (Exception e) {
+            log.error("Stock reconciliation step failed", e);
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), nodeId);
+            } catch (Exception e) {
+                // Lock expires on its own
+                log.warn("Failed to release reconcile lock", e);
+            }
+        }
+    }
+
+    /**
+     * Every node, lock holder or not, publishes whether it still holds orders
+     * that have not reached trade_order; the entry outlives a few missed ticks
+     */
+    private void reportBacklog() {
+        long backlog = localBacklog();
+        try {
+            if (backlog > 0) {
+                long until = System.currentTimeMillis() + 3 * intervalMillis;
+                stringRedisTemplate.opsForHash().put(BACKLOG_KEY, nodeId, Long.toString(until));
+            } else {
+                stringRedisTemplate.opsForHash().delete(BACKLOG_KEY, nodeId);
+            }
+        } catch (Exception e) {
+            log.debug("Failed to report order backlog", e);
+        }
+    }
+
+    private long localBacklog() {
+        long backlog = 0;
+        OrderDispatcher dispatcher = orderDispatcher.getIfAvailable();
+        if (dispatcher != null) {
+            backlog += dispatcher.backlog();
+        }
+        OrderJournal journal = orderJournal.getIfAvailable();
+        if (journal != null) {
+            backlog += journal.backlog();
+        }
+        return backlog;
+    }
+
+    /**
+     * Whether any node reported a backlog recently; expired entries (crashed nodes) are dropped
+     */
+    private boolean backlogReported() {
+        long now = System.currentTimeMillis();
+        boolean reported = false;
+        for (Map.Entry<Object, Object> entry : stringRedisTemplate.opsForHash().entries(BACKLOG_KEY).entrySet()) {
+            if (Long.parseLong(entry.getValue().toString()) > now) {
+                reported = true;
+            } else {
+                stringRedisTemplate.opsForHash().delete(BACKLOG_KEY, entry.getKey());
+            }
+        }
+        return reported;
+    }
+
+    private record ScanStep(String checkpoint, List<String> keys) {
+    }
+
+    /**
+     * One bounded SCAN step on the checkpointed master, moving on to the next master
+     * once its scan completes
+     * SCAN is sent to the master itself through Lettuce: a keyless EVAL would land on
+     * an arbitrary cluster node, where the stored cursor means nothing
+     */
+    @SuppressWarnings("unchecked")
+    private ScanStep scan(String checkpoint) {
+        try (RedisConnection connection = stringRedisTemplate.getRequiredConnectionFactory().getConnection()) {
+            List<String> masters = masters(connection);
+            if (masters.isEmpty()) {
+                throw new IllegalStateException("No Redis master to scan");
+            }
+
+            String master = masters.get(0);
+            String cursor = "0";
+            int separator = checkpoint == null ? -1 : checkpoint.lastIndexOf('|');
+            if (separator >= 0 && masters.contains(checkpoint.substring(0, separator))) {
+                master = checkpoint.substring(0, separator);
+                cursor = checkpoint.substring(separator + 1);
+            }
+
+            Object nativeConnection = connection.getNativeConnection();
+            RedisKeyAsyncCommands<byte[], byte[]> commands = STANDALONE.equals(master)
+                    ? (RedisKeyAsyncCommands<byte[], byte[]>) nativeConnection
+                    : ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) nativeConnection).getConnection(master);
+            KeyScanCursor<byte[]> result = LettuceFutures.awaitOrCancel(
+                    commands.scan(ScanCursor.of(cursor), ScanArgs.Builder.matches(USER_PATTERN).limit(scanCount)),
+                    SCAN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+            List<String> keys = new ArrayList<>(result.getKeys().size());
+            for (byte[] key : result.getKeys()) {
+                keys.add(new String(key, StandardCharsets.UTF_8));
+            }
+            String next = result.isFinished()
+                    ? masters.get((masters.indexOf(master) + 1) % masters.size()) + "|0"
+                    : master + "|" + result.getCursor();
+            return new ScanStep(next, keys);
+        }
+    }
+
+    /**
+     * Master node IDs in a stable order, or just STANDALONE outside a cluster
+     */
+    private static List<String> masters(RedisConnection connection) {
+        if (!(connection instanceof RedisClusterConnection cluster)) {
+            return List.of(STANDALONE);
+        }
+        List<String> masters = new ArrayList<>();
+        for (RedisClusterNode node : cluster.clusterGetNodes()) {
+            if (node.isMaster()) {
+                masters.add(node.getId());
+            }
+        }
+        Collections.sort(masters);
+        return masters;
+    }
+
+    /**
+     * flash:user:eventId:{skuId} or, segmented, flash:user:eventId:{skuId:bucket},
+     * either one followed by :bm:chunk for bitmap registries
+     * Segmented SKUs are handled once, through their bucket 0 key
+     */
+    private SkuKey parse(String key) {
+        try {
+            String rest = BuyerRegistry.baseKey(key).substring(USER_PREFIX.length());
+            int separator = rest.indexOf(':');
+            Long eventId = Long.parseLong(rest.substring(0, separator));
+            String sku = rest.substring(separator + 1);
+            if (!sku.startsWith("{")) {
+                return null;
+            }
+            String[] parts = sku.substring(1, sku.length() - 1).split(":");
+            if (parts.length > 1 && !"0".equals(parts[1])) {
+                return null;
+            }
+            return new SkuKey(eventId, Long.parseLong(parts[0]));
+        } catch (RuntimeException e) {
+            log.debug("Skipping unrecognized buyer key: {}", key);
+            return null;
+        }
+    }
+
+    private void reconcile(Set<SkuKey> skus, boolean repairAllowed) {
+        Set<Long> eventIds = new HashSet<>();
+        Set<Long> skuIds = new HashSet<>();
+        for (SkuKey sku : skus) {
+            eventIds.add(sku.eventId());
+            skuIds.add(sku.skuId());
+        }
+
+        // Allocated stock
+        Map<SkuKey, Integer> flashStocks = new HashMap<>();
+        for (FlashItem flashItem : flashItemMapper.selectListByQuery(
+                QueryWrapper.create()
+                        .where(FlashItem::getEventId).in(eventIds)
+                        .and(FlashItem::getSkuId).in(skuIds))) {
+            flashStocks.put(new SkuKey(flashItem.getEventId(), flashItem.getSkuId()), flashItem.getFlashStock());
+        }
+
+        // Orders that actually landed
+        Map<SkuKey, long[]> ordered = new HashMap<>();
+        for (Map<String, Object> row : tradeOrderMapper.countFlashOrders(eventIds, skuIds)) {
+            SkuKey key = new SkuKey(toLong(row.get("eventId")), toLong(row.get("skuId")));
+            ordered.put(key, new long[]{toLong(row.get("buyers")), toLong(row.get("units"))});
+        }
+
+        List<String> drifted = new ArrayList<>();
+        for (SkuKey sku : skus) {
+            Integer flashStock = flashStocks.get(sku);
+            Long redisStock = redisStock(sku.skuId());
+            if (flashStock == null || redisStock == null) {
+                continue;
+            }
+            long[] counts = ordered.getOrDefault(sku, new long[]{0, 0});
+            long redisBuyers = redisBuyers(sku);
+
+            // Positive: inventory missing from Redis (leak / in flight); negative: oversold
+            long stockDrift = (flashStock - counts[1]) - redisStock;
+            long buyerDrift = redisBuyers - counts[0];
+
+            if (stockDrift == 0 && buyerDrift == 0) {
+                stringRedisTemplate.opsForHash().delete(DRIFT_KEY, field(sku));
+                continue;
+            }
+            drifted.add(field(sku));
+            log.warn("Stock drift: eventId={}, skuId={}, flashStock={}, orderedUnits={}, redisStock={}, stockDrift={}, redisBuyers={}, orderedBuyers={}",
+                    sku.eventId(), sku.skuId(), flashStock, counts[1], redisStock, stockDrift, redisBuyers, counts[0]);
+
+            maybeRepair(sku, stockDrift, repairAllowed);
+        }
+
+        if (!drifted.isEmpty()) {
+            log.info("Reconciled {} SKUs, {} with drift", skus.size(), drifted.size());
+        }
+    }
+
+    /**
+     * Give leaked units back once the same drift has been seen for min-drift-age-ms
+     * Any change in the drift (an order landed, more stock sold) restarts the clock
+     * Node-local leases legitimately hold stock outside Redis, so lease mode only reports
+     */
+    private void maybeRepair(SkuKey sku, long stockDrift, boolean repairAllowed) {
+        String field = field(sku);
+        long now = System.currentTimeMillis();
+        long firstSeen = firstSeen(stringRedisTemplate.opsForHash().get(DRIFT_KEY, field), stockDrift);
+        if (firstSeen < 0) {
+            firstSeen = now;
+            stringRedisTemplate.opsForHash().put(DRIFT_KEY, field, stockDrift + "|" + now);
+        }
+
+        boolean settled = now - firstSeen >= minDriftAgeMillis;
+        if (!repairAllowed || !settled || stockDrift <= 0 || stockLeaseManager.isEnabled()) {
+            return;
+        }
+
+        if (segmentedStockScript.isEnabled()) {
+            segmentedStockScript.recoverStock(sku.skuId(), 0, (int) stockDrift);
+        } else {
+            stockLuaScript.recoverStock(StockLuaScript.stockKey(sku.skuId()), (int) stockDrift);
+        }
+        stringRedisTemplate.opsForHash().delete(DRIFT_KEY, field);
+        log.warn("Stock repaired: eventId={}, skuId={}, returned={}", sku.eventId(), sku.skuId(), stockDrift);
+    }
+
+    /**
+     * @return When this exact drift was first seen, or -1 if the recorded drift differs
+     */
+    private static long firstSeen(Object recorded, long stockDrift) {
+        if (recorded == null) {
+            return -1;
+        }
+        String[] parts = recorded.toString().split("\\|");
+        if (parts.length != 2 || Long.parseLong(parts[0]) != stockDrift) {
+            return -1;
+        }
+        return Long.parseLong(parts[1]);
+    }
+
+    private Long redisStock(Long skuId) {
+        if (segmentedStockScript.isEnabled()) {
+            return segmentedStockScript.getTotalStock(skuId);
+        }
+        String value = stringRedisTemplate.opsForValue().get(StockLuaScript.stockKey(skuId));
+        return value == null ? null : Long.parseLong(value);
+    }
+
+    private long redisBuyers(SkuKey sku) {
+        if (segmentedStockScript.isEnabled()) {
+            return segmentedStockScript.countBuyers(sku.eventId(), sku.skuId());
+        }
+        return buyerRegistry.countBuyers(sku.eventId(), BuyerRegistry.userKey(sku.eventId(), sku.skuId()));
+    }
+
+    private static String field(SkuKey sku) {
+        return sku.eventId() + ":" + sku.skuId();
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
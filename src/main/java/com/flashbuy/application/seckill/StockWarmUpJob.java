@@ -0,0 +1,209 @@
+package com.flashbuy.application.seckill;
+
+import com.flashbuy.application.product.ProductDetailCache;
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.marketing.entity.FlashEvent;
+import com.flashbuy.domain.marketing.mapper.FlashEventMapper;
+import com.flashbuy.infrastructure.cache.StockStatusBroadcaster;
+import com.mybatisflex.core.query.QueryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduled Job to Pre-warm Flash Sale Stock
+ * Loads every flash_item of an upcoming event into Redis a lead time before
+ * start_time, so the first seconds of the sale never hit cold keys
+ *
+ * Cluster safety:
+ * 1. Only the node holding flash:warmup:lock runs a pass (Redis lock with owner token)
+ * 2. Each event is warmed once (flash:warmup:done:{eventId}), so a running sale
+ *    is never reset by a later pass
+ *
+ * Node-local caches (FlashItem lookups of order creation, product details) are preloaded
+ * on every node, driven by the replenish broadcast of each warmed-up SKU
+ */
+@Component
+public class StockWarmUpJob {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWarmUpJob.class);
+
+    private static final String LOCK_KEY = "flash:warmup:lock";
+    private static final String DONE_PREFIX = "flash:warmup:done:";
+
+    private static final int STATUS_NOT_STARTED = 0;
+
+    // Lets the replenish broadcasts of one warm-up pass arrive before preloading
+    private static final long PRELOAD_DELAY_MILLIS = 200;
+
+    // Release the lock only if we still own it
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0",
+            Long.class);
+
+    private final FlashEventMapper flashEventMapper;
+    private final FlashItemMapper flashItemMapper;
+    private final SeckillService seckillService;
+    private final SeckillOrderCreator seckillOrderCreator;
+    private final ProductDetailCache productDetailCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration leadTime;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // SKUs replenished anywhere in the cluster, waiting for this node's caches to be preloaded
+    private final Set<Long> replenished = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean preloading = new AtomicBoolean();
+
+    public StockWarmUpJob(
+            FlashEventMapper flashEventMapper,
+            FlashItemMapper flashItemMapper,
+            SeckillService seckillService,
+            SeckillOrderCreator seckillOrderCreator,
+            ProductDetailCache productDetailCache,
+            StockStatusBroadcaster stockStatusBroadcaster,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${pinshop.seckill.warmup.lead-seconds:300}") long leadSeconds) {
+        this.flashEventMapper = flashEventMapper;
+        this.flashItemMapper = flashItemMapper;
+        this.seckillService = seckillService;
+        this.seckillOrderCreator = seckillOrderCreator;
+        this.productDetailCache = productDetailCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.leadTime = Duration.ofSeconds(leadSeconds);
+        stockStatusBroadcaster.addReplenishListener((skuId, generation) -> schedulePreload(skuId));
+    }
+
+    /**
+     * Check for events entering the warm-up window
+     */
+    @Scheduled(fixedDelayString = "${pinshop.seckill.warmup.check-ms:10000}")
+    public void warmUpUpcomingEvents() {
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, nodeId, Duration.ofMinutes(1));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Warm-up lock unavailable, skipping pass", e);
+            return;
+        }
+
+        try {
+            for (FlashEvent event : findUpcomingEvents()) {
+                warmUp(event);
+            }
+        } catch (Exception e) {
+            log.error("Error warming up flash events", e);
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), nodeId);
+            } catch (Exception e) {
+                // Lock expires on its own
+                log.warn("Failed to release warm-up lock", e);
+            }
+        }
+    }
+
+    /**
+     * Events starting within the lead time (idx_time)
+     */
+    private List<FlashEvent> findUpcomingEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        return flashEventMapper.selectListByQuery(
+                QueryWrapper.create()
+                        .where(FlashEvent::getStartTime).gt(now)
+                        .and(FlashEvent::getStartTime).le(now.plus(leadTime))
+                        .and(FlashEvent::getStatus).eq(STATUS_NOT_STARTED)
+                        .orderBy(FlashEvent::getStartTime, true)
+                        .limit(100)
+        );
+    }
+
+    private void warmUp(FlashEvent event) {
+        String doneKey = DONE_PREFIX + event.getId();
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(doneKey))) {
+            return;
+        }
+
+        List<FlashItem> flashItems = flashItemMapper.selectListByQuery(
+                QueryWrapper.create().where(FlashItem::getEventId).eq(event.getId())
+        );
+
+        Map<Long, Integer> stocks = new HashMap<>(flashItems.size() * 2);
+        Map<Long, Integer> limits = new HashMap<>(flashItems.size() * 2);
+        for (FlashItem flashItem : flashItems) {
+            int lockStock = flashItem.getLockStock() == null ? 0 : flashItem.getLockStock();
+            stocks.put(flashItem.getSkuId(), Math.max(0, flashItem.getFlashStock() - lockStock));
+            // Cached in Redis next to the stock, the deduction scripts never ask the DB
+            int limit = flashItem.getLimitPerUser() == null ? 1 : flashItem.getLimitPerUser();
+            limits.put(flashItem.getSkuId(), Math.max(1, limit));
+        }
+
+        // Replenish broadcasts make every node, this one included, preload its local caches
+        seckillService.warmUpStocks(stocks, limits);
+
+        // Remember until the event is over
+        Duration untilEnd = Duration.between(LocalDateTime.now(), event.getEndTime()).plusHours(1);
+        stringRedisTemplate.opsForValue().set(doneKey, nodeId, untilEnd.isNegative() ? Duration.ofHours(1) : untilEnd);
+
+        log.info("Flash event warmed up: eventId={}, title={}, items={}, startTime={}",
+                event.getId(), event.getTitle(), flashItems.size(), event.getStartTime());
+    }
+
+    private void schedulePreload(long skuId) {
+        replenished.add(skuId);
+        if (preloading.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("flash-cache-preload").start(this::preloadReplenished);
+        }
+    }
+
+    /**
+     * Fill this node's FlashItem cache (one query per burst) and product detail cache
+     * for the replenished SKUs, off the broadcast thread
+     */
+    private void preloadReplenished() {
+        try {
+            while (true) {
+                Thread.sleep(PRELOAD_DELAY_MILLIS);
+                List<Long> skuIds = new ArrayList<>(replenished);
+                if (skuIds.isEmpty()) {
+                    return;
+                }
+                replenished.removeAll(skuIds);
+                try {
+                    seckillOrderCreator.preloadFlashItems(flashItemMapper.selectListByQuery(
+                            QueryWrapper.create().where(FlashItem::getSkuId).in(skuIds)));
+                    skuIds.forEach(productDetailCache::get);
+                    log.debug("Local caches preloaded: skus={}", skuIds.size());
+                } catch (Exception e) {
+                    log.warn("Failed to preload local caches: skus={}", skuIds.size(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            preloading.set(false);
+            // A replenish that arrived after the last drain
+            if (!replenished.isEmpty() && preloading.compareAndSet(false, true)) {
+                Thread.ofVirtual().name("flash-cache-preload").start(this::preloadReplenished);
+            }
+        }
+    }
+}
@@ -3,17 +3,24 @@ package com.flashbuy.application.seckill;
 /**
  * Trade Order Message for MQ
  * Record type for Native Image optimization
+ *
+ * @param queueId Queue ticket returned to the client, used to publish the order result
  */
 public record TradeOrderMessage(
         Long userId,
         Long eventId,
         Long skuId,
         Integer count,
-        Long timestamp
+        Long timestamp,
+        String queueId
 ) {
     public TradeOrderMessage {
         if (timestamp == null) {
             timestamp = System.currentTimeMillis();
         }
     }
+
+    public TradeOrderMessage(Long userId, Long eventId, Long skuId, Integer count, Long timestamp) {
+        this(userId, eventId, skuId, count, timestamp, null);
+    }
 }
@@ -0,0 +1,12 @@
+package com.flashbuy.common;
+
+/**
+ * Business rejection that is an expected outcome on a hot path (sold out, already bought)
+ * The caller counts it in its metrics, so the exception handler does not log it
+ */
+public class ExpectedRejectionException extends BusinessException {
+
+    public ExpectedRejectionException(String message) {
+        super(message);
+    }
+}
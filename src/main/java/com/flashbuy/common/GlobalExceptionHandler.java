@@ -20,6 +20,13 @@ public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @ExceptionHandler(ExpectedRejectionException.class)
+    @ResponseStatus(HttpStatus.OK)
+    public Result<?> handleExpectedRejection(ExpectedRejectionException e) {
+        // Sold out / already bought on the seckill path: counted in SeckillMetrics, not logged
+        return Result.error(e.getCode(), e.getMessage());
+    }
+
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.OK)
     public Result<?> handleBusinessException(BusinessException e) {
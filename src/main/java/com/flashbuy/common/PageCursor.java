@@ -0,0 +1,72 @@
+package com.flashbuy.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination cursor
+ * Carries the sort key of the last row of a page; the next page seeks strictly past it
+ * instead of skipping OFFSET rows, so a deep page costs the same as the first
+ *
+ * Encoded as URL-safe Base64 of "v1:k1,k2,..." so clients pass it back untouched
+ */
+public final class PageCursor {
+
+    private static final String VERSION = "v1:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(long... keys) {
+        StringBuilder text = new StringBuilder(VERSION);
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param arity Number of keys the caller expects
+     * @return Keys of the cursor, or null when no cursor was given
+     * @throws BusinessException If the token is not a cursor of this arity
+     */
+    public static long[] decode(String token, int arity) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            if (!text.startsWith(VERSION)) {
+                throw new BusinessException("Invalid page cursor");
+            }
+            String[] parts = text.substring(VERSION.length()).split(",");
+            if (parts.length != arity) {
+                throw new BusinessException("Invalid page cursor");
+            }
+            long[] keys = new long[arity];
+            for (int i = 0; i < arity; i++) {
+                keys[i] = Long.parseLong(parts[i]);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            // Bad Base64 or a non-numeric key
+            throw new BusinessException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Timestamp as a cursor key (millisecond precision, like the datetime(3) columns)
+     */
+    public static long toKey(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toTime(long key) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1000), (int) Math.floorMod(key, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
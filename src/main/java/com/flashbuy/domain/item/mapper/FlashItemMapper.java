@@ -2,9 +2,31 @@ package com.flashbuy.domain.item.mapper;
 
 import com.flashbuy.domain.item.entity.FlashItem;
 import com.mybatisflex.core.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * Flash Item Mapper
+ *
+ * The lock_stock updates keep update_time as it is: they run for every selling item every
+ * flush interval, and LockStockAggregator already evicts the affected product details, so
+ * bumping update_time would only make ProductChangeWatcher re-read the same rows
  */
 public interface FlashItemMapper extends BaseMapper<FlashItem> {
+
+    /**
+     * Add to locked stock without ever exceeding the allocated flash stock
+     *
+     * @return 1 if applied, 0 if it would exceed flash_stock
+     */
+    @Update("UPDATE flash_item SET lock_stock = lock_stock + #{delta}, update_time = update_time "
+            + "WHERE id = #{id} AND lock_stock + #{delta} <= flash_stock")
+    int addLockStock(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Saturate locked stock at flash_stock (used when a delta no longer fits)
+     */
+    @Update("UPDATE flash_item SET lock_stock = flash_stock, update_time = update_time "
+            + "WHERE id = #{id} AND lock_stock < flash_stock")
+    int fillLockStock(@Param("id") Long id);
 }
@@ -0,0 +1,10 @@
+package com.flashbuy.domain.marketing.mapper;
+
+import com.flashbuy.domain.marketing.entity.FlashEvent;
+import com.mybatisflex.core.BaseMapper;
+
+/**
+ * Flash Event Mapper
+ */
+public interface FlashEventMapper extends BaseMapper<FlashEvent> {
+}
@@ -36,6 +36,8 @@ public class TradeOrder {
 
     private String extraJson;
 
+    private String queueId;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -124,4 +126,12 @@ public class TradeOrder {
     public void setExtraJson(String extraJson) {
         this.extraJson = extraJson;
     }
+
+    public String getQueueId() {
+        return queueId;
+    }
+
+    public void setQueueId(String queueId) {
+        this.queueId = queueId;
+    }
 }
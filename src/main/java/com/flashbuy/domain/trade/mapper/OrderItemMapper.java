@@ -0,0 +1,10 @@
+package com.flashbuy.domain.trade.mapper;
+
+import com.flashbuy.domain.trade.entity.OrderItem;
+import com.mybatisflex.core.BaseMapper;
+
+/**
+ * Order Item Mapper
+ */
+public interface OrderItemMapper extends BaseMapper<OrderItem> {
+}
@@ -2,9 +2,50 @@ package com.flashbuy.domain.trade.mapper;
 
 import com.flashbuy.domain.trade.entity.TradeOrder;
 import com.mybatisflex.core.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Trade Order Mapper
  */
 public interface TradeOrderMapper extends BaseMapper<TradeOrder> {
+
+    /**
+     * Flash orders aggregated per event / SKU (stock reconciliation)
+     *
+     * @return Rows of {eventId, skuId, buyers, units}
+     */
+    @Select("<script>"
+            + "SELECT o.marketing_id AS eventId, i.sku_id AS skuId, "
+            + "COUNT(DISTINCT o.user_id) AS buyers, COALESCE(SUM(i.quantity), 0) AS units "
+            + "FROM trade_order o JOIN order_item i ON i.order_id = o.id "
+            + "WHERE o.order_type = 'FLASH' "
+            + "AND o.marketing_id IN <foreach collection='eventIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> "
+            + "AND i.sku_id IN <foreach collection='skuIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> "
+            + "GROUP BY o.marketing_id, i.sku_id"
+            + "</script>")
+    List<Map<String, Object>> countFlashOrders(@Param("eventIds") Collection<Long> eventIds,
+                                               @Param("skuIds") Collection<Long> skuIds);
+
+    /**
+     * Multi-row insert that skips an order whose queue_id already exists (redelivered seckill message)
+     * The no-op ON DUPLICATE KEY UPDATE swallows only duplicate keys, unlike INSERT IGNORE, but any
+     * of them: a row whose id collides with another order is skipped too. Read the rows back by
+     * queue_id to tell inserted orders from skipped ones; a queue_id with no row hit the primary key
+     */
+    @Insert("<script>"
+            + "INSERT INTO trade_order (id, user_id, total_amount, pay_amount, status, order_type, marketing_id, "
+            + "receiver_info, create_time, extra_json, queue_id) VALUES "
+            + "<foreach collection='orders' item='o' separator=','>"
+            + "(#{o.id}, #{o.userId}, #{o.totalAmount}, #{o.payAmount}, #{o.status}, #{o.orderType}, #{o.marketingId}, "
+            + "#{o.receiverInfo}, #{o.createTime}, #{o.extraJson}, #{o.queueId})"
+            + "</foreach> "
+            + "ON DUPLICATE KEY UPDATE queue_id = queue_id"
+            + "</script>")
+    int insertBatchSkipDuplicates(@Param("orders") List<TradeOrder> orders);
 }
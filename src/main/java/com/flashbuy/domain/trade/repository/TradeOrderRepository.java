@@ -1,5 +1,6 @@
 package com.flashbuy.domain.trade.repository;
 
+import com.flashbuy.common.PageCursor;
 import com.flashbuy.domain.trade.entity.TradeOrder;
 import com.flashbuy.domain.trade.mapper.TradeOrderMapper;
 import com.mybatisflex.core.query.QueryWrapper;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Trade Order Repository
@@ -54,29 +56,122 @@ public class TradeOrderRepository {
         return tradeOrderMapper.selectOneById(id);
     }
 
-    public java.util.List<TradeOrder> findByUserId(Long userId, Integer pageNum, Integer pageSize) {
+    public List<TradeOrder> findByUserId(Long userId, Integer pageNum, Integer pageSize) {
         int offset = (pageNum - 1) * pageSize;
         return tradeOrderMapper.selectListByQuery(
             QueryWrapper.create()
                 .where(TradeOrder::getUserId).eq(userId)
                 .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
                 .limit(pageSize)
                 .offset(offset)
         );
     }
 
-    public java.util.List<TradeOrder> findByUserIdAndStatus(Long userId, Integer status, Integer pageNum, Integer pageSize) {
+    public List<TradeOrder> findByUserIdAndStatus(Long userId, Integer status, Integer pageNum, Integer pageSize) {
         int offset = (pageNum - 1) * pageSize;
         return tradeOrderMapper.selectListByQuery(
             QueryWrapper.create()
                 .where(TradeOrder::getUserId).eq(userId)
                 .and(TradeOrder::getStatus).eq(status)
                 .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
                 .limit(pageSize)
                 .offset(offset)
         );
     }
 
+    /**
+     * Keyset page: the user's orders placed before (createTime, id), newest first
+     * Seeks on idx_user_create_time, so any page costs the same as the first
+     */
+    public List<TradeOrder> findByUserIdBefore(Long userId, LocalDateTime createTime, Long id, Integer pageSize) {
+        return tradeOrderMapper.selectListByQuery(
+            before(QueryWrapper.create().where(TradeOrder::getUserId).eq(userId), createTime, id)
+                .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
+                .limit(pageSize)
+        );
+    }
+
+    public List<TradeOrder> findByUserIdAndStatusBefore(
+            Long userId, Integer status, LocalDateTime createTime, Long id, Integer pageSize) {
+        return tradeOrderMapper.selectListByQuery(
+            before(QueryWrapper.create()
+                    .where(TradeOrder::getUserId).eq(userId)
+                    .and(TradeOrder::getStatus).eq(status), createTime, id)
+                .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
+                .limit(pageSize)
+        );
+    }
+
+    /**
+     * The user's group-buy orders, newest first
+     */
+    public List<TradeOrder> findGroupOrdersByUserId(Long userId, Integer pageNum, Integer pageSize) {
+        int offset = (pageNum - 1) * pageSize;
+        return tradeOrderMapper.selectListByQuery(
+            QueryWrapper.create()
+                .where(TradeOrder::getUserId).eq(userId)
+                .and(TradeOrder::getOrderType).eq("GROUP")
+                .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
+                .limit(pageSize)
+                .offset(offset)
+        );
+    }
+
+    /**
+     * Keyset page of the user's group-buy orders placed before (createTime, id), newest first
+     */
+    public List<TradeOrder> findGroupOrdersByUserIdBefore(
+            Long userId, LocalDateTime createTime, Long id, Integer pageSize) {
+        return tradeOrderMapper.selectListByQuery(
+            before(QueryWrapper.create()
+                    .where(TradeOrder::getUserId).eq(userId)
+                    .and(TradeOrder::getOrderType).eq("GROUP"), createTime, id)
+                .orderBy(TradeOrder::getCreateTime, false)
+                .orderBy(TradeOrder::getId, false)
+                .limit(pageSize)
+        );
+    }
+
+    public int countGroupOrdersByUserId(Long userId) {
+        return Math.toIntExact(tradeOrderMapper.selectCountByQuery(
+            QueryWrapper.create()
+                .where(TradeOrder::getUserId).eq(userId)
+                .and(TradeOrder::getOrderType).eq("GROUP")
+        ));
+    }
+
+    /**
+     * Restrict to rows ordered after (createTime, id) in (create_time DESC, id DESC) order
+     */
+    private static QueryWrapper before(QueryWrapper query, LocalDateTime createTime, Long id) {
+        // create_time < ? OR (create_time = ? AND id < ?)
+        return query.and((QueryWrapper seek) -> {
+            seek.where(TradeOrder::getCreateTime).lt(createTime)
+                .or((QueryWrapper tie) -> {
+                    tie.where(TradeOrder::getCreateTime).eq(createTime).and(TradeOrder::getId).lt(id);
+                });
+        });
+    }
+
+    /**
+     * Cursor after the last order of a full page (create_time DESC, id DESC), null when there is no next page
+     */
+    public static String nextCursor(List<TradeOrder> orders, int pageSize) {
+        if (orders.isEmpty() || orders.size() < pageSize) {
+            return null;
+        }
+        TradeOrder last = orders.get(orders.size() - 1);
+        if (last.getCreateTime() == null) {
+            return null;
+        }
+        return PageCursor.encode(PageCursor.toKey(last.getCreateTime()), last.getId());
+    }
+
     public int countByUserId(Long userId) {
         return Math.toIntExact(tradeOrderMapper.selectCountByQuery(
             QueryWrapper.create()
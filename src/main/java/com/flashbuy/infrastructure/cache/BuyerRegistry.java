@@ -0,0 +1,185 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Encoding of the per-event / per-SKU buyer registry ("already bought" check)
+ *
+ * SET:    SADD flash:user:eventId:{skuId} userId - tens of bytes per buyer
+ * BITMAP: SETBIT on chunked bitmaps, one bit per user ID:
+ *         flash:user:eventId:{skuId}:bm:(userId >> chunk-bits), offset userId & (2^chunk-bits - 1)
+ *
+ * Chunking keeps each key at most 2^chunk-bits / 8 bytes (8KB by default) and only
+ * allocates chunks that have buyers, so sparse ID ranges do not cost a full bitmap.
+ * A chunk pays off once it holds more than ~150 buyers (vs. a SET); dense numeric user
+ * IDs (auto-increment) cut registry memory by well over 10x
+ *
+ * The scripts keep a buyer count next to a bitmap registry (flash:buyers:eventId:{skuId}),
+ * incremented when a bit is set and decremented when one is cleared
+ *
+ * The encoding is chosen per event (pinshop.seckill.buyer-registry.*) and passed to
+ * the deduction scripts, which keep the check-then-register step atomic either way
+ *
+ * Per-user quantity limits (flash_item.limit_per_user) above 1 are counted next to the
+ * registry in a hash, flash:quota:eventId:{skuId} userId -> units bought. The limit
+ * itself is read by the scripts from flash:limit:{skuId}, written at warm-up with the stock
+ */
+@Component
+public class BuyerRegistry {
+
+    private static final String BITMAP_MARK = ":bm:";
+    private static final String USER_PREFIX = "flash:user:";
+    private static final String QUOTA_PREFIX = "flash:quota:";
+    private static final String COUNT_PREFIX = "flash:buyers:";
+
+    public enum Encoding {
+        SET,
+        BITMAP;
+
+        /**
+         * Name passed to the Lua scripts
+         */
+        public String arg() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Where one buyer is recorded: the Redis key and the member (user ID, or bit offset),
+     * plus the quota hash and field counting the units they bought, and the buyer count key
+     */
+    public record Slot(String key, String member, Encoding encoding, String quotaKey, String userId,
+                       String countKey) {
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Encoding defaultEncoding;
+    private final Set<Long> bitmapEvents;
+    private final int chunkBits;
+    private final long chunkMask;
+    private final DefaultRedisScript<Long> claimScript;
+    private final DefaultRedisScript<Long> releaseScript;
+
+    public BuyerRegistry(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${pinshop.seckill.buyer-registry.default:set}") String defaultEncoding,
+            @Value("${pinshop.seckill.buyer-registry.bitmap-events:}") String bitmapEvents,
+            @Value("${pinshop.seckill.buyer-registry.chunk-bits:16}") int chunkBits) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.defaultEncoding = Encoding.valueOf(defaultEncoding.trim().toUpperCase(Locale.ROOT));
+        this.bitmapEvents = Arrays.stream(bitmapEvents.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+        // SETBIT offsets are limited to 2^32
+        this.chunkBits = Math.max(8, Math.min(32, chunkBits));
+        this.chunkMask = (1L << this.chunkBits) - 1;
+
+        this.claimScript = new DefaultRedisScript<>();
+        this.claimScript.setLocation(new ClassPathResource("lua/claim_buyer.lua"));
+        this.claimScript.setResultType(Long.class);
+
+        this.releaseScript = new DefaultRedisScript<>();
+        this.releaseScript.setLocation(new ClassPathResource("lua/release_buyer.lua"));
+        this.releaseScript.setResultType(Long.class);
+    }
+
+    public Encoding encodingFor(Long eventId) {
+        return bitmapEvents.contains(eventId) ? Encoding.BITMAP : defaultEncoding;
+    }
+
+    /**
+     * Registry key of a SKU in an event, e.g. "flash:user:1:{123}", tagged like StockLuaScript.stockKey
+     */
+    public static String userKey(Long eventId, Long skuId) {
+        return USER_PREFIX + eventId + ":{" + skuId + "}";
+    }
+
+    /**
+     * Slot of a user in the registry rooted at baseKey (see userKey, or a bucket key)
+     */
+    public Slot slot(Long eventId, String baseKey, Long userId) {
+        String quotaKey = QUOTA_PREFIX + baseKey.substring(USER_PREFIX.length());
+        String countKey = countKey(baseKey);
+        if (encodingFor(eventId) == Encoding.BITMAP) {
+            return new Slot(baseKey + BITMAP_MARK + (userId >>> chunkBits),
+                    Long.toString(userId & chunkMask), Encoding.BITMAP, quotaKey, userId.toString(), countKey);
+        }
+        return new Slot(baseKey, userId.toString(), Encoding.SET, quotaKey, userId.toString(), countKey);
+    }
+
+    /**
+     * Record a purchase of count units outside the deduction scripts, within the per-user limit
+     *
+     * @param limitKey Per-user limit key of the SKU (see StockLuaScript.limitKey)
+     * @return 1 if recorded, -2 if the user already bought (or reached the limit),
+     *         -4 if count would take them over the limit
+     */
+    public long claim(Slot slot, String limitKey, int count) {
+        Long result = stringRedisTemplate.execute(
+                claimScript,
+                List.of(slot.key(), limitKey, slot.quotaKey(), slot.countKey()),
+                slot.member(),
+                String.valueOf(count),
+                slot.encoding().arg(),
+                slot.userId()
+        );
+        if (result == null) {
+            throw new IllegalStateException("Buyer claim returned no result: " + slot.key());
+        }
+        return result;
+    }
+
+    /**
+     * Give back a claim of count units that did not end in a purchase
+     * The user stays registered while earlier purchases still count against the limit
+     */
+    public void release(Slot slot, String limitKey, int count) {
+        stringRedisTemplate.execute(
+                releaseScript,
+                List.of(slot.key(), limitKey, slot.quotaKey(), slot.countKey()),
+                slot.member(),
+                String.valueOf(count),
+                slot.encoding().arg(),
+                slot.userId()
+        );
+    }
+
+    /**
+     * Buyers recorded under baseKey (SCARD, or the buyer count kept by the scripts)
+     */
+    public long countBuyers(Long eventId, String baseKey) {
+        if (encodingFor(eventId) != Encoding.BITMAP) {
+            Long size = stringRedisTemplate.opsForSet().size(baseKey);
+            return size == null ? 0 : size;
+        }
+        String buyers = stringRedisTemplate.opsForValue().get(countKey(baseKey));
+        return buyers == null ? 0 : Long.parseLong(buyers);
+    }
+
+    /**
+     * Buyer count key of the registry rooted at baseKey, e.g. "flash:buyers:1:{123}", same hash tag
+     */
+    private static String countKey(String baseKey) {
+        return COUNT_PREFIX + baseKey.substring(USER_PREFIX.length());
+    }
+
+    /**
+     * Registry base key of a chunk key (the key itself for SET registries)
+     */
+    public static String baseKey(String key) {
+        int mark = key.lastIndexOf(BITMAP_MARK);
+        return mark < 0 ? key : key.substring(0, mark);
+    }
+}
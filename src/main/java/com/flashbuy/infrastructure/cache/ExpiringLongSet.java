@@ -0,0 +1,182 @@
+package com.flashbuy.infrastructure.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Open-addressing set of primitive long keys with a per-entry TTL
+ * Built for the sold-out check on the seckill hot path:
+ * lookups are lock-free and allocation-free, writes are rare and serialized
+ *
+ * Layout: two parallel arrays indexed by linear probing on a mixed hash.
+ * A key is present while its deadline (System.nanoTime based) lies in the future.
+ * Removing a key only zeroes its deadline, so probe chains never break;
+ * dead slots are dropped when the table is rebuilt on reaching its load limit
+ */
+public class ExpiringLongSet {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final long ABSENT = 0L;
+
+    private final long ttlNanos;
+
+    private volatile Table table;
+
+    /**
+     * @param expectedSize Number of live keys expected before the first rebuild
+     * @param ttl          Time to live of each key after it is added
+     */
+    public ExpiringLongSet(int expectedSize, long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Check whether a key is present and not expired
+     */
+    public boolean contains(long key) {
+        Table t = table;
+        int slot = t.find(key);
+        if (slot < 0) {
+            return false;
+        }
+        long deadline = t.deadlines.get(slot);
+        return deadline != ABSENT && deadline - System.nanoTime() > 0;
+    }
+
+    /**
+     * Add a key (or refresh its TTL if already present)
+     *
+     * @return true if the key was not present (or had expired) before
+     */
+    public synchronized boolean add(long key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Unsupported key: " + key);
+        }
+        long deadline = System.nanoTime() + ttlNanos;
+        if (deadline == ABSENT) {
+            deadline = 1;
+        }
+
+        Table t = table;
+        int slot = t.find(key);
+        if (slot >= 0) {
+            long previous = t.deadlines.get(slot);
+            t.deadlines.set(slot, deadline);
+            return previous == ABSENT || previous - System.nanoTime() <= 0;
+        }
+
+        if (t.used >= t.limit) {
+            t = rebuild(t);
+        }
+        t.insert(key, deadline);
+        return true;
+    }
+
+    /**
+     * Remove a key
+     */
+    public synchronized void remove(long key) {
+        Table t = table;
+        int slot = t.find(key);
+        if (slot >= 0) {
+            t.deadlines.set(slot, ABSENT);
+        }
+    }
+
+    /**
+     * Remove every key
+     */
+    public synchronized void clear() {
+        table = new Table(table.keys.length());
+    }
+
+    /**
+     * Copy live entries into a fresh table, growing it if they alone exceed the load limit
+     */
+    private Table rebuild(Table old) {
+        long now = System.nanoTime();
+        int live = 0;
+        for (int i = 0; i < old.keys.length(); i++) {
+            long deadline = old.deadlines.get(i);
+            if (old.keys.get(i) != FREE && deadline != ABSENT && deadline - now > 0) {
+                live++;
+            }
+        }
+
+        int capacity = old.keys.length();
+        while (live + 1 > capacity / 2) {
+            capacity <<= 1;
+        }
+
+        Table fresh = new Table(capacity);
+        for (int i = 0; i < old.keys.length(); i++) {
+            long key = old.keys.get(i);
+            long deadline = old.deadlines.get(i);
+            if (key != FREE && deadline != ABSENT && deadline - now > 0) {
+                fresh.insert(key, deadline);
+            }
+        }
+        table = fresh;
+        return fresh;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Fixed-capacity probe table; only ever mutated under the set's monitor
+     */
+    private static final class Table {
+        private final AtomicLongArray keys;
+        private final AtomicLongArray deadlines;
+        private final int mask;
+        private final int limit;
+        private int used;
+
+        private Table(int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.deadlines = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            this.limit = capacity / 2;
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, FREE);
+            }
+        }
+
+        private int find(long key) {
+            int slot = mix(key) & mask;
+            while (true) {
+                long k = keys.get(slot);
+                if (k == key) {
+                    return slot;
+                }
+                if (k == FREE) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void insert(long key, long deadline) {
+            int slot = mix(key) & mask;
+            while (keys.get(slot) != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            // Publish the deadline before the key so readers never see a key without it
+            deadlines.set(slot, deadline);
+            keys.set(slot, key);
+            used++;
+        }
+    }
+}
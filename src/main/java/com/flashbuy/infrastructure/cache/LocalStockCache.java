@@ -1,49 +1,86 @@
 package com.flashbuy.infrastructure.cache;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Local stock status cache using Caffeine
+ * Local stock status cache keyed by primitive SKU ID
  * First level defense: block 90% of requests when stock is empty
  * Avoids Redis network overhead
+ *
+ * Backed by an open-addressing long set so the hot-path check
+ * allocates nothing (no key strings, no boxed values)
+ *
+ * Each SKU carries a stock generation, bumped on every replenish.
+ * Sold-out marks from an older generation are ignored, so a late
+ * sold-out event can never undo a newer replenish
  */
 @Component
 public class LocalStockCache {
 
-    private final Cache<String, Boolean> cache;
+    private final ExpiringLongSet emptySkus;
 
-    public LocalStockCache() {
-        this.cache = Caffeine.newBuilder()
-                .maximumSize(10000)
-                .expireAfterWrite(1, TimeUnit.MINUTES)
-                .build();
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+
+    public LocalStockCache(@Value("${pinshop.seckill.sold-out-ttl-seconds:60}") long ttlSeconds) {
+        this.emptySkus = new ExpiringLongSet(10000, ttlSeconds, TimeUnit.SECONDS);
     }
 
     /**
      * Mark stock as empty (no need to check Redis)
      */
-    public void markEmpty(String skuId) {
-        String key = "stock_empty_" + skuId;
-        cache.put(key, true);
+    public void markEmpty(long skuId) {
+        markEmpty(skuId, generation(skuId));
+    }
+
+    /**
+     * Mark stock as empty for a given stock generation
+     *
+     * @return true if the mark was applied and is new
+     */
+    public synchronized boolean markEmpty(long skuId, long generation) {
+        if (generation < generation(skuId)) {
+            return false;
+        }
+        return emptySkus.add(skuId);
     }
 
     /**
      * Check if stock is marked as empty
      */
-    public boolean isEmpty(String skuId) {
-        String key = "stock_empty_" + skuId;
-        return cache.getIfPresent(key) != null;
+    public boolean isEmpty(long skuId) {
+        return emptySkus.contains(skuId);
     }
 
     /**
      * Clear empty mark (when stock is replenished)
      */
-    public void clearEmpty(String skuId) {
-        String key = "stock_empty_" + skuId;
-        cache.invalidate(key);
+    public void clearEmpty(long skuId) {
+        emptySkus.remove(skuId);
+    }
+
+    /**
+     * Clear empty mark for a newer stock generation
+     *
+     * @return true if the generation was newer and the mark was cleared
+     */
+    public synchronized boolean clearEmpty(long skuId, long generation) {
+        if (generation <= generation(skuId)) {
+            return false;
+        }
+        generations.put(skuId, generation);
+        emptySkus.remove(skuId);
+        return true;
+    }
+
+    /**
+     * Latest stock generation seen for a SKU (0 if never replenished)
+     */
+    public long generation(long skuId) {
+        return generations.getOrDefault(skuId, 0L);
     }
 }
@@ -0,0 +1,171 @@
+package com.flashbuy.infrastructure.cache;
+
+import com.flashbuy.application.seckill.SeckillResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Per-request seckill result store
+ * queueId -> QUEUING / SUCCESS / FAIL (+ orderId), one Redis string per request with a TTL
+ *
+ * Value encoding (kept tiny, one GET per poll):
+ * "0"               queuing
+ * "1|{orderId}"     order created
+ * "-1|{message}"    rejected / failed
+ *
+ * Finished results are also kept in a local Caffeine front,
+ * so repeat polls for them never reach Redis
+ *
+ * Every finished result is also published on flash:result:events
+ * ({queueId}|{value}) so the node holding a client's push connection
+ * learns about it, wherever the order was created
+ */
+@Component
+public class SeckillResultStore implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SeckillResultStore.class);
+
+    private static final String RESULT_PREFIX = "flash:result:";
+    private static final String CHANNEL = "flash:result:events";
+
+    private static final String QUEUING = "0";
+    private static final String SUCCESS = "1";
+    private static final String FAILED = "-1";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration ttl;
+    private final Cache<String, SeckillResponse> finished;
+    private final List<BiConsumer<String, SeckillResponse>> listeners = new CopyOnWriteArrayList<>();
+
+    public SeckillResultStore(
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${pinshop.seckill.result-ttl-seconds:1800}") long ttlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.finished = Caffeine.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Register a callback for finished results (queueId, response), fired on every node
+     */
+    public void addListener(BiConsumer<String, SeckillResponse> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Record a request as queued (written before the order message is sent,
+     * so it can never overwrite the final result)
+     */
+    public void markQueuing(String queueId) {
+        stringRedisTemplate.opsForValue().set(RESULT_PREFIX + queueId, QUEUING, ttl);
+    }
+
+    /**
+     * Record the created order for a request
+     */
+    public void markSuccess(String queueId, Long orderId) {
+        if (queueId == null) {
+            return;
+        }
+        finish(queueId, SUCCESS + "|" + orderId);
+    }
+
+    /**
+     * Record a request as failed
+     */
+    public void markFailed(String queueId, String message) {
+        if (queueId == null) {
+            return;
+        }
+        finish(queueId, FAILED + "|" + message);
+    }
+
+    private void finish(String queueId, String value) {
+        stringRedisTemplate.opsForValue().set(RESULT_PREFIX + queueId, value, ttl);
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, queueId + "|" + value);
+        } catch (Exception e) {
+            // Pushed clients fall back to polling the stored result
+            log.warn("Failed to publish seckill result: queueId={}", queueId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0) {
+            return;
+        }
+        String queueId = body.substring(0, separator);
+        SeckillResponse response = decode(queueId, body.substring(separator + 1));
+        if (response == null) {
+            return;
+        }
+        finished.put(queueId, response);
+        for (BiConsumer<String, SeckillResponse> listener : listeners) {
+            listener.accept(queueId, response);
+        }
+    }
+
+    /**
+     * Look up the result for a queue ticket
+     *
+     * @return Queuing / success / failed response, or null if unknown or expired
+     */
+    public SeckillResponse find(String queueId) {
+        SeckillResponse cached = finished.getIfPresent(queueId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String value = stringRedisTemplate.opsForValue().get(RESULT_PREFIX + queueId);
+        if (value == null) {
+            return null;
+        }
+
+        SeckillResponse response = decode(queueId, value);
+        if (response != null && response.status() != 0) {
+            finished.put(queueId, response);
+        }
+        return response;
+    }
+
+    private SeckillResponse decode(String queueId, String value) {
+        if (QUEUING.equals(value)) {
+            return SeckillResponse.queuing(queueId);
+        }
+        int separator = value.indexOf('|');
+        if (separator < 0) {
+            log.warn("Malformed seckill result: queueId={}, value={}", queueId, value);
+            return null;
+        }
+        String status = value.substring(0, separator);
+        String payload = value.substring(separator + 1);
+        if (SUCCESS.equals(status)) {
+            return SeckillResponse.success(Long.parseLong(payload));
+        }
+        return SeckillResponse.failed(payload);
+    }
+}
@@ -0,0 +1,400 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Segmented Stock Service for hot flash-sale SKUs
+ * Splits one SKU's stock across N bucket keys so a single Redis key (and shard)
+ * no longer serializes the whole sale
+ *
+ * Routing:
+ * 1. Each user has a home bucket (by user hash); the buyer registry lives next to it
+ * 2. Home bucket drained - user is claimed there, request falls over to siblings
+ *    (per-user limits are counted at the home bucket too)
+ * 3. Bucket 0 is always walked last and receives leftovers near sell-out
+ *
+ * Leftovers move in two steps because buckets sit in different slots: a bucket is drained
+ * into a pending transfer in its own slot, the transfer is credited to bucket 0 once
+ * (idempotent by transfer id), then deleted. Transfers left by a crash are finished by the
+ * next rebalance or by a buyer who finds every bucket empty, and count towards getTotalStock
+ *
+ * Disabled when pinshop.seckill.stock-segments is 1 (the default)
+ */
+@Service
+public class SegmentedStockScript {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedStockScript.class);
+
+    private static final String STOCK_PREFIX = "flash:stock:seg:";
+    private static final String TRANSIT_PREFIX = "flash:stock:seg:transit:";
+    private static final String APPLIED_PREFIX = "flash:stock:seg:applied:";
+    private static final String USER_PREFIX = "flash:user:";
+
+    // Applied transfer ids only need to outlive a retry
+    private static final long APPLIED_TTL_SECONDS = 86400;
+
+    private static final long HOME_DRAINED = -3;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final BuyerRegistry buyerRegistry;
+    private final DefaultRedisScript<Long> deductScript;
+    private final DefaultRedisScript<Long> takeScript;
+    private final DefaultRedisScript<Long> drainScript;
+    private final DefaultRedisScript<Long> applyTransferScript;
+
+    private final RedisSerializer<String> argsSerializer = new StringRedisSerializer();
+    private final RedisSerializer<Long> resultSerializer = new GenericToStringSerializer<>(Long.class);
+
+    private final int segments;
+    private final int rebalanceThreshold;
+
+    // SKUs with a rebalance in flight (at most one per SKU per node)
+    private final Set<Long> rebalancing = ConcurrentHashMap.newKeySet();
+
+    public SegmentedStockScript(
+            RedisTemplate<String, Object> redisTemplate,
+            BuyerRegistry buyerRegistry,
+            @Value("${pinshop.seckill.stock-segments:1}") int segments,
+            @Value("${pinshop.seckill.rebalance-threshold:10}") int rebalanceThreshold) {
+        this.redisTemplate = redisTemplate;
+        this.buyerRegistry = buyerRegistry;
+        this.segments = Math.max(1, segments);
+        this.rebalanceThreshold = rebalanceThreshold;
+
+        this.deductScript = loadScript("lua/deduct_stock_segment.lua");
+        this.takeScript = loadScript("lua/take_stock_segment.lua");
+        this.drainScript = loadScript("lua/drain_stock_segment.lua");
+        this.applyTransferScript = loadScript("lua/apply_stock_transfer.lua");
+    }
+
+    private static DefaultRedisScript<Long> loadScript(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(location));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    /**
+     * Whether segmented mode is active
+     */
+    public boolean isEnabled() {
+        return segments > 1;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * Split stock across all buckets
+     * The remainder goes to the lowest buckets, one unit each
+     */
+    public void initStock(Long skuId, int stock) {
+        initStocks(Map.of(skuId, stock));
+    }
+
+    /**
+     * Split stock for many SKUs in one pipelined round trip
+     *
+     * @param stocks skuId -> stock
+     */
+    public void initStocks(Map<Long, Integer> stocks) {
+        initStocks(stocks, Map.of());
+    }
+
+    /**
+     * Split stock for many SKUs in one pipelined round trip, with the per-user
+     * limit copied next to every bucket
+     *
+     * @param stocks skuId -> stock
+     * @param limits skuId -> units one user may buy (SKUs left out keep one purchase per user)
+     */
+    public void initStocks(Map<Long, Integer> stocks, Map<Long, Integer> limits) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) {
+                stocks.forEach((skuId, stock) -> {
+                    int base = stock / segments;
+                    int remainder = stock % segments;
+                    for (int bucket = 0; bucket < segments; bucket++) {
+                        int bucketStock = base + (bucket < remainder ? 1 : 0);
+                        operations.opsForValue().set(stockKey(skuId, bucket), bucketStock);
+                        // Transfers of the previous stock must not be credited to the new one
+                        operations.delete(transitKey(skuId, bucket));
+                    }
+                });
+                limits.forEach((skuId, limit) -> {
+                    for (int bucket = 0; bucket < segments; bucket++) {
+                        operations.opsForValue().set(StockLuaScript.limitKey(stockKey(skuId, bucket)), limit);
+                    }
+                });
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Deduct stock, trying the user's home bucket first and then the siblings
+     *
+     * @return Deduction with remaining stock of the serving bucket if success,
+     *         -1 if every bucket is drained, -2 if user already bought, -4 if over the per-user limit
+     */
+    public Deduction deductStock(Long eventId, Long skuId, Long userId, int count) {
+        int home = homeBucket(userId);
+        BuyerRegistry.Slot buyer = buyerRegistry.slot(eventId, userKey(eventId, skuId, home), userId);
+        String homeStockKey = stockKey(skuId, home);
+        String countArg = String.valueOf(count);
+
+        Long result = redisTemplate.execute(
+                deductScript,
+                argsSerializer,
+                resultSerializer,
+                List.of(homeStockKey, buyer.key(), StockLuaScript.limitKey(homeStockKey), buyer.quotaKey(),
+                        buyer.countKey()),
+                buyer.member(),
+                countArg,
+                buyer.encoding().arg(),
+                buyer.userId()
+        );
+        if (result == null || result != HOME_DRAINED) {
+            return new Deduction(result == null ? -1 : result, home);
+        }
+
+        // Home drained - walk siblings, bucket 0 last so consolidated leftovers are seen
+        for (int step = 1; step <= segments; step++) {
+            int bucket = (home + step) % segments;
+            if (bucket == 0 || bucket == home) {
+                continue;
+            }
+            Deduction deduction = take(skuId, bucket, countArg);
+            if (deduction != null) {
+                return deduction;
+            }
+        }
+        if (home != 0) {
+            Deduction deduction = take(skuId, 0, countArg);
+            if (deduction != null) {
+                return deduction;
+            }
+        }
+        // Units may be stuck in a transfer whose rebalance died half way
+        if (completeTransfers(skuId) > 0) {
+            Deduction deduction = take(skuId, 0, countArg);
+            if (deduction != null) {
+                return deduction;
+            }
+        }
+
+        // Nothing left anywhere - release the claim so the units do not count as bought
+        buyerRegistry.release(buyer, StockLuaScript.limitKey(homeStockKey), count);
+        return new Deduction(-1, home);
+    }
+
+    private Deduction take(Long skuId, int bucket, String countArg) {
+        Long remaining = redisTemplate.execute(
+                takeScript,
+                argsSerializer,
+                resultSerializer,
+                Collections.singletonList(stockKey(skuId, bucket)),
+                countArg
+        );
+        if (remaining == null || remaining < 0) {
+            return null;
+        }
+        if (remaining <= rebalanceThreshold) {
+            rebalanceAsync(skuId);
+        }
+        return new Deduction(remaining, bucket);
+    }
+
+    /**
+     * Recover stock into the bucket it was taken from (for rollback scenarios)
+     */
+    public void recoverStock(Long skuId, int bucket, int count) {
+        redisTemplate.opsForValue().increment(stockKey(skuId, bucket), count);
+    }
+
+    /**
+     * Undo a whole deduction when the serving bucket is no longer known (e.g. order creation gave up):
+     * the units go to the user's home bucket, where the buyer claim is released too
+     */
+    public void rollback(Long eventId, Long skuId, Long userId, int count) {
+        int home = homeBucket(userId);
+        String homeStockKey = stockKey(skuId, home);
+        recoverStock(skuId, home, count);
+        buyerRegistry.release(buyerRegistry.slot(eventId, userKey(eventId, skuId, home), userId),
+                StockLuaScript.limitKey(homeStockKey), count);
+    }
+
+    /**
+     * Remaining stock summed over all buckets and pending transfers (null if the SKU was never loaded)
+     */
+    public Long getTotalStock(Long skuId) {
+        List<String> keys = new ArrayList<>(segments);
+        for (int bucket = 0; bucket < segments; bucket++) {
+            keys.add(stockKey(skuId, bucket));
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null || values.stream().allMatch(Objects::isNull)) {
+            return null;
+        }
+        long total = 0;
+        for (Object value : values) {
+            if (value != null) {
+                total += Long.parseLong(value.toString());
+            }
+        }
+        for (int bucket = 1; bucket < segments; bucket++) {
+            for (Object units : redisTemplate.opsForHash().values(transitKey(skuId, bucket))) {
+                total += Long.parseLong(units.toString());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Buyers recorded across all bucket buyer registries
+     */
+    public long countBuyers(Long eventId, Long skuId) {
+        long buyers = 0;
+        for (int bucket = 0; bucket < segments; bucket++) {
+            buyers += buyerRegistry.countBuyers(eventId, userKey(eventId, skuId, bucket));
+        }
+        return buyers;
+    }
+
+    /**
+     * Consolidate leftovers into bucket 0 once the SKU is close to selling out
+     * Avoids buyers walking N nearly-empty buckets for the last few units
+     */
+    public void rebalance(Long skuId) {
+        completeTransfers(skuId);
+
+        long total = 0;
+        for (int bucket = 0; bucket < segments; bucket++) {
+            Object value = redisTemplate.opsForValue().get(stockKey(skuId, bucket));
+            total += value != null ? ((Number) value).longValue() : 0;
+        }
+        if (total == 0 || total > (long) rebalanceThreshold * segments) {
+            return;
+        }
+
+        long moved = 0;
+        for (int bucket = 1; bucket < segments; bucket++) {
+            String transferId = UUID.randomUUID().toString();
+            Long drained = redisTemplate.execute(
+                    drainScript,
+                    argsSerializer,
+                    resultSerializer,
+                    List.of(stockKey(skuId, bucket), transitKey(skuId, bucket)),
+                    transferId
+            );
+            if (drained != null && drained > 0) {
+                applyTransfer(skuId, bucket, transferId, drained);
+                moved += drained;
+            }
+        }
+        log.info("Segmented stock rebalanced: skuId={}, total={}, moved={}", skuId, total, moved);
+    }
+
+    /**
+     * Credit every pending transfer of a SKU to bucket 0
+     *
+     * @return Units credited
+     */
+    public long completeTransfers(Long skuId) {
+        long credited = 0;
+        for (int bucket = 1; bucket < segments; bucket++) {
+            Map<Object, Object> pending = redisTemplate.opsForHash().entries(transitKey(skuId, bucket));
+            for (Map.Entry<Object, Object> transfer : pending.entrySet()) {
+                long units = Long.parseLong(transfer.getValue().toString());
+                applyTransfer(skuId, bucket, transfer.getKey().toString(), units);
+                credited += units;
+            }
+        }
+        if (credited > 0) {
+            log.warn("Completed interrupted stock transfers: skuId={}, units={}", skuId, credited);
+        }
+        return credited;
+    }
+
+    private void applyTransfer(Long skuId, int bucket, String transferId, long units) {
+        redisTemplate.execute(
+                applyTransferScript,
+                argsSerializer,
+                resultSerializer,
+                List.of(stockKey(skuId, 0), appliedKey(skuId)),
+                transferId,
+                String.valueOf(units),
+                String.valueOf(APPLIED_TTL_SECONDS)
+        );
+        redisTemplate.opsForHash().delete(transitKey(skuId, bucket), transferId);
+    }
+
+    private void rebalanceAsync(Long skuId) {
+        if (!rebalancing.add(skuId)) {
+            return;
+        }
+        Thread.ofVirtual().start(() -> {
+            try {
+                rebalance(skuId);
+            } catch (Exception e) {
+                log.error("Segmented stock rebalance failed: skuId={}", skuId, e);
+            } finally {
+                rebalancing.remove(skuId);
+            }
+        });
+    }
+
+    private int homeBucket(Long userId) {
+        // Fibonacci hashing spreads sequential user IDs evenly
+        long mixed = userId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed >>> 32, (long) segments);
+    }
+
+    private static String stockKey(Long skuId, int bucket) {
+        return STOCK_PREFIX + "{" + skuId + ":" + bucket + "}";
+    }
+
+    private static String transitKey(Long skuId, int bucket) {
+        return TRANSIT_PREFIX + "{" + skuId + ":" + bucket + "}";
+    }
+
+    private static String appliedKey(Long skuId) {
+        return APPLIED_PREFIX + "{" + skuId + ":0}";
+    }
+
+    private static String userKey(Long eventId, Long skuId, int bucket) {
+        return USER_PREFIX + eventId + ":{" + skuId + ":" + bucket + "}";
+    }
+
+    /**
+     * Deduction outcome
+     *
+     * @param result Remaining stock of the serving bucket, or -1 / -2 / -4
+     * @param bucket Bucket that served (or was home for) the request, used for rollback
+     */
+    public record Deduction(long result, int bucket) {
+    }
+}
@@ -0,0 +1,250 @@
+package com.flashbuy.infrastructure.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Micro-batching (group commit) stage in front of StockLuaScript
+ * Coalesces concurrent deductions for the same event/SKU into one batched EVAL
+ *
+ * A batch is flushed when it reaches max-size requests or when the window
+ * (default 1ms) opened by its first request elapses, whichever comes first.
+ * Each caller then gets its own result: remaining stock, -1, -2 or -4
+ *
+ * A caller that times out takes its request back out of the batch if it has not been sent yet;
+ * if it is already in flight, a late success is rolled back (stock and buyer claim), since
+ * the caller has already been told the purchase failed. A batch is dropped from the map once
+ * it has flushed and nothing is pending, so the map only holds keys with traffic in flight
+ *
+ * Disabled unless pinshop.seckill.batch.enabled is true
+ */
+@Component
+public class StockDeductionBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(StockDeductionBatcher.class);
+
+    private final StockLuaScript stockLuaScript;
+    private final BuyerRegistry buyerRegistry;
+
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxSize;
+    private final long timeoutMillis;
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+
+    public StockDeductionBatcher(
+            StockLuaScript stockLuaScript,
+            BuyerRegistry buyerRegistry,
+            @Value("${pinshop.seckill.batch.enabled:false}") boolean enabled,
+            @Value("${pinshop.seckill.batch.window-micros:1000}") long windowMicros,
+            @Value("${pinshop.seckill.batch.max-size:64}") int maxSize,
+            @Value("${pinshop.seckill.batch.timeout-ms:3000}") long timeoutMillis) {
+        this.stockLuaScript = stockLuaScript;
+        this.buyerRegistry = buyerRegistry;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxSize = Math.max(1, maxSize);
+        this.timeoutMillis = timeoutMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("stock-batch-timer").daemon().factory());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Deduct stock through the batcher, blocking the (virtual) caller thread until its batch is decided
+     *
+     * @return Remaining stock if success, -1 if insufficient stock, -2 if user already bought,
+     *         -4 if over the per-user limit
+     */
+    public Long deductStock(String stockKey, BuyerRegistry.Slot buyer, int count) {
+        Pending pending = new Pending(buyer, count, new CompletableFuture<>());
+        Batch batch = enqueue(stockKey, pending);
+        try {
+            return pending.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(batch, pending);
+            throw new IllegalStateException("Interrupted while waiting for stock batch", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stock batch failed", e.getCause());
+        } catch (TimeoutException e) {
+            abandon(batch, pending);
+            throw new IllegalStateException("Stock batch timed out", e);
+        }
+    }
+
+    /**
+     * Enqueue a deduction and get a future completed with its own result
+     * Requests are batched per buyer registry key (per bitmap chunk for bitmap registries)
+     */
+    public CompletableFuture<Long> submit(String stockKey, BuyerRegistry.Slot buyer, int count) {
+        Pending pending = new Pending(buyer, count, new CompletableFuture<>());
+        enqueue(stockKey, pending);
+        return pending.future;
+    }
+
+    private Batch enqueue(String stockKey, Pending pending) {
+        BuyerRegistry.Slot buyer = pending.buyer;
+        Batch batch = batches.computeIfAbsent(buyer.key(),
+                k -> new Batch(stockKey, buyer.key(), buyer.quotaKey(), buyer.countKey(), buyer.encoding()));
+
+        List<Pending> full = null;
+        boolean schedule = false;
+        boolean retire = false;
+        synchronized (batch) {
+            batch.pending.add(pending);
+            if (batch.pending.size() >= maxSize) {
+                full = batch.drain();
+                retire = !batch.scheduled;
+            } else if (!batch.scheduled) {
+                batch.scheduled = true;
+                schedule = true;
+            }
+        }
+
+        if (full != null) {
+            if (retire) {
+                batches.remove(buyer.key(), batch);
+            }
+            // Size-triggered flush runs on the caller's own virtual thread
+            flush(batch, full);
+        } else if (schedule) {
+            timer.schedule(() -> {
+                List<Pending> due;
+                synchronized (batch) {
+                    batch.scheduled = false;
+                    due = batch.drain();
+                }
+                // Nothing is pending any more; a request that still holds this batch schedules its own flush
+                batches.remove(batch.buyerKey, batch);
+                if (!due.isEmpty()) {
+                    Thread.ofVirtual().start(() -> flush(batch, due));
+                }
+            }, windowMicros, TimeUnit.MICROSECONDS);
+        }
+        return batch;
+    }
+
+    /**
+     * Give up on a request whose caller stopped waiting: take it out of the batch if it
+     * has not been sent, otherwise roll back its result if that turns out to be a success
+     */
+    private void abandon(Batch batch, Pending pending) {
+        boolean removed;
+        synchronized (batch) {
+            removed = batch.pending.remove(pending);
+        }
+        if (removed) {
+            return;
+        }
+        pending.future.thenAccept(result -> {
+            if (result == null || result < 0) {
+                return;
+            }
+            try {
+                stockLuaScript.recoverStock(batch.stockKey, pending.count);
+                buyerRegistry.release(pending.buyer, StockLuaScript.limitKey(batch.stockKey), pending.count);
+                log.warn("Rolled back late stock batch result: key={}, userId={}, count={}",
+                        batch.buyerKey, pending.buyer.userId(), pending.count);
+            } catch (Exception e) {
+                log.error("Failed to roll back late stock batch result: key={}, userId={}",
+                        batch.buyerKey, pending.buyer.userId(), e);
+            }
+        });
+    }
+
+    private void flush(Batch batch, List<Pending> requests) {
+        List<String> members = new ArrayList<>(requests.size());
+        List<String> userIds = new ArrayList<>(requests.size());
+        List<Integer> counts = new ArrayList<>(requests.size());
+        for (Pending pending : requests) {
+            members.add(pending.buyer.member());
+            userIds.add(pending.buyer.userId());
+            counts.add(pending.count);
+        }
+
+        try {
+            List<Long> results = stockLuaScript.deductStockBatch(
+                    batch.stockKey, batch.buyerKey, batch.quotaKey, batch.countKey, batch.encoding, members, userIds, counts);
+            if (results == null || results.size() != requests.size()) {
+                throw new IllegalStateException("Unexpected batch result size: "
+                        + (results == null ? "null" : results.size()) + ", expected " + requests.size());
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                requests.get(i).future.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            log.error("Stock batch flush failed: key={}, size={}", batch.buyerKey, requests.size(), e);
+            for (Pending pending : requests) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+    }
+
+    /**
+     * One caller's request; identity-compared so an abandoned request can be taken out of its batch
+     */
+    private static final class Pending {
+        private final BuyerRegistry.Slot buyer;
+        private final int count;
+        private final CompletableFuture<Long> future;
+
+        private Pending(BuyerRegistry.Slot buyer, int count, CompletableFuture<Long> future) {
+            this.buyer = buyer;
+            this.count = count;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Pending requests for one event/SKU buyer registry key, guarded by its own monitor
+     */
+    private static final class Batch {
+        private final String stockKey;
+        private final String buyerKey;
+        private final String quotaKey;
+        private final String countKey;
+        private final BuyerRegistry.Encoding encoding;
+        private List<Pending> pending = new ArrayList<>();
+        private boolean scheduled;
+
+        private Batch(String stockKey, String buyerKey, String quotaKey, String countKey,
+                      BuyerRegistry.Encoding encoding) {
+            this.stockKey = stockKey;
+            this.buyerKey = buyerKey;
+            this.quotaKey = quotaKey;
+            this.countKey = countKey;
+            this.encoding = encoding;
+        }
+
+        private List<Pending> drain() {
+            List<Pending> drained = pending;
+            pending = new ArrayList<>();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.flashbuy.infrastructure.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-local Stock Lease Manager
+ * Leases stock from Redis in blocks and serves deductions from an in-JVM counter
+ *
+ * Guarantees:
+ * 1. Redis stock only ever decreases by what was leased, so the sum of all
+ *    node-local counters plus Redis never exceeds the warmed-up flash stock
+ * 2. Unused leases are returned when idle and on shutdown
+ * 3. Every lease carries the stock generation it was taken from (flash:stock:gen:{skuId}).
+ *    A warm-up starts a new generation: every node drops its older leases on the REPLENISH
+ *    broadcast (or on its next lease, if the broadcast was missed), and units of an older
+ *    generation are never added back to the new stock
+ *
+ * The buyer registry and per-user limit are still checked in Redis (one small claim
+ * script per purchase) so purchase limits hold across nodes
+ *
+ * Disabled unless pinshop.seckill.lease.enabled is true
+ */
+@Component
+public class StockLeaseManager {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLeaseManager.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final BuyerRegistry buyerRegistry;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> leaseScript;
+    private final DefaultRedisScript<Long> returnScript;
+
+    private final RedisSerializer<String> stringSerializer = new StringRedisSerializer();
+    private final RedisSerializer<Long> resultSerializer = new GenericToStringSerializer<>(Long.class);
+
+    private final boolean enabled;
+    private final int blockSize;
+    private final int refillThreshold;
+    private final long idleReturnMillis;
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    public StockLeaseManager(
+            RedisTemplate<String, Object> redisTemplate,
+            BuyerRegistry buyerRegistry,
+            StockStatusBroadcaster stockStatusBroadcaster,
+            @Value("${pinshop.seckill.lease.enabled:false}") boolean enabled,
+            @Value("${pinshop.seckill.lease.block-size:50}") int blockSize,
+            @Value("${pinshop.seckill.lease.refill-threshold:10}") int refillThreshold,
+            @Value("${pinshop.seckill.lease.idle-return-ms:3000}") long idleReturnMillis) {
+        this.redisTemplate = redisTemplate;
+        this.buyerRegistry = buyerRegistry;
+        this.enabled = enabled;
+        this.blockSize = Math.max(1, blockSize);
+        this.refillThreshold = refillThreshold;
+        this.idleReturnMillis = idleReturnMillis;
+
+        this.leaseScript = new DefaultRedisScript<>();
+        this.leaseScript.setLocation(new ClassPathResource("lua/lease_stock.lua"));
+        this.leaseScript.setResultType(List.class);
+
+        this.returnScript = new DefaultRedisScript<>();
+        this.returnScript.setLocation(new ClassPathResource("lua/return_stock_lease.lua"));
+        this.returnScript.setResultType(Long.class);
+
+        stockStatusBroadcaster.addReplenishListener(this::reset);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Deduct stock from the local lease, leasing another block when it runs dry
+     *
+     * @return Remaining local stock if success, -1 if insufficient stock, -2 if user already bought,
+     *         -4 if over the per-user limit
+     */
+    public long deductStock(Long eventId, Long skuId, Long userId, int count) {
+        if (!acquire(skuId, count)) {
+            return -1;
+        }
+
+        // Register buyer; hand the units back to the lease if the user already bought or hit the limit
+        BuyerRegistry.Slot buyer = buyerRegistry.slot(eventId, BuyerRegistry.userKey(eventId, skuId), userId);
+        long claimed;
+        try {
+            claimed = buyerRegistry.claim(buyer, StockLuaScript.limitKey(StockLuaScript.stockKey(skuId)), count);
+        } catch (RuntimeException e) {
+            recoverStock(skuId, count);
+            throw e;
+        }
+        if (claimed < 0) {
+            recoverStock(skuId, count);
+            return claimed;
+        }
+
+        return leases.get(skuId).available.get();
+    }
+
+    /**
+     * Give units back to the local lease (for rollback scenarios)
+     */
+    public void recoverStock(Long skuId, int count) {
+        leases.computeIfAbsent(skuId, k -> new Lease()).available.addAndGet(count);
+    }
+
+    /**
+     * Drop a local lease older than the given generation without returning it
+     * Called on every node when Redis stock is re-initialized by warm-up
+     */
+    public void reset(long skuId, long generation) {
+        Lease lease = leases.get(skuId);
+        if (lease == null) {
+            return;
+        }
+        lease.lock.lock();
+        try {
+            if (lease.generation < generation) {
+                lease.available.set(0);
+                lease.generation = generation;
+            }
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * Return the unused part of a lease to Redis (e.g. at event end)
+     * Units from an older stock generation are dropped by the script instead
+     */
+    public void release(Long skuId) {
+        Lease lease = leases.get(skuId);
+        if (lease == null) {
+            return;
+        }
+        lease.lock.lock();
+        try {
+            int unused = lease.available.getAndSet(0);
+            if (unused <= 0) {
+                return;
+            }
+            Long returned = redisTemplate.execute(
+                    returnScript,
+                    stringSerializer,
+                    resultSerializer,
+                    keys(skuId),
+                    String.valueOf(unused),
+                    String.valueOf(lease.generation)
+            );
+            if (returned != null && returned == 1) {
+                log.info("Stock lease returned: skuId={}, count={}", skuId, unused);
+            } else {
+                log.info("Stale stock lease dropped: skuId={}, count={}, generation={}",
+                        skuId, unused, lease.generation);
+            }
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * Return leases that have not served a request recently
+     * Keeps stock from being stranded on a quiet node while others sell out
+     */
+    @Scheduled(fixedDelayString = "${pinshop.seckill.lease.idle-check-ms:1000}")
+    public void returnIdleLeases() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        leases.forEach((skuId, lease) -> {
+            if (lease.available.get() > 0 && now - lease.lastUsed > idleReturnMillis) {
+                release(skuId);
+            }
+        });
+    }
+
+    /**
+     * Return every lease before the node goes away
+     */
+    @PreDestroy
+    public void releaseAll() {
+        leases.keySet().forEach(skuId -> {
+            try {
+                release(skuId);
+            } catch (Exception e) {
+                log.error("Failed to return stock lease: skuId={}", skuId, e);
+            }
+        });
+    }
+
+    private boolean acquire(Long skuId, int count) {
+        Lease lease = leases.computeIfAbsent(skuId, k -> new Lease());
+        lease.lastUsed = System.currentTimeMillis();
+
+        while (true) {
+            if (tryTake(lease, count)) {
+                if (lease.available.get() < refillThreshold) {
+                    refillAsync(skuId, lease);
+                }
+                return true;
+            }
+
+            // Local lease dry - lease synchronously, one caller per SKU
+            lease.lock.lock();
+            try {
+                if (tryTake(lease, count)) {
+                    return true;
+                }
+                if (leaseBlock(skuId, lease, Math.max(blockSize, count)) <= 0) {
+                    return false;
+                }
+            } finally {
+                lease.lock.unlock();
+            }
+        }
+    }
+
+    private static boolean tryTake(Lease lease, int count) {
+        int current;
+        do {
+            current = lease.available.get();
+            if (current < count) {
+                return false;
+            }
+        } while (!lease.available.compareAndSet(current, current - count));
+        return true;
+    }
+
+    private void refillAsync(Long skuId, Lease lease) {
+        if (!lease.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().start(() -> {
+            lease.lock.lock();
+            try {
+                leaseBlock(skuId, lease, blockSize);
+            } catch (Exception e) {
+                log.error("Stock lease refill failed: skuId={}", skuId, e);
+            } finally {
+                lease.lock.unlock();
+                lease.refilling.set(false);
+            }
+        });
+    }
+
+    /**
+     * Lease one block into the given lease (caller holds its lock)
+     * A block from a newer generation replaces whatever the lease still held
+     *
+     * @return Units leased
+     */
+    private long leaseBlock(Long skuId, Lease lease, int size) {
+        List<?> result = redisTemplate.execute(
+                leaseScript,
+                stringSerializer,
+                null,
+                keys(skuId),
+                String.valueOf(size)
+        );
+        if (result == null || result.size() < 2) {
+            return 0;
+        }
+        long leased = ((Number) result.get(0)).longValue();
+        long generation = ((Number) result.get(1)).longValue();
+        if (generation != lease.generation) {
+            // Warm-up happened and the REPLENISH broadcast has not reached us (yet)
+            lease.available.set((int) leased);
+            lease.generation = generation;
+        } else if (leased > 0) {
+            lease.available.addAndGet((int) leased);
+        }
+        return leased;
+    }
+
+    private static List<String> keys(Long skuId) {
+        return List.of(StockLuaScript.stockKey(skuId), StockStatusBroadcaster.generationKey(skuId));
+    }
+
+    /**
+     * Per-SKU node-local lease
+     */
+    private static final class Lease {
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastUsed = System.currentTimeMillis();
+        // Stock generation the units were leased in (guarded by lock)
+        private volatile long generation;
+    }
+}
@@ -1,20 +1,36 @@
 package com.flashbuy.infrastructure.cache;
 
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Redis Lua Script Service for Stock Deduction
  * Pre-loads Lua script to avoid compilation on each request
+ *
+ * Each stock key has a per-user limit key next to it (flash:stock:X -> flash:limit:X),
+ * written at warm-up and read by the scripts, so limits cost no extra round trip
  */
 @Service
 public class StockLuaScript {
 
+    private static final String STOCK_PREFIX = "flash:stock:";
+    private static final String LIMIT_PREFIX = "flash:limit:";
+
     private final DefaultRedisScript<Long> deductScript;
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> deductBatchScript;
+    private final StringRedisSerializer stringSerializer = new StringRedisSerializer();
+    private final RedisSerializer<Long> resultSerializer = new GenericToStringSerializer<>(Long.class);
     private final RedisTemplate<String, Object> redisTemplate;
 
     public StockLuaScript(RedisTemplate<String, Object> redisTemplate) {
@@ -24,23 +40,64 @@ public class StockLuaScript {
         this.deductScript = new DefaultRedisScript<>();
         this.deductScript.setLocation(new ClassPathResource("lua/deduct_stock.lua"));
         this.deductScript.setResultType(Long.class);
+
+        this.deductBatchScript = new DefaultRedisScript<>();
+        this.deductBatchScript.setLocation(new ClassPathResource("lua/deduct_stock_batch.lua"));
+        this.deductBatchScript.setResultType(List.class);
     }
 
     /**
      * Execute stock deduction with Lua script (atomic operation)
      *
-     * @param stockKey    Redis key for stock, e.g. "flash:stock:123"
-     * @param userLimitKey Redis key for user limit, e.g. "flash:user:1:123"
-     * @param userId      User ID
-     * @param count       Quantity to deduct (default 1)
-     * @return Remaining stock if success, -1 if insufficient stock, -2 if user already bought
+     * @param stockKey Redis key for stock, e.g. "flash:stock:{123}"
+     * @param buyer    Buyer registry slot, e.g. member 10001 of "flash:user:1:{123}"
+     * @param count    Quantity to deduct (default 1)
+     * @return Remaining stock if success, -1 if insufficient stock, -2 if user already bought,
+     *         -4 if count would take the user over the per-user limit
      */
-    public Long deductStock(String stockKey, String userLimitKey, String userId, int count) {
+    public Long deductStock(String stockKey, BuyerRegistry.Slot buyer, int count) {
         return redisTemplate.execute(
                 deductScript,
-                Collections.singletonList(stockKey),
-                userId,
-                String.valueOf(count)
+                stringSerializer,
+                resultSerializer,
+                List.of(stockKey, buyer.key(), limitKey(stockKey), buyer.quotaKey(), buyer.countKey()),
+                buyer.member(),
+                String.valueOf(count),
+                buyer.encoding().arg(),
+                buyer.userId()
+        );
+    }
+
+    /**
+     * Execute a micro-batch of deductions for one SKU in a single EVAL
+     *
+     * @param stockKey Redis key for stock, e.g. "flash:stock:{123}"
+     * @param buyerKey Buyer registry key shared by the whole batch, e.g. "flash:user:1:{123}"
+     * @param quotaKey Quota hash shared by the whole batch, e.g. "flash:quota:1:{123}"
+     * @param countKey Buyer count shared by the whole batch, e.g. "flash:buyers:1:{123}"
+     * @param encoding Encoding of the buyer registry
+     * @param members  Registry members (user IDs or bit offsets) in arrival order
+     * @param userIds  User IDs, same order as members
+     * @param counts   Quantity per request, same order as members
+     * @return One result per request: remaining stock, -1, -2 or -4
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> deductStockBatch(String stockKey, String buyerKey, String quotaKey, String countKey,
+                                       BuyerRegistry.Encoding encoding, List<String> members,
+                                       List<String> userIds, List<Integer> counts) {
+        Object[] args = new Object[members.size() * 3 + 1];
+        args[0] = encoding.arg();
+        for (int i = 0; i < members.size(); i++) {
+            args[3 * i + 1] = members.get(i);
+            args[3 * i + 2] = userIds.get(i);
+            args[3 * i + 3] = String.valueOf(counts.get(i));
+        }
+        return (List<Long>) redisTemplate.execute(
+                deductBatchScript,
+                stringSerializer,
+                null,
+                List.of(stockKey, buyerKey, limitKey(stockKey), quotaKey, countKey),
+                args
         );
     }
 
@@ -52,6 +109,49 @@ public class StockLuaScript {
         redisTemplate.opsForValue().set(stockKey, stock);
     }
 
+    /**
+     * Initialize many stock keys in one pipelined round trip
+     *
+     * @param stocks stockKey -> stock
+     */
+    public void initStocks(Map<String, Integer> stocks) {
+        initStocks(stocks, Map.of());
+    }
+
+    /**
+     * Initialize many stock keys and their per-user limits in one pipelined round trip
+     *
+     * @param stocks stockKey -> stock
+     * @param limits stockKey -> units one user may buy (SKUs left out keep one purchase per user)
+     */
+    public void initStocks(Map<String, Integer> stocks, Map<String, Integer> limits) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object execute(RedisOperations operations) {
+                stocks.forEach((stockKey, stock) -> operations.opsForValue().set(stockKey, stock));
+                limits.forEach((stockKey, limit) -> operations.opsForValue().set(limitKey(stockKey), limit));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stock key of a SKU, e.g. "flash:stock:{123}". The SKU ID is the hash tag, so the limit,
+     * buyer and quota keys of the same SKU land on one cluster slot with it
+     */
+    public static String stockKey(Long skuId) {
+        return STOCK_PREFIX + "{" + skuId + "}";
+    }
+
+    /**
+     * Per-user limit key kept next to a stock key, e.g. "flash:limit:{123}" or "flash:limit:seg:{123:0}"
+     * (same hash tag as the stock key, so both land on one shard)
+     */
+    public static String limitKey(String stockKey) {
+        return LIMIT_PREFIX + stockKey.substring(STOCK_PREFIX.length());
+    }
+
     /**
      * Check if stock is empty (for local cache)
      */
@@ -0,0 +1,230 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * Cluster-wide sold-out / replenish broadcast for LocalStockCache
+ * Publishes stock status changes over Redis pub/sub so every node stops
+ * (or resumes) sending requests to Redis within milliseconds
+ *
+ * Message format: {EMPTY|REPLENISH}:{skuId}:{generation}:{nodeId}
+ *
+ * Generations come from INCR flash:stock:gen:{skuId} on every replenish,
+ * so a sold-out event observed before a replenish can never undo it. A node learns the
+ * current generations at startup and checks Redis again before publishing a sold-out
+ * event, so a restarted node never publishes under a generation its peers have moved past
+ *
+ * Listeners (e.g. the flash list snapshot) are told about every applied change, local or remote.
+ * Replenish listeners (e.g. stock leases) are told about every new generation with its number
+ */
+@Component
+public class StockStatusBroadcaster implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StockStatusBroadcaster.class);
+
+    private static final String CHANNEL = "flash:stock:events";
+    private static final String GENERATION_PREFIX = "flash:stock:gen:";
+
+    private static final String EMPTY = "EMPTY";
+    private static final String REPLENISH = "REPLENISH";
+
+    private final LocalStockCache localStockCache;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // Identifies this node so its own events are not applied twice
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private final List<ReplenishListener> replenishListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Told that the stock of a SKU was re-initialized as the given generation
+     */
+    @FunctionalInterface
+    public interface ReplenishListener {
+        void onReplenish(long skuId, long generation);
+    }
+
+    public StockStatusBroadcaster(
+            LocalStockCache localStockCache,
+            StringRedisTemplate stringRedisTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.localStockCache = localStockCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Be told the SKU ID of every sold-out / replenish change applied on this node
+     * Listeners run on the thread that applied the change and must not block
+     */
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Be told about every new stock generation applied on this node, local or remote
+     * Listeners run on the thread that applied the change and must not block on the network
+     */
+    public void addReplenishListener(ReplenishListener listener) {
+        replenishListeners.add(listener);
+    }
+
+    /**
+     * Generation counter of a SKU, e.g. "flash:stock:gen:{123}"
+     * (same hash tag as the stock key, so scripts can read both)
+     */
+    public static String generationKey(long skuId) {
+        return GENERATION_PREFIX + "{" + skuId + "}";
+    }
+
+    /**
+     * Mark a SKU sold out locally and tell every other node
+     * Only the first mark per generation is published; the publish runs off the request thread
+     */
+    public void markEmpty(long skuId) {
+        long generation = localStockCache.generation(skuId);
+        if (localStockCache.markEmpty(skuId, generation)) {
+            notifyListeners(skuId);
+            Thread.ofVirtual().start(() -> publishEmpty(skuId, generation));
+        }
+    }
+
+    /**
+     * Learn the current generation of every SKU before taking traffic
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGenerations() {
+        try {
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(GENERATION_PREFIX + "*").count(500).build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < keys.size() && values != null; i++) {
+                String key = keys.get(i);
+                if (values.get(i) != null && key.endsWith("}")) {
+                    long skuId = Long.parseLong(key.substring(GENERATION_PREFIX.length() + 1, key.length() - 1));
+                    localStockCache.clearEmpty(skuId, Long.parseLong(values.get(i)));
+                }
+            }
+            log.info("Stock generations loaded: skus={}", keys.size());
+        } catch (Exception e) {
+            // Sold-out events are checked against Redis before publishing anyway
+            log.warn("Failed to load stock generations", e);
+        }
+    }
+
+    /**
+     * Start a new stock generation for a SKU and clear its sold-out mark on every node
+     * Called after stock has been (re)loaded into Redis
+     */
+    public void replenish(long skuId) {
+        Long generation = stringRedisTemplate.opsForValue().increment(generationKey(skuId));
+        if (generation == null) {
+            localStockCache.clearEmpty(skuId);
+            notifyListeners(skuId);
+            return;
+        }
+        localStockCache.clearEmpty(skuId, generation);
+        notifyListeners(skuId);
+        notifyReplenished(skuId, generation);
+        publish(REPLENISH, skuId, generation);
+    }
+
+    private void notifyListeners(long skuId) {
+        for (LongConsumer listener : listeners) {
+            listener.accept(skuId);
+        }
+    }
+
+    private void notifyReplenished(long skuId, long generation) {
+        for (ReplenishListener listener : replenishListeners) {
+            listener.onReplenish(skuId, generation);
+        }
+    }
+
+    /**
+     * Publish a sold-out mark unless Redis is already on a newer generation; then this node
+     * missed a replenish, so it catches up instead of telling its peers about old stock
+     */
+    private void publishEmpty(long skuId, long generation) {
+        long current;
+        try {
+            String value = stringRedisTemplate.opsForValue().get(generationKey(skuId));
+            current = value == null ? 0 : Long.parseLong(value);
+        } catch (Exception e) {
+            log.warn("Failed to read stock generation: skuId={}", skuId, e);
+            return;
+        }
+        if (current > generation) {
+            if (localStockCache.clearEmpty(skuId, current)) {
+                notifyListeners(skuId);
+                notifyReplenished(skuId, current);
+            }
+            return;
+        }
+        publish(EMPTY, skuId, generation);
+    }
+
+    private void publish(String type, long skuId, long generation) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, type + ":" + skuId + ":" + generation + ":" + nodeId);
+        } catch (Exception e) {
+            // Other nodes still converge through their own Lua results
+            log.warn("Failed to broadcast stock event: type={}, skuId={}", type, skuId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":");
+        if (parts.length != 4 || nodeId.equals(parts[3])) {
+            return;
+        }
+
+        try {
+            long skuId = Long.parseLong(parts[1]);
+            long generation = Long.parseLong(parts[2]);
+            boolean applied = switch (parts[0]) {
+                case EMPTY -> localStockCache.markEmpty(skuId, generation);
+                case REPLENISH -> localStockCache.clearEmpty(skuId, generation);
+                default -> {
+                    log.warn("Unknown stock event: {}", body);
+                    yield false;
+                }
+            };
+            if (applied) {
+                notifyListeners(skuId);
+                if (REPLENISH.equals(parts[0])) {
+                    notifyReplenished(skuId, generation);
+                }
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Malformed stock event: {}", body);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.flashbuy.infrastructure.config;
+
+import com.flashbuy.infrastructure.mq.journal.OrderJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Order Journal Configuration
+ * Local write-ahead journal for deducted stock, only with pinshop.seckill.order-dispatch=none;
+ * the other modes hand orders to a dispatcher and never write to it
+ */
+@Configuration
+public class OrderJournalConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "pinshop.seckill", name = "order-dispatch", havingValue = "none")
+    public OrderJournal orderJournal(
+            @Value("${pinshop.seckill.journal.dir:data/journal}") String dir,
+            @Value("${pinshop.seckill.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${pinshop.seckill.journal.fsync-interval-ms:50}") long fsyncIntervalMillis) throws IOException {
+        return new OrderJournal(Path.of(dir), segmentSizeMb * 1024 * 1024, fsyncIntervalMillis);
+    }
+}
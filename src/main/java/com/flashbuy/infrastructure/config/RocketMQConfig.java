@@ -0,0 +1,17 @@
+package com.flashbuy.infrastructure.config;
+
+import org.apache.rocketmq.spring.autoconfigure.RocketMQAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * RocketMQ Configuration
+ * The auto-configuration is excluded on FlashBuyApplication so nodes without
+ * a name server start cleanly; it is only brought in for order-dispatch=rocketmq (the default)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "pinshop.seckill", name = "order-dispatch", havingValue = "rocketmq", matchIfMissing = true)
+@Import(RocketMQAutoConfiguration.class)
+public class RocketMQConfig {
+}
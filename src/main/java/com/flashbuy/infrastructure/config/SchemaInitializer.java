@@ -11,15 +11,20 @@ import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.nio.charset.StandardCharsets;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * Database Schema Initializer
- * Executes schema-tables.sql on first run if tables don't exist
+ * Executes schema-init.sql on first run if tables don't exist,
+ * then applies the columns and indexes added since to databases created before them
  */
 @Component
 @Order(0)  // Run before DataInitializer
@@ -28,6 +33,38 @@ public class SchemaInitializer implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(SchemaInitializer.class);
 
+    /**
+     * Columns and indexes added after the first release
+     * Each one is looked up in information_schema first, so running them again is a no-op
+     */
+    private static final List<SchemaChange> CHANGES = List.of(
+            SchemaChange.column("trade_order", "queue_id",
+                    "ALTER TABLE trade_order ADD COLUMN queue_id varchar(64) "
+                            + "COMMENT 'Seckill request ticket; unique so a redelivered message never creates a second order'"),
+            SchemaChange.index("trade_order", "uk_queue_id",
+                    "ALTER TABLE trade_order ADD UNIQUE KEY uk_queue_id (queue_id)"),
+            SchemaChange.index("trade_order", "idx_user_create_time",
+                    "ALTER TABLE trade_order ADD INDEX idx_user_create_time (user_id, create_time)"),
+            SchemaChange.index("trade_order", "idx_marketing_type",
+                    "ALTER TABLE trade_order ADD INDEX idx_marketing_type (marketing_id, order_type)"),
+            SchemaChange.index("product_spu", "idx_update_time",
+                    "ALTER TABLE product_spu ADD INDEX idx_update_time (update_time)"),
+            SchemaChange.index("product_sku", "idx_update_time",
+                    "ALTER TABLE product_sku ADD INDEX idx_update_time (update_time)"),
+            SchemaChange.index("flash_item", "idx_update_time",
+                    "ALTER TABLE flash_item ADD INDEX idx_update_time (update_time)")
+    );
+
+    private record SchemaChange(String table, String name, boolean index, String ddl) {
+        static SchemaChange column(String table, String name, String ddl) {
+            return new SchemaChange(table, name, false, ddl);
+        }
+
+        static SchemaChange index(String table, String name, String ddl) {
+            return new SchemaChange(table, name, true, ddl);
+        }
+    }
+
     private final DataSource dataSource;
 
     @Value("classpath:schema-init.sql")
@@ -47,21 +84,27 @@ public class SchemaInitializer implements CommandLineRunner {
             log.info("✓ Got database connection");
 
             // Check if product_spu table exists
+            boolean exists;
             try (var stmt = conn.createStatement()) {
                 stmt.executeQuery("SELECT 1 FROM product_spu LIMIT 1");
                 log.info("✓ Database tables already exist, skipping schema initialization");
-                return;
+                exists = true;
             } catch (Exception e) {
                 log.info("→ Tables don't exist, will initialize schema...");
+                exists = false;
             }
 
-            // Read and execute SQL file
-            log.info("→ Reading schema-tables.sql...");
-            String sql = readSchemaFile();
-            log.info("→ Executing schema SQL...");
-            executeSchemaSql(conn, sql);
+            if (!exists) {
+                // Read and execute SQL file
+                log.info("→ Reading schema-init.sql...");
+                String sql = readSchemaFile();
+                log.info("→ Executing schema SQL...");
+                executeSchemaSql(conn, sql);
 
-            log.info("✓ Schema initialized successfully!");
+                log.info("✓ Schema initialized successfully!");
+            }
+
+            applyChanges(conn);
             log.info("========================================");
 
         } catch (Exception e) {
@@ -74,10 +117,10 @@ public class SchemaInitializer implements CommandLineRunner {
         try {
             var is = schemaResource.getInputStream();
             String content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-            log.info("Loaded schema-tables.sql ({} bytes)", content.length());
+            log.info("Loaded schema-init.sql ({} bytes)", content.length());
             return content;
         } catch (Exception e) {
-            log.error("Failed to read schema-tables.sql", e);
+            log.error("Failed to read schema-init.sql", e);
             throw e;
         }
     }
@@ -106,4 +149,44 @@ public class SchemaInitializer implements CommandLineRunner {
             log.info("Executed {} SQL statements", executed);
         }
     }
+
+    /**
+     * Apply every schema change missing from the current database
+     * A change another node applied concurrently is accepted; any other failure stops startup
+     */
+    private void applyChanges(Connection conn) throws SQLException {
+        int applied = 0;
+        for (SchemaChange change : CHANGES) {
+            if (isPresent(conn, change)) {
+                continue;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                log.info("→ Applying schema change: {}.{}", change.table(), change.name());
+                stmt.execute(change.ddl());
+                applied++;
+            } catch (SQLException e) {
+                if (!isPresent(conn, change)) {
+                    throw e;
+                }
+            }
+        }
+        if (applied > 0) {
+            log.info("✓ Applied {} schema changes", applied);
+        }
+    }
+
+    private static boolean isPresent(Connection conn, SchemaChange change) throws SQLException {
+        String sql = change.index()
+                ? "SELECT COUNT(*) FROM information_schema.STATISTICS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?"
+                : "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, change.table());
+            stmt.setString(2, change.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getLong(1) > 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package com.flashbuy.infrastructure.id;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distributed ID service for order / session primary keys
+ *
+ * Worker ID assignment:
+ * 1. pinshop.id.worker-id >= 0: fixed, from config
+ * 2. otherwise leased from Redis (SET flash:id:worker:{n} NX EX), renewed in the background
+ * 3. Redis unavailable at startup: no IDs are issued until the background renewal leases one
+ *
+ * If a leased worker ID turns out to be held by another node (lease expired during a long
+ * pause or a Redis failover), or the lease could not be renewed for a whole TTL, no more IDs
+ * are issued until a fresh worker ID is leased; the generator then continues under it
+ *
+ * The last issued timestamp per worker ID is kept in Redis, so a restarted
+ * node never reissues IDs from before a clock step back
+ */
+@Component
+public class IdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGenerator.class);
+
+    private static final String WORKER_PREFIX = "flash:id:worker:";
+    private static final String LAST_TIMESTAMP_SUFFIX = ":last";
+
+    // Renew only if the lease is still ours
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('expire', KEYS[1], ARGV[2]) "
+                    + "redis.call('set', KEYS[2], ARGV[3]) "
+                    + "return 1 end return 0",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Duration leaseTtl;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long maxBackwardMillis;
+    private final boolean leased;
+
+    // Null until a worker ID is held
+    private volatile SnowflakeIdGenerator generator;
+    // Set while no worker ID is held: none leased yet, lost to another node, or left unrenewed for a TTL
+    private volatile boolean suspended;
+    private long lastRenewNanos;
+
+    public IdGenerator(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${pinshop.id.worker-id:-1}") int workerId,
+            @Value("${pinshop.id.lease-ttl-seconds:60}") long leaseTtlSeconds,
+            @Value("${pinshop.id.max-backward-ms:5000}") long maxBackwardMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.leaseTtl = Duration.ofSeconds(leaseTtlSeconds);
+        this.maxBackwardMillis = maxBackwardMillis;
+
+        this.leased = workerId < 0;
+        if (!leased) {
+            this.generator = new SnowflakeIdGenerator(workerId, readLastTimestamp(workerId), maxBackwardMillis);
+            log.info("ID generator ready: workerId={}, leased=false", workerId);
+            return;
+        }
+        int assigned = leaseWorkerId();
+        if (assigned < 0) {
+            // Never fall back to a fixed ID: another node could be issuing under it
+            this.suspended = true;
+            log.error("Could not lease a worker ID from Redis, no IDs are issued until one is leased");
+            return;
+        }
+        this.lastRenewNanos = System.nanoTime();
+        this.generator = new SnowflakeIdGenerator(assigned, readLastTimestamp(assigned), maxBackwardMillis);
+        log.info("ID generator ready: workerId={}, leased=true", assigned);
+    }
+
+    public long nextId() {
+        return active().nextId();
+    }
+
+    /**
+     * Reserve n IDs at once (batched insert paths)
+     */
+    public long[] nextIds(int n) {
+        return active().nextIds(n);
+    }
+
+    private SnowflakeIdGenerator active() {
+        if (suspended) {
+            throw new IllegalStateException("No worker ID lease held, ID generation suspended until a new lease");
+        }
+        return generator;
+    }
+
+    /**
+     * Try worker IDs from a random starting point until one is free
+     *
+     * @return Leased worker ID, or -1 if none could be leased
+     */
+    private int leaseWorkerId() {
+        int slots = SnowflakeIdGenerator.MAX_WORKER_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        try {
+            for (int i = 0; i < slots; i++) {
+                int candidate = (start + i) % slots;
+                Boolean acquired = stringRedisTemplate.opsForValue()
+                        .setIfAbsent(WORKER_PREFIX + candidate, nodeId, leaseTtl);
+                if (Boolean.TRUE.equals(acquired)) {
+                    return candidate;
+                }
+            }
+            log.error("All {} worker IDs are leased", slots);
+        } catch (Exception e) {
+            log.warn("Failed to lease worker ID from Redis", e);
+        }
+        return -1;
+    }
+
+    private long readLastTimestamp(int workerId) {
+        try {
+            String value = stringRedisTemplate.opsForValue().get(WORKER_PREFIX + workerId + LAST_TIMESTAMP_SUFFIX);
+            return value == null ? 0 : Long.parseLong(value);
+        } catch (Exception e) {
+            log.warn("Failed to read last ID timestamp for worker {}", workerId, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Keep the worker lease alive and record the last issued timestamp
+     */
+    @Scheduled(fixedDelayString = "${pinshop.id.renew-interval-ms:10000}")
+    public synchronized void renewLease() {
+        if (!leased) {
+            return;
+        }
+        if (suspended) {
+            switchWorkerId();
+            return;
+        }
+        SnowflakeIdGenerator current = generator;
+        int workerId = current.workerId();
+        String key = WORKER_PREFIX + workerId;
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT,
+                    List.of(key, key + LAST_TIMESTAMP_SUFFIX),
+                    nodeId, Long.toString(leaseTtl.toSeconds()), Long.toString(current.lastTimestamp()));
+            if (renewed == null || renewed == 0) {
+                // Lease expired (e.g. long GC pause or Redis failover): take it back if still free
+                Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key, nodeId, leaseTtl);
+                if (!Boolean.TRUE.equals(acquired)) {
+                    suspended = true;
+                    log.error("Worker ID {} lease lost to another node, suspending ID generation", workerId);
+                    switchWorkerId();
+                    return;
+                }
+            }
+            lastRenewNanos = System.nanoTime();
+        } catch (Exception e) {
+            log.warn("Failed to renew worker ID lease: workerId={}", workerId, e);
+            if (System.nanoTime() - lastRenewNanos >= leaseTtl.toNanos()) {
+                // The lease may have expired and been taken by another node by now
+                suspended = true;
+                log.error("Worker ID {} lease not renewed for {}s, suspending ID generation",
+                        workerId, leaseTtl.toSeconds());
+            }
+        }
+    }
+
+    /**
+     * Lease a fresh worker ID and resume issuing IDs under it (stays suspended if none is free)
+     */
+    private void switchWorkerId() {
+        int workerId = leaseWorkerId();
+        if (workerId < 0) {
+            return;
+        }
+        SnowflakeIdGenerator previous = generator;
+        long lastTimestamp = readLastTimestamp(workerId);
+        if (previous != null) {
+            lastTimestamp = Math.max(lastTimestamp, previous.lastTimestamp());
+        }
+        generator = new SnowflakeIdGenerator(workerId, lastTimestamp, maxBackwardMillis);
+        lastRenewNanos = System.nanoTime();
+        suspended = false;
+        log.warn("ID generation resumed under worker ID {}", workerId);
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (!leased || suspended) {
+            return;
+        }
+        // Persist the last timestamp, then free the worker ID for other nodes
+        renewLease();
+        try {
+            String key = WORKER_PREFIX + generator.workerId();
+            if (nodeId.equals(stringRedisTemplate.opsForValue().get(key))) {
+                stringRedisTemplate.delete(key);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to release worker ID lease", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.flashbuy.infrastructure.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, time-ordered 64-bit ID generator (Snowflake layout)
+ *
+ * | 1 bit 0 | 41 bits millis since EPOCH | 10 bits worker | 12 bits sequence |
+ *
+ * State is a single AtomicLong of (millis << 12 | sequence), advanced by CAS:
+ * - A new millisecond resets the sequence to 0
+ * - Sequence exhaustion carries into the next millisecond (borrowed ahead of the clock)
+ * - A clock that moves backwards keeps issuing from the last timestamp, so IDs
+ *   stay unique and increasing; beyond maxBackwardMillis generation fails instead
+ */
+public class SnowflakeIdGenerator {
+
+    // 2024-01-01T00:00:00Z
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private final long workerBits;
+    private final long maxBackwardMillis;
+    private final LongSupplier clock;
+    private final AtomicLong state;
+
+    public SnowflakeIdGenerator(int workerId, long lastTimestamp, long maxBackwardMillis) {
+        this(workerId, lastTimestamp, maxBackwardMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param workerId          0..1023, unique among live generators
+     * @param lastTimestamp     Last wall-clock millis this worker ID may have issued (0 if unknown)
+     * @param maxBackwardMillis How far the logical clock may run ahead of the wall clock
+     */
+    SnowflakeIdGenerator(int workerId, long lastTimestamp, long maxBackwardMillis, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID out of range: " + workerId);
+        }
+        this.workerBits = (long) workerId << SEQUENCE_BITS;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.clock = clock;
+        long start = Math.max(lastTimestamp + 1, clock.getAsLong()) - EPOCH;
+        this.state = new AtomicLong(start << SEQUENCE_BITS);
+    }
+
+    public long nextId() {
+        return compose(reserve(1));
+    }
+
+    /**
+     * Reserve n consecutive IDs with a single CAS
+     */
+    public long[] nextIds(int n) {
+        if (n <= 0) {
+            return new long[0];
+        }
+        long first = reserve(n);
+        long[] ids = new long[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = compose(first + i);
+        }
+        return ids;
+    }
+
+    /**
+     * Wall-clock millis of the last issued ID (persisted so a restart never reuses it)
+     */
+    public long lastTimestamp() {
+        return (state.get() >>> SEQUENCE_BITS) + EPOCH;
+    }
+
+    public int workerId() {
+        return (int) (workerBits >>> SEQUENCE_BITS);
+    }
+
+    /**
+     * @return First reserved (millis << 12 | sequence) position
+     */
+    private long reserve(int n) {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            long first = Math.max(current + 1, now << SEQUENCE_BITS);
+            long last = first + n - 1;
+
+            long ahead = (last >>> SEQUENCE_BITS) - now;
+            if (ahead > maxBackwardMillis) {
+                throw new IllegalStateException("Clock moved backwards or ID rate too high: logical clock "
+                        + ahead + "ms ahead of wall clock");
+            }
+            if (state.compareAndSet(current, last)) {
+                return first;
+            }
+        }
+    }
+
+    private long compose(long position) {
+        long millis = position >>> SEQUENCE_BITS;
+        long sequence = position & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (WORKER_BITS + SEQUENCE_BITS)) | workerBits | sequence;
+    }
+}
@@ -0,0 +1,122 @@
+package com.flashbuy.infrastructure.metrics;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts SQL queries per thread (MyBatis Executor plugin, picked up by MyBatis-Flex as a bean)
+ *
+ * measure() attributes the queries a piece of work issues on the calling thread to a named
+ * operation, so e.g. "queries per flash-list load" can be read instead of guessed
+ *
+ * Read through GET /api/v1/admin/product/metrics/queries
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                        CacheKey.class, BoundSql.class})
+})
+public class QueryCounter implements Interceptor {
+
+    // Queries issued by the current thread (never reset, callers take differences)
+    private static final ThreadLocal<long[]> THREAD_QUERIES = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private volatile Instant since = Instant.now();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        THREAD_QUERIES.get()[0]++;
+        total.increment();
+        return invocation.proceed();
+    }
+
+    /**
+     * Queries issued by the current thread so far
+     */
+    public long current() {
+        return THREAD_QUERIES.get()[0];
+    }
+
+    /**
+     * Run work and record how many queries it issued under the operation name
+     */
+    public <T> T measure(String operation, Supplier<T> work) {
+        long before = current();
+        try {
+            return work.get();
+        } finally {
+            record(operation, current() - before);
+        }
+    }
+
+    public void record(String operation, long queries) {
+        operations.computeIfAbsent(operation, k -> new Operation()).record(queries);
+    }
+
+    /**
+     * Queries per operation (calls, total, max per call) since the last reset
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> perOperation = new TreeMap<>();
+        operations.forEach((name, operation) -> perOperation.put(name, operation.snapshot()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since.toString());
+        result.put("queries", total.sum());
+        result.put("operations", perOperation);
+        return result;
+    }
+
+    public void reset() {
+        total.reset();
+        operations.clear();
+        since = Instant.now();
+    }
+
+    private static final class Operation {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(long count) {
+            calls.increment();
+            queries.add(count);
+            max.accumulateAndGet(count, Math::max);
+        }
+
+        private Map<String, Object> snapshot() {
+            long callCount = calls.sum();
+            long queryCount = queries.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("calls", callCount);
+            stats.put("queries", queryCount);
+            stats.put("perCall", callCount == 0 ? 0.0 : Math.round(queryCount * 10.0 / callCount) / 10.0);
+            stats.put("maxPerCall", max.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.flashbuy.infrastructure.mq;
+
+import com.flashbuy.application.seckill.TradeOrderMessage;
+
+/**
+ * Hands a successful stock deduction over to asynchronous order creation
+ *
+ * Implementations (pinshop.seckill.order-dispatch):
+ * - rocketmq: SeckillOrderProducer, consumed by SeckillOrderConsumer (default)
+ * - ring:     RingBufferOrderDispatcher, in-JVM pipeline without a broker (opt-in, not durable)
+ * - none:     no dispatcher; deductions go to the local OrderJournal
+ */
+public interface OrderDispatcher {
+
+    /**
+     * Dispatch an order creation message
+     *
+     * @return true if the message was accepted, false if the caller should roll back the stock
+     */
+    boolean dispatch(TradeOrderMessage message);
+
+    /**
+     * Messages accepted on this node whose order has not been handed off yet
+     * (still queued locally); their stock is deducted but not yet in trade_order
+     */
+    default long backlog() {
+        return 0;
+    }
+}
@@ -0,0 +1,393 @@
+package com.flashbuy.infrastructure.mq.journal;
+
+import com.flashbuy.application.seckill.TradeOrderMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped write-ahead journal for deducted stock
+ * Every successful deduction that could not be handed to MQ is written here,
+ * so the order can still be created later instead of the stock silently vanishing
+ *
+ * Layout:
+ * - Segment files journal-{firstSeq}.seg, preallocated and mapped read-write
+ * - Record: [int length][long seq][int crc32c(seq + payload)][payload]
+ * - A zero length marks the end of written data (fresh segments are zero-filled)
+ * - journal.checkpoint holds the last replayed sequence
+ *
+ * Appends are a buffer copy under a short lock, no syscall; the mapped pages
+ * are forced to disk as a group on a fixed interval
+ */
+public class OrderJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "journal.checkpoint";
+
+    // length + seq + crc
+    private static final int HEADER_BYTES = 4 + 8 + 4;
+    // userId, eventId, skuId, count, timestamp, queueId length
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 8 + 4 + 8 + 2;
+    private static final int MAX_QUEUE_ID_BYTES = 256;
+
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocate(HEADER_BYTES + FIXED_PAYLOAD_BYTES + MAX_QUEUE_ID_BYTES));
+    private static final ThreadLocal<CRC32C> CRC = ThreadLocal.withInitial(CRC32C::new);
+
+    private record Segment(long firstSeq, Path path, MappedByteBuffer buffer) {
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final Path checkpointPath;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private final ScheduledExecutorService fsyncTimer;
+
+    // Written under appendLock, read by the fsync thread
+    private volatile Segment active;
+    // Guarded by appendLock
+    private long nextSeq;
+    // Published after the record bytes are in place
+    private volatile long lastSeq;
+    private volatile long checkpoint;
+    private volatile boolean dirty;
+
+    public OrderJournal(Path dir, int segmentBytes, long fsyncIntervalMillis) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.checkpointPath = dir.resolve(CHECKPOINT_FILE);
+        this.checkpoint = readCheckpoint();
+
+        openSegments();
+
+        this.fsyncTimer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("order-journal-fsync").daemon().factory());
+        this.fsyncTimer.scheduleWithFixedDelay(this::fsync, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append a deducted-stock record
+     *
+     * @return false if the record could not be written (caller should roll back)
+     */
+    public boolean append(TradeOrderMessage message) {
+        ByteBuffer record = SCRATCH.get().clear();
+        if (!encode(message, record)) {
+            log.error("Order message too large for journal: {}", message);
+            return false;
+        }
+        int length = record.position() - HEADER_BYTES;
+
+        appendLock.lock();
+        try {
+            if (active.buffer().remaining() < record.position() + 4) {
+                roll();
+            }
+            long seq = nextSeq;
+            record.putLong(4, seq);
+            CRC32C crc = CRC.get();
+            crc.reset();
+            crc.update(record.array(), 4, 8);
+            crc.update(record.array(), HEADER_BYTES, length);
+            record.putInt(12, (int) crc.getValue());
+
+            // Write body first and the length last, so a reader never sees a half record
+            MappedByteBuffer buffer = active.buffer();
+            int start = buffer.position();
+            buffer.put(start + 4, record.array(), 4, record.position() - 4);
+            buffer.putInt(start, length);
+            buffer.position(start + record.position());
+
+            nextSeq = seq + 1;
+            lastSeq = seq;
+            dirty = true;
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to roll order journal segment", e);
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Records written but not yet replayed
+     */
+    public long backlog() {
+        return lastSeq - checkpoint;
+    }
+
+    /**
+     * Feed every record after the checkpoint to the handler, in order
+     * Stops at the first handler failure; that record is retried on the next call
+     *
+     * @return Number of records replayed
+     */
+    public int replay(Consumer<TradeOrderMessage> handler) {
+        if (!replayLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long upTo = lastSeq;
+            long done = checkpoint;
+            if (done >= upTo) {
+                return 0;
+            }
+
+            int replayed = 0;
+            try {
+                segments:
+                for (Segment segment : snapshotSegments()) {
+                    ByteBuffer reader = segment.buffer().duplicate();
+                    reader.position(0);
+                    while (reader.remaining() >= HEADER_BYTES) {
+                        // Never read past the published sequence: later records may still be in flight
+                        if (done >= upTo) {
+                            break segments;
+                        }
+                        int length = reader.getInt(reader.position());
+                        if (length <= 0) {
+                            break;
+                        }
+                        long seq = reader.getLong(reader.position() + 4);
+                        if (seq > done) {
+                            handler.accept(decode(reader, length));
+                            done = seq;
+                            replayed++;
+                        }
+                        reader.position(reader.position() + HEADER_BYTES + length);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Order journal replay stopped at seq={}", done + 1, e);
+            }
+
+            if (replayed > 0) {
+                writeCheckpoint(done);
+                deleteReplayedSegments();
+            }
+            return replayed;
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    private List<Segment> snapshotSegments() {
+        appendLock.lock();
+        try {
+            return new ArrayList<>(segments.values());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static boolean encode(TradeOrderMessage message, ByteBuffer record) {
+        byte[] queueId = message.queueId() == null ? null : message.queueId().getBytes(StandardCharsets.UTF_8);
+        if (queueId != null && queueId.length > MAX_QUEUE_ID_BYTES) {
+            return false;
+        }
+        record.position(HEADER_BYTES);
+        record.putLong(message.userId());
+        record.putLong(message.eventId());
+        record.putLong(message.skuId());
+        record.putInt(message.count());
+        record.putLong(message.timestamp());
+        if (queueId == null) {
+            record.putShort((short) -1);
+        } else {
+            record.putShort((short) queueId.length);
+            record.put(queueId);
+        }
+        return true;
+    }
+
+    private static TradeOrderMessage decode(ByteBuffer reader, int length) {
+        ByteBuffer payload = reader.slice(reader.position() + HEADER_BYTES, length);
+        long userId = payload.getLong();
+        long eventId = payload.getLong();
+        long skuId = payload.getLong();
+        int count = payload.getInt();
+        long timestamp = payload.getLong();
+        short queueIdLength = payload.getShort();
+        String queueId = null;
+        if (queueIdLength >= 0) {
+            byte[] bytes = new byte[queueIdLength];
+            payload.get(bytes);
+            queueId = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new TradeOrderMessage(userId, eventId, skuId, count, timestamp, queueId);
+    }
+
+    /**
+     * Map existing segments and find the end of valid data
+     * A record with a bad CRC ends the scan (torn write from a crash); its segment is the active one
+     */
+    private void openSegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(dir)) {
+            paths = files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList();
+        }
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            long firstSeq = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            segments.put(firstSeq, new Segment(firstSeq, path, map(path, Math.max(segmentBytes, (int) Files.size(path)))));
+        }
+
+        long last = checkpoint;
+        for (Segment segment : segments.values()) {
+            MappedByteBuffer buffer = segment.buffer();
+            buffer.position(0);
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt(start);
+                if (length <= 0 || start + HEADER_BYTES + length > buffer.limit()) {
+                    break;
+                }
+                long seq = buffer.getLong(start + 4);
+                if (!validCrc(buffer, start, length)) {
+                    log.warn("Order journal: corrupt record at seq={} in {}, truncating", seq, segment.path());
+                    // Zero the torn record so it is overwritten cleanly
+                    for (int i = start; i < start + HEADER_BYTES + length; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    break;
+                }
+                last = Math.max(last, seq);
+                buffer.position(start + HEADER_BYTES + length);
+            }
+        }
+
+        this.lastSeq = last;
+        this.nextSeq = last + 1;
+        if (segments.isEmpty()) {
+            active = createSegment(nextSeq);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        if (last > checkpoint) {
+            log.info("Order journal opened with {} unreplayed records", last - checkpoint);
+        }
+    }
+
+    private static boolean validCrc(ByteBuffer buffer, int start, int length) {
+        CRC32C crc = CRC.get();
+        crc.reset();
+        crc.update(buffer.slice(start + 4, 8));
+        crc.update(buffer.slice(start + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(start + 12);
+    }
+
+    private void roll() throws IOException {
+        active.buffer().force();
+        active = createSegment(nextSeq);
+    }
+
+    private Segment createSegment(long firstSeq) throws IOException {
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        Segment segment = new Segment(firstSeq, path, map(path, segmentBytes));
+        segments.put(firstSeq, segment);
+        return segment;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Drop segments whose records are all replayed (never the active one)
+     */
+    private void deleteReplayedSegments() {
+        appendLock.lock();
+        try {
+            while (segments.size() > 1) {
+                Map.Entry<Long, Segment> first = segments.firstEntry();
+                Long nextFirstSeq = segments.higherKey(first.getKey());
+                if (nextFirstSeq - 1 > checkpoint) {
+                    return;
+                }
+                segments.remove(first.getKey());
+                Files.deleteIfExists(first.getValue().path());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete replayed journal segment", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void fsync() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            active.buffer().force();
+        } catch (RuntimeException e) {
+            dirty = true;
+            log.error("Failed to fsync order journal", e);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        String content = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim();
+        return content.isEmpty() ? 0 : Long.parseLong(content);
+    }
+
+    private void writeCheckpoint(long seq) {
+        try {
+            Path tmp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(tmp, Long.toString(seq), StandardCharsets.UTF_8);
+            Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = seq;
+        } catch (IOException e) {
+            // Records after the old checkpoint are replayed again next time
+            log.error("Failed to write order journal checkpoint: seq={}", seq, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        fsyncTimer.shutdown();
+        appendLock.lock();
+        try {
+            active.buffer().force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
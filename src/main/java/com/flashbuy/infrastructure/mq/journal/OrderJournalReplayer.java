@@ -0,0 +1,42 @@
+package com.flashbuy.infrastructure.mq.journal;
+
+import com.flashbuy.application.seckill.SeckillOrderCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates orders for journaled deductions
+ * Runs at startup and then periodically; a record whose order cannot be
+ * created yet (database down) is retried on the next run
+ */
+@Component
+public class OrderJournalReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournalReplayer.class);
+
+    private final ObjectProvider<OrderJournal> orderJournal;
+    private final SeckillOrderCreator seckillOrderCreator;
+
+    public OrderJournalReplayer(
+            ObjectProvider<OrderJournal> orderJournal,
+            SeckillOrderCreator seckillOrderCreator) {
+        this.orderJournal = orderJournal;
+        this.seckillOrderCreator = seckillOrderCreator;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${pinshop.seckill.journal.replay-interval-ms:5000}")
+    public void replay() {
+        OrderJournal journal = orderJournal.getIfAvailable();
+        if (journal == null || journal.backlog() <= 0) {
+            return;
+        }
+
+        int replayed = journal.replay(seckillOrderCreator::create);
+        if (replayed > 0) {
+            log.info("Replayed {} journaled seckill orders, backlog={}", replayed, journal.backlog());
+        }
+    }
+}
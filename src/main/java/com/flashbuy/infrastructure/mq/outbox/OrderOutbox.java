@@ -0,0 +1,370 @@
+package com.flashbuy.infrastructure.mq.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashbuy.application.seckill.TradeOrderMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only outbox for order messages
+ * Lets the seckill path hand a message off and return immediately,
+ * while a background sender delivers it to the broker in batches
+ *
+ * Durability:
+ * 1. Every message gets a sequence number and is written to the active segment
+ *    ({seq}\t{json} lines) before it is queued, so once offer() returns it sits in the
+ *    page cache and survives a process crash
+ * 2. The fsync task forces the segment to disk every interval instead of per message;
+ *    only an OS crash or power loss can take the last interval with it
+ * 3. outbox.ack holds the last sequence the broker acknowledged;
+ *    anything after it is re-queued on startup, so nothing is lost across restarts
+ * 4. Segments are files outbox-{firstSeq}.log; the active one is rolled once it reaches
+ *    the segment size, and a segment whose entries are all acknowledged is deleted,
+ *    so the outbox stays bounded even when the sender never fully catches up
+ *
+ * The in-memory queue is bounded: when it is full offer() fails fast
+ * and the caller rolls the stock back, exactly like a failed synchronous send
+ */
+public class OrderOutbox implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutbox.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACK_FILE = "outbox.ack";
+
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    /**
+     * Delivers one batch; throws if the broker did not accept it
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+        void send(List<TradeOrderMessage> batch) throws Exception;
+    }
+
+    private record Entry(long seq, TradeOrderMessage message) {
+    }
+
+    private final Path dir;
+    private final Path ackPath;
+    private final int capacity;
+    private final int batchSize;
+    private final long segmentBytes;
+    private final BatchSender sender;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService fsyncTimer;
+    private final Thread senderThread;
+
+    // Guarded by appendLock
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel channel;
+    private long nextSeq;
+
+    private volatile long ackedSeq;
+    private volatile boolean running = true;
+
+    public OrderOutbox(Path dir, int capacity, int batchSize, long segmentBytes, long fsyncIntervalMillis,
+                       BatchSender sender) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.ackPath = dir.resolve(ACK_FILE);
+        this.capacity = capacity;
+        this.batchSize = Math.max(1, batchSize);
+        this.segmentBytes = segmentBytes;
+        this.sender = sender;
+
+        this.ackedSeq = readAck();
+        this.nextSeq = recover() + 1;
+        this.channel = openSegment(nextSeq);
+        deleteAckedSegments();
+
+        this.fsyncTimer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("order-outbox-fsync").daemon().factory());
+        this.fsyncTimer.scheduleWithFixedDelay(this::flush, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+
+        this.senderThread = Thread.ofPlatform().name("order-outbox-sender").daemon().start(this::drainLoop);
+    }
+
+    /**
+     * Append a message and queue it for sending
+     *
+     * @return false if the outbox is full or the message cannot be encoded (caller should roll back)
+     */
+    public boolean offer(TradeOrderMessage message) {
+        appendLock.lock();
+        try {
+            if (!running || queue.size() >= capacity) {
+                return false;
+            }
+            long seq = nextSeq;
+            byte[] line = (seq + "\t" + MAPPER.writeValueAsString(message) + "\n").getBytes(StandardCharsets.UTF_8);
+            if (channel.size() >= segmentBytes) {
+                roll(seq);
+            }
+            write(ByteBuffer.wrap(line));
+            nextSeq++;
+            queue.add(new Entry(seq, message));
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to append order message to outbox: {}", message, e);
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Messages accepted but not yet acknowledged by the broker
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Messages accepted but not yet acknowledged by the broker, including the batch being sent
+     */
+    public long unacknowledged() {
+        appendLock.lock();
+        try {
+            return Math.max(0, nextSeq - 1 - ackedSeq);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                if (!sendWithRetry(batch)) {
+                    // Shutting down - unsent entries stay in the log for the next start
+                    return;
+                }
+                writeAck(batch.get(batch.size() - 1).seq());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Order outbox sender error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean sendWithRetry(List<Entry> batch) throws InterruptedException {
+        List<TradeOrderMessage> messages = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            messages.add(entry.message());
+        }
+
+        long backoff = 100;
+        while (running) {
+            try {
+                sender.send(messages);
+                return true;
+            } catch (Exception e) {
+                log.warn("Order outbox batch send failed, retrying in {}ms: size={}", backoff, messages.size(), e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append one line to the active segment
+     * A failed write is cut off again so a torn line cannot swallow the next one
+     */
+    private void write(ByteBuffer bytes) throws IOException {
+        long size = channel.size();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            channel.truncate(size);
+            throw e;
+        }
+    }
+
+    /**
+     * Fsync the active segment, then drop segments the broker has fully acknowledged
+     * The force runs outside appendLock so offer() is never held up by the disk
+     */
+    private void flush() {
+        FileChannel active;
+        appendLock.lock();
+        try {
+            active = channel;
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            active.force(false);
+        } catch (ClosedChannelException e) {
+            // Rolled meanwhile; roll() forced it before closing
+        } catch (IOException e) {
+            log.error("Failed to fsync order outbox", e);
+        }
+
+        appendLock.lock();
+        try {
+            deleteAckedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll(long firstSeq) throws IOException {
+        channel.force(true);
+        channel.close();
+        channel = openSegment(firstSeq);
+    }
+
+    private FileChannel openSegment(long firstSeq) throws IOException {
+        Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        segments.put(firstSeq, path);
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Drop segments whose entries are all acknowledged (never the active one)
+     */
+    private void deleteAckedSegments() {
+        try {
+            while (segments.size() > 1) {
+                Map.Entry<Long, Path> first = segments.firstEntry();
+                Long nextFirstSeq = segments.higherKey(first.getKey());
+                if (nextFirstSeq - 1 > ackedSeq) {
+                    return;
+                }
+                segments.remove(first.getKey());
+                Files.deleteIfExists(first.getValue());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete acknowledged outbox segment", e);
+        }
+    }
+
+    private void writeAck(long seq) throws IOException {
+        Path tmp = ackPath.resolveSibling(ACK_FILE + ".tmp");
+        Files.writeString(tmp, Long.toString(seq), StandardCharsets.UTF_8);
+        Files.move(tmp, ackPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ackedSeq = seq;
+    }
+
+    private long readAck() throws IOException {
+        if (!Files.exists(ackPath)) {
+            return 0;
+        }
+        String content = Files.readString(ackPath, StandardCharsets.UTF_8).trim();
+        return content.isEmpty() ? 0 : Long.parseLong(content);
+    }
+
+    /**
+     * Re-queue every logged message after the last ack, segment by segment in sequence order
+     *
+     * @return Highest sequence found (or the ack if the log is empty)
+     */
+    private long recover() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(p -> {
+                        String name = p.getFileName().toString();
+                        segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), p);
+                    });
+        }
+
+        long lastSeq = ackedSeq;
+        int recovered = 0;
+        for (Path path : segments.values()) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab < 0) {
+                        // Torn write at the tail from a crash
+                        log.warn("Skipping malformed outbox line in {}", path.getFileName());
+                        continue;
+                    }
+                    long seq = Long.parseLong(line.substring(0, tab));
+                    lastSeq = Math.max(lastSeq, seq);
+                    if (seq <= ackedSeq) {
+                        continue;
+                    }
+                    try {
+                        queue.add(new Entry(seq, MAPPER.readValue(line.substring(tab + 1), TradeOrderMessage.class)));
+                        recovered++;
+                    } catch (IOException e) {
+                        log.warn("Skipping unreadable outbox entry: seq={}", seq, e);
+                    }
+                }
+            }
+        }
+        if (recovered > 0) {
+            log.info("Order outbox recovered {} unsent messages", recovered);
+        }
+        return lastSeq;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        senderThread.interrupt();
+        fsyncTimer.shutdown();
+        try {
+            fsyncTimer.awaitTermination(5, TimeUnit.SECONDS);
+            senderThread.join(5000);
+            flush();
+            appendLock.lock();
+            try {
+                channel.force(true);
+                channel.close();
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("Failed to close order outbox", e);
+        }
+    }
+}
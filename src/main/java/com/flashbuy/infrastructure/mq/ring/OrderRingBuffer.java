@@ -0,0 +1,94 @@
+package com.flashbuy.infrastructure.mq.ring;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer
+ *
+ * Each slot carries a sequence number (Vyukov bounded queue):
+ * - seq == pos          slot free for the producer claiming position pos
+ * - seq == pos + 1      slot published, readable by the consumer at pos
+ * - seq == pos + size   slot released for the next lap
+ *
+ * Producers claim a position with one CAS and never block; a full ring
+ * makes offer() return false instead of waiting
+ */
+public class OrderRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only touched by the single consumer thread
+    private long head;
+
+    public OrderRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish an element (any thread)
+     *
+     * @return false if the ring is full
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // diff > 0: another producer took this position, reload tail
+        }
+    }
+
+    /**
+     * Move up to max published elements into the target list (consumer thread only)
+     * Stops at the first slot that is claimed but not yet published
+     *
+     * @return Number of elements drained
+     */
+    public int drainTo(List<E> target, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            target.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Approximate number of claimed, not yet consumed elements
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
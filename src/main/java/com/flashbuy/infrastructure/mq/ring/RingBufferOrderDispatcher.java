@@ -0,0 +1,145 @@
+package com.flashbuy.infrastructure.mq.ring;
+
+import com.flashbuy.application.seckill.SeckillOrderBatchWriter;
+import com.flashbuy.application.seckill.SeckillOrderCreator;
+import com.flashbuy.application.seckill.SeckillRollback;
+import com.flashbuy.application.seckill.TradeOrderMessage;
+import com.flashbuy.infrastructure.cache.SeckillResultStore;
+import com.flashbuy.infrastructure.mq.OrderDispatcher;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-JVM order pipeline, a broker-less stand-in for RocketMQ
+ * Request threads publish into a lock-free ring; one consumer thread drains it
+ * in batches and creates the orders (one multi-row insert per batch)
+ *
+ * Messages live only in memory: anything still queued when the JVM dies is lost,
+ * so this is meant for staging, edge nodes and single-box benchmarks
+ *
+ * An order that still fails after the retries is given up: its deduction is rolled back
+ * (stock, buyer claim and quota) and the ticket is marked failed, so the user may try again
+ *
+ * Opt-in only, with pinshop.seckill.order-dispatch=ring
+ */
+@Component
+@ConditionalOnProperty(prefix = "pinshop.seckill", name = "order-dispatch", havingValue = "ring")
+public class RingBufferOrderDispatcher implements OrderDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(RingBufferOrderDispatcher.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final OrderRingBuffer<TradeOrderMessage> ring;
+    private final SeckillOrderCreator seckillOrderCreator;
+    private final SeckillOrderBatchWriter seckillOrderBatchWriter;
+    private final SeckillResultStore seckillResultStore;
+    private final SeckillRollback seckillRollback;
+    private final int batchSize;
+    private final Thread consumer;
+
+    private volatile boolean running = true;
+    // Size of the batch the consumer is working on
+    private volatile int processing;
+
+    public RingBufferOrderDispatcher(
+            SeckillOrderCreator seckillOrderCreator,
+            SeckillOrderBatchWriter seckillOrderBatchWriter,
+            SeckillResultStore seckillResultStore,
+            SeckillRollback seckillRollback,
+            @Value("${pinshop.seckill.ring.capacity:65536}") int capacity,
+            @Value("${pinshop.seckill.ring.batch-size:256}") int batchSize) {
+        this.ring = new OrderRingBuffer<>(capacity);
+        this.seckillOrderCreator = seckillOrderCreator;
+        this.seckillOrderBatchWriter = seckillOrderBatchWriter;
+        this.seckillResultStore = seckillResultStore;
+        this.seckillRollback = seckillRollback;
+        this.batchSize = Math.max(1, batchSize);
+        this.consumer = Thread.ofPlatform().name("order-ring-consumer").daemon().start(this::consumeLoop);
+    }
+
+    @Override
+    public boolean dispatch(TradeOrderMessage message) {
+        return running && ring.offer(message);
+    }
+
+    @Override
+    public long backlog() {
+        return ring.size() + processing;
+    }
+
+    private void consumeLoop() {
+        List<TradeOrderMessage> batch = new ArrayList<>(batchSize);
+        int idle = 0;
+        while (running || ring.size() > 0) {
+            if (ring.drainTo(batch, batchSize) == 0) {
+                // Spin briefly for low latency, then back off
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                continue;
+            }
+            idle = 0;
+            processing = batch.size();
+            if (seckillOrderBatchWriter.isEnabled()) {
+                // One multi-row insert per drained batch; only failed messages are retried
+                for (TradeOrderMessage message : seckillOrderBatchWriter.write(batch)) {
+                    createWithRetry(message);
+                }
+            } else {
+                for (TradeOrderMessage message : batch) {
+                    createWithRetry(message);
+                }
+            }
+            batch.clear();
+            processing = 0;
+        }
+    }
+
+    private void createWithRetry(TradeOrderMessage message) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                seckillOrderCreator.create(message);
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to create seckill order (attempt {}/{}): {}", attempt, MAX_ATTEMPTS, message, e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50L * attempt));
+            }
+        }
+        log.error("Giving up on seckill order, rolling back its deduction: {}", message);
+        try {
+            seckillRollback.rollback(message);
+        } catch (Exception e) {
+            // Left to the stock reconciler
+            log.error("Failed to roll back seckill deduction: {}", message, e);
+        }
+        seckillResultStore.markFailed(message.queueId(), "Order creation failed");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Stop accepting, let the consumer drain what is already queued
+        running = false;
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ring.size() > 0) {
+            log.warn("Order ring shut down with {} unprocessed messages", ring.size());
+        }
+    }
+}
@@ -1,92 +1,72 @@
 package com.flashbuy.infrastructure.mq.rocketmq;
 
+import com.flashbuy.application.seckill.SeckillOrderBatchWriter;
+import com.flashbuy.application.seckill.SeckillOrderCreator;
 import com.flashbuy.application.seckill.TradeOrderMessage;
-import com.flashbuy.domain.item.entity.FlashItem;
-import com.flashbuy.domain.item.mapper.FlashItemMapper;
-import com.flashbuy.domain.trade.entity.TradeOrder;
-import com.flashbuy.domain.trade.mapper.TradeOrderMapper;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * RocketMQ Consumer for Seckill Orders
  * Async order creation to decouple from inventory deduction
+ *
+ * Batch mode (pinshop.seckill.order-batch.enabled): each consume thread hands its
+ * message to SeckillOrderBatchWriter and waits for the batch commit, so messages
+ * from all consume threads share one multi-row insert; a message is only acked
+ * once its order is committed, and a failure still triggers the broker retry
+ *
+ * Active with pinshop.seckill.order-dispatch=rocketmq, the default (needs a reachable name server)
  */
-// Temporarily disabled - RocketMQ not available in test environment
-// @Component
-// @RocketMQMessageListener(
-//         topic = "seckill-order-topic",
-//         consumerGroup = "seckill-order-consumer-group"
-// )
+@Component
+@ConditionalOnProperty(prefix = "pinshop.seckill", name = "order-dispatch", havingValue = "rocketmq", matchIfMissing = true)
+@RocketMQMessageListener(
+        topic = "seckill-order-topic",
+        consumerGroup = "seckill-order-consumer-group",
+        // Enough concurrent consumers to fill a batch
+        consumeThreadNumber = 64
+)
 public class SeckillOrderConsumer implements RocketMQListener<TradeOrderMessage> {
 
     private static final Logger log = LoggerFactory.getLogger(SeckillOrderConsumer.class);
 
-    private final TradeOrderMapper tradeOrderMapper;
-    private final FlashItemMapper flashItemMapper;
-
-    // Simple ID generator (in production, use Snowflake algorithm)
-    private final AtomicLong idGenerator = new AtomicLong(10000);
+    private final SeckillOrderCreator seckillOrderCreator;
+    private final SeckillOrderBatchWriter seckillOrderBatchWriter;
+    private final long batchTimeoutMillis;
 
     public SeckillOrderConsumer(
-            TradeOrderMapper tradeOrderMapper,
-            FlashItemMapper flashItemMapper) {
-        this.tradeOrderMapper = tradeOrderMapper;
-        this.flashItemMapper = flashItemMapper;
+            SeckillOrderCreator seckillOrderCreator,
+            SeckillOrderBatchWriter seckillOrderBatchWriter,
+            @Value("${pinshop.seckill.order-batch.timeout-ms:10000}") long batchTimeoutMillis) {
+        this.seckillOrderCreator = seckillOrderCreator;
+        this.seckillOrderBatchWriter = seckillOrderBatchWriter;
+        this.batchTimeoutMillis = batchTimeoutMillis;
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void onMessage(TradeOrderMessage message) {
-        log.info("Received seckill order message: {}", message);
+        log.debug("Received seckill order message: {}", message);
 
         try {
-            // Step 1: Get flash item info
-            FlashItem flashItem = flashItemMapper.selectOneByQuery(
-                    com.mybatisflex.core.query.QueryWrapper.create()
-                            .where(FlashItem::getSkuId).eq(message.skuId())
-                            .and(FlashItem::getEventId).eq(message.eventId())
-                            .limit(1)
-            );
-
-            if (flashItem == null) {
-                log.error("Flash item not found: skuId={}", message.skuId());
-                return;
+            if (seckillOrderBatchWriter.isEnabled()) {
+                seckillOrderBatchWriter.submit(message).get(batchTimeoutMillis, TimeUnit.MILLISECONDS);
+            } else {
+                seckillOrderCreator.create(message);
             }
-
-            // Step 2: Create order
-            TradeOrder order = new TradeOrder();
-            order.setId(idGenerator.incrementAndGet());
-            order.setUserId(message.userId());
-            order.setTotalAmount(flashItem.getFlashPrice().multiply(BigDecimal.valueOf(message.count())));
-            order.setPayAmount(flashItem.getFlashPrice().multiply(BigDecimal.valueOf(message.count())));
-            order.setStatus(10); // 10: Unpaid
-            order.setOrderType("FLASH");
-            order.setMarketingId(message.eventId());
-            order.setReceiverInfo("{\"name\":\"Test User\",\"phone\":\"13800138000\",\"address\":\"Test Address\"}");
-            order.setCreateTime(LocalDateTime.now());
-            order.setExtraJson("{\"skuId\":" + message.skuId() + ",\"count\":" + message.count() + "}");
-
-            tradeOrderMapper.insert(order);
-
-            // Step 3: Update locked stock in DB
-            // In production, use optimistic lock to prevent race condition
-            // UPDATE flash_item SET lock_stock = lock_stock + 1 WHERE id = ? AND lock_stock + 1 <= flash_stock
-
-            log.info("Order created successfully: orderId={}, userId={}", order.getId(), message.userId());
-
-            // Step 4: Write order status to Redis for frontend polling
-            // TODO: Implement Redis cache for order status
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating seckill order", e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Failed to process seckill order: {}", message, e);
+            throw new IllegalStateException("Failed to create seckill order", e); // Trigger retry
         } catch (Exception e) {
             log.error("Failed to process seckill order: {}", message, e);
             throw e; // Trigger retry
@@ -1,33 +1,91 @@
 package com.flashbuy.infrastructure.mq.rocketmq;
 
 import com.flashbuy.application.seckill.TradeOrderMessage;
+import com.flashbuy.infrastructure.mq.OrderDispatcher;
+import com.flashbuy.infrastructure.mq.outbox.OrderOutbox;
+import jakarta.annotation.PreDestroy;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RocketMQ Producer for Seckill Orders
  * Async message sending to decouple order creation from inventory deduction
+ *
+ * Two modes:
+ * 1. sync (default) - syncSend inside the request, waits for the broker ack
+ * 2. async (pinshop.seckill.mq.async.enabled) - hand the message to a local
+ *    file-backed outbox and return immediately; a background sender delivers
+ *    it in batches with retries, so broker slowness never reaches user latency
+ *
+ * Active with pinshop.seckill.order-dispatch=rocketmq, the default (needs a reachable name server)
  */
-// Temporarily disabled - RocketMQ not available in test environment
-// @Component
-public class SeckillOrderProducer {
+@Component
+@ConditionalOnProperty(prefix = "pinshop.seckill", name = "order-dispatch", havingValue = "rocketmq", matchIfMissing = true)
+public class SeckillOrderProducer implements OrderDispatcher {
 
     private final RocketMQTemplate rocketMQTemplate;
+    private final OrderOutbox outbox;
+    private final long sendTimeoutMillis;
 
     private static final String TOPIC = "seckill-order-topic";
 
-    public SeckillOrderProducer(RocketMQTemplate rocketMQTemplate) {
+    public SeckillOrderProducer(
+            RocketMQTemplate rocketMQTemplate,
+            @Value("${pinshop.seckill.mq.async.enabled:false}") boolean asyncEnabled,
+            @Value("${pinshop.seckill.mq.async.outbox-dir:data/outbox}") String outboxDir,
+            @Value("${pinshop.seckill.mq.async.capacity:100000}") int capacity,
+            @Value("${pinshop.seckill.mq.async.batch-size:64}") int batchSize,
+            @Value("${pinshop.seckill.mq.async.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${pinshop.seckill.mq.async.fsync-interval-ms:100}") long fsyncIntervalMillis,
+            @Value("${rocketmq.producer.send-message-timeout:3000}") long sendTimeoutMillis) {
         this.rocketMQTemplate = rocketMQTemplate;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        if (asyncEnabled) {
+            try {
+                this.outbox = new OrderOutbox(Path.of(outboxDir), capacity, batchSize,
+                        segmentSizeMb * 1024L * 1024, fsyncIntervalMillis, this::sendBatch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open order outbox at " + outboxDir, e);
+            }
+        } else {
+            this.outbox = null;
+        }
+    }
+
+    @Override
+    public boolean dispatch(TradeOrderMessage message) {
+        return sendOrderMessage(message);
+    }
+
+    @Override
+    public long backlog() {
+        return outbox == null ? 0 : outbox.unacknowledged();
     }
 
     /**
      * Send order creation message
      * Message will be consumed asynchronously
+     *
+     * @return true if the message was sent (sync) or durably queued in the outbox (async)
      */
     public boolean sendOrderMessage(TradeOrderMessage message) {
+        if (outbox != null) {
+            return outbox.offer(message);
+        }
+
         try {
             Message<TradeOrderMessage> msg = MessageBuilder.withPayload(message).build();
             rocketMQTemplate.syncSend(TOPIC, msg);
@@ -38,4 +96,25 @@ public class SeckillOrderProducer {
             return false;
         }
     }
+
+    /**
+     * Deliver one outbox batch as a single RocketMQ batch message
+     */
+    private void sendBatch(List<TradeOrderMessage> batch) {
+        List<Message<TradeOrderMessage>> messages = new ArrayList<>(batch.size());
+        for (TradeOrderMessage message : batch) {
+            messages.add(MessageBuilder.withPayload(message).build());
+        }
+        SendResult result = rocketMQTemplate.syncSend(TOPIC, messages, sendTimeoutMillis);
+        if (result == null || result.getSendStatus() != SendStatus.SEND_OK) {
+            throw new IllegalStateException("Broker rejected batch: " + (result == null ? "null" : result.getSendStatus()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
 }
@@ -0,0 +1,16 @@
+-- Segmented Stock Transfer Apply Lua Script
+-- Credits a drained transfer to the consolidation bucket exactly once,
+-- so a transfer retried after a crash is not counted twice.
+--
+-- KEYS[1]: flash:stock:seg:{skuId:0}
+-- KEYS[2]: flash:stock:seg:applied:{skuId:0}, set of applied transfer ids
+-- ARGV[1]: transfer id
+-- ARGV[2]: units
+-- ARGV[3]: applied set TTL in seconds
+
+if redis.call('sadd', KEYS[2], ARGV[1]) == 0 then
+    return 0  -- Already applied
+end
+redis.call('expire', KEYS[2], tonumber(ARGV[3]))
+
+return redis.call('incrby', KEYS[1], tonumber(ARGV[2]))
@@ -0,0 +1,60 @@
+-- Buyer Claim Lua Script
+-- Registers a purchase of count units without touching stock (stock served from a node-local lease)
+--
+-- KEYS[1]: buyer registry key, flash:user:eventId:{skuId} (set)
+--          or flash:user:eventId:{skuId}:bm:chunk (bitmap)
+-- KEYS[2]: flash:limit:{skuId}, units one user may buy (missing: one purchase of any size)
+-- KEYS[3]: flash:quota:eventId:{skuId}, hash userId -> units bought (limits above 1 only)
+-- KEYS[4]: flash:buyers:eventId:{skuId}, buyer count of a bitmap registry
+-- ARGV[1]: userId (set) or bit offset within the chunk (bitmap)
+-- ARGV[2]: count
+-- ARGV[3]: registry encoding, 'set' or 'bitmap'
+-- ARGV[4]: userId (quota field)
+
+local user_key = KEYS[1]
+local limit_key = KEYS[2]
+local quota_key = KEYS[3]
+local count_key = KEYS[4]
+local user_id = ARGV[1]
+local count = tonumber(ARGV[2] or 1)
+local bitmap = ARGV[3] == 'bitmap'
+local quota_field = ARGV[4]
+
+local limit = tonumber(redis.call('get', limit_key) or '0')
+if limit > 0 and count > limit then
+    return -4  -- More than the per-user limit
+end
+
+if limit > 1 then
+    local bought = tonumber(redis.call('hget', quota_key, quota_field) or '0')
+    if bought >= limit then
+        return -2  -- User already bought
+    end
+    if bought + count > limit then
+        return -4  -- Would exceed the per-user limit
+    end
+    redis.call('hincrby', quota_key, quota_field, count)
+    if bitmap then
+        if redis.call('setbit', user_key, user_id, 1) == 0 then
+            redis.call('incr', count_key)
+        end
+    else
+        redis.call('sadd', user_key, user_id)
+    end
+    return 1
+end
+
+-- One purchase per user: registering is the check
+local added
+if bitmap then
+    added = redis.call('setbit', user_key, user_id, 1) == 0
+else
+    added = redis.call('sadd', user_key, user_id) == 1
+end
+if not added then
+    return -2  -- User already bought
+end
+if bitmap then
+    redis.call('incr', count_key)
+end
+return 1
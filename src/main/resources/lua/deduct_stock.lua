@@ -2,18 +2,50 @@
 -- Atomic stock check and deduction with user limit validation
 --
 -- KEYS[1]: flash:stock:{skuId}
--- KEYS[2]: flash:user:{eventId}:{skuId}
--- ARGV[1]: userId
+-- KEYS[2]: buyer registry key, flash:user:eventId:{skuId} (set)
+--          or flash:user:eventId:{skuId}:bm:chunk (bitmap)
+-- KEYS[3]: flash:limit:{skuId}, units one user may buy (missing: one purchase of any size)
+-- KEYS[4]: flash:quota:eventId:{skuId}, hash userId -> units bought (limits above 1 only)
+-- KEYS[5]: flash:buyers:eventId:{skuId}, buyer count of a bitmap registry
+-- ARGV[1]: userId (set) or bit offset within the chunk (bitmap)
 -- ARGV[2]: count (optional, default 1)
+-- ARGV[3]: registry encoding, 'set' (default) or 'bitmap'
+-- ARGV[4]: userId (quota field)
 
 local stock_key = KEYS[1]
 local user_key = KEYS[2]
+local limit_key = KEYS[3]
+local quota_key = KEYS[4]
+local count_key = KEYS[5]
 local user_id = ARGV[1]
 local count = tonumber(ARGV[2] or 1)
+local bitmap = ARGV[3] == 'bitmap'
+local quota_field = ARGV[4]
 
--- Check if user already bought
-if redis.call('sismember', user_key, user_id) == 1 then
-    return -2  -- User already bought
+local limit = tonumber(redis.call('get', limit_key) or '0')
+if limit > 0 and count > limit then
+    return -4  -- More than the per-user limit
+end
+
+-- Check if user already bought (or bought up to the limit)
+if limit > 1 then
+    local bought = tonumber(redis.call('hget', quota_key, quota_field) or '0')
+    if bought >= limit then
+        return -2  -- User already bought
+    end
+    if bought + count > limit then
+        return -4  -- Would exceed the per-user limit
+    end
+else
+    local bought
+    if bitmap then
+        bought = redis.call('getbit', user_key, user_id) == 1
+    else
+        bought = redis.call('sismember', user_key, user_id) == 1
+    end
+    if bought then
+        return -2  -- User already bought
+    end
 end
 
 -- Get current stock
@@ -27,8 +59,17 @@ end
 -- Deduct stock
 redis.call('decrby', stock_key, count)
 
--- Add user to bought set
-redis.call('sadd', user_key, user_id)
+-- Count units against the limit, add user to bought set
+if limit > 1 then
+    redis.call('hincrby', quota_key, quota_field, count)
+end
+if bitmap then
+    if redis.call('setbit', user_key, user_id, 1) == 0 then
+        redis.call('incr', count_key)
+    end
+else
+    redis.call('sadd', user_key, user_id)
+end
 
 -- Return remaining stock
 return current_stock - count
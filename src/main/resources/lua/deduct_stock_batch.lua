@@ -0,0 +1,84 @@
+-- Batched Flash Sale Stock Deduction Lua Script
+-- Decides a whole micro-batch of requests for one SKU atomically, in arrival order
+--
+-- KEYS[1]: flash:stock:{skuId}
+-- KEYS[2]: buyer registry key, flash:user:eventId:{skuId} (set)
+--          or flash:user:eventId:{skuId}:bm:chunk (bitmap)
+-- KEYS[3]: flash:limit:{skuId}, units one user may buy (missing: one purchase of any size)
+-- KEYS[4]: flash:quota:eventId:{skuId}, hash userId -> units bought (limits above 1 only)
+-- KEYS[5]: flash:buyers:eventId:{skuId}, buyer count of a bitmap registry
+-- ARGV[1]: registry encoding, 'set' or 'bitmap'
+-- ARGV[3i-1]: userId (set) or bit offset (bitmap) of request i
+-- ARGV[3i]: userId of request i (quota field)
+-- ARGV[3i+1]: count of request i
+--
+-- Returns one result per request: remaining stock, -1 (insufficient), -2 (already bought)
+-- or -4 (over the per-user limit)
+
+local stock_key = KEYS[1]
+local user_key = KEYS[2]
+local limit_key = KEYS[3]
+local quota_key = KEYS[4]
+local count_key = KEYS[5]
+local bitmap = ARGV[1] == 'bitmap'
+
+local limit = tonumber(redis.call('get', limit_key) or '0')
+local current_stock = tonumber(redis.call('get', stock_key) or '0')
+local deducted = 0
+local new_buyers = 0
+local results = {}
+
+for i = 2, #ARGV, 3 do
+    local user_id = ARGV[i]
+    local quota_field = ARGV[i + 1]
+    local count = tonumber(ARGV[i + 2] or 1)
+
+    -- Earlier requests of the same batch are already counted, so repeats are caught too
+    local verdict = 0
+    if limit > 0 and count > limit then
+        verdict = -4
+    elseif limit > 1 then
+        local bought = tonumber(redis.call('hget', quota_key, quota_field) or '0')
+        if bought >= limit then
+            verdict = -2
+        elseif bought + count > limit then
+            verdict = -4
+        end
+    elseif bitmap then
+        if redis.call('getbit', user_key, user_id) == 1 then
+            verdict = -2
+        end
+    elseif redis.call('sismember', user_key, user_id) == 1 then
+        verdict = -2
+    end
+
+    if verdict < 0 then
+        results[#results + 1] = verdict  -- Already bought / over the limit
+    elseif current_stock < count then
+        results[#results + 1] = -1  -- Insufficient stock
+    else
+        current_stock = current_stock - count
+        deducted = deducted + count
+        if limit > 1 then
+            redis.call('hincrby', quota_key, quota_field, count)
+        end
+        if bitmap then
+            if redis.call('setbit', user_key, user_id, 1) == 0 then
+                new_buyers = new_buyers + 1
+            end
+        else
+            redis.call('sadd', user_key, user_id)
+        end
+        results[#results + 1] = current_stock
+    end
+end
+
+-- One write for the whole batch
+if deducted > 0 then
+    redis.call('decrby', stock_key, deducted)
+end
+if new_buyers > 0 then
+    redis.call('incrby', count_key, new_buyers)
+end
+
+return results
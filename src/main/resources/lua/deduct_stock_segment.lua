@@ -0,0 +1,80 @@
+-- Segmented Stock Deduction Lua Script (home bucket)
+-- Atomic stock check and deduction against the buyer's home bucket
+--
+-- KEYS[1]: flash:stock:seg:{skuId:bucket}
+-- KEYS[2]: buyer registry key, flash:user:eventId:{skuId:bucket} (set)
+--          or flash:user:eventId:{skuId:bucket}:bm:chunk (bitmap)
+-- KEYS[3]: flash:limit:seg:{skuId:bucket}, units one user may buy (missing: one purchase of any size)
+-- KEYS[4]: flash:quota:eventId:{skuId:bucket}, hash userId -> units bought (limits above 1 only)
+-- KEYS[5]: flash:buyers:eventId:{skuId:bucket}, buyer count of a bitmap registry
+-- ARGV[1]: userId (set) or bit offset within the chunk (bitmap)
+-- ARGV[2]: count (optional, default 1)
+-- ARGV[3]: registry encoding, 'set' (default) or 'bitmap'
+-- ARGV[4]: userId (quota field)
+--
+-- All keys share the same hash tag so they always live on the same shard.
+
+local stock_key = KEYS[1]
+local user_key = KEYS[2]
+local limit_key = KEYS[3]
+local quota_key = KEYS[4]
+local count_key = KEYS[5]
+local user_id = ARGV[1]
+local count = tonumber(ARGV[2] or 1)
+local bitmap = ARGV[3] == 'bitmap'
+local quota_field = ARGV[4]
+
+local limit = tonumber(redis.call('get', limit_key) or '0')
+
+-- Register the buyer and count the units against the limit
+local function claim()
+    if limit > 1 then
+        redis.call('hincrby', quota_key, quota_field, count)
+    end
+    if bitmap then
+        if redis.call('setbit', user_key, user_id, 1) == 0 then
+            redis.call('incr', count_key)
+        end
+    else
+        redis.call('sadd', user_key, user_id)
+    end
+end
+
+if limit > 0 and count > limit then
+    return -4  -- More than the per-user limit
+end
+
+-- Check if user already bought (or already claimed a sibling bucket)
+if limit > 1 then
+    local bought = tonumber(redis.call('hget', quota_key, quota_field) or '0')
+    if bought >= limit then
+        return -2  -- User already bought
+    end
+    if bought + count > limit then
+        return -4  -- Would exceed the per-user limit
+    end
+else
+    local bought
+    if bitmap then
+        bought = redis.call('getbit', user_key, user_id) == 1
+    else
+        bought = redis.call('sismember', user_key, user_id) == 1
+    end
+    if bought then
+        return -2  -- User already bought
+    end
+end
+
+local current_stock = tonumber(redis.call('get', stock_key) or '0')
+
+-- Home bucket is drained: claim the user here so the caller can
+-- safely fall over to sibling buckets without a second purchase slipping in
+if current_stock < count then
+    claim()
+    return -3  -- Home bucket drained, user claimed
+end
+
+redis.call('decrby', stock_key, count)
+claim()
+
+return current_stock - count
@@ -0,0 +1,19 @@
+-- Segmented Stock Drain Lua Script
+-- Atomically empties a bucket into a pending transfer kept in the same slot,
+-- so leftovers moving into the consolidation bucket are never lost in between.
+-- apply_stock_transfer.lua credits bucket 0, then the transfer is deleted.
+--
+-- KEYS[1]: flash:stock:seg:{skuId:bucket}
+-- KEYS[2]: flash:stock:seg:transit:{skuId:bucket}, hash transferId -> units
+-- ARGV[1]: transfer id
+
+local current_stock = tonumber(redis.call('get', KEYS[1]) or '0')
+
+if current_stock <= 0 then
+    return 0
+end
+
+redis.call('set', KEYS[1], 0)
+redis.call('hset', KEYS[2], ARGV[1], current_stock)
+
+return current_stock
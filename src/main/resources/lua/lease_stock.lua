@@ -0,0 +1,24 @@
+-- Stock Lease Lua Script
+-- Atomically grabs up to one block of stock for a node-local lease
+--
+-- KEYS[1]: flash:stock:{skuId}
+-- KEYS[2]: flash:stock:gen:{skuId}, stock generation bumped on every warm-up
+-- ARGV[1]: block size
+--
+-- Returns {leased quantity, generation the units belong to}
+
+local stock_key = KEYS[1]
+local block = tonumber(ARGV[1])
+
+local generation = tonumber(redis.call('get', KEYS[2]) or '0')
+local current_stock = tonumber(redis.call('get', stock_key) or '0')
+
+if current_stock <= 0 then
+    return {0, generation}  -- Nothing left to lease
+end
+
+local take = math.min(current_stock, block)
+redis.call('decrby', stock_key, take)
+
+-- Return leased quantity
+return {take, generation}
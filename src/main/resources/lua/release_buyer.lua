@@ -0,0 +1,40 @@
+-- Buyer Release Lua Script
+-- Gives back a claim of count units that did not end in a purchase
+--
+-- KEYS[1]: buyer registry key (set or bitmap chunk)
+-- KEYS[2]: per-user limit key of the SKU
+-- KEYS[3]: quota hash, userId -> units bought
+-- KEYS[4]: buyer count of a bitmap registry
+-- ARGV[1]: userId (set) or bit offset within the chunk (bitmap)
+-- ARGV[2]: count
+-- ARGV[3]: registry encoding, 'set' or 'bitmap'
+-- ARGV[4]: userId (quota field)
+--
+-- Returns units still counted against the user
+
+local user_key = KEYS[1]
+local limit_key = KEYS[2]
+local quota_key = KEYS[3]
+local count_key = KEYS[4]
+local user_id = ARGV[1]
+local count = tonumber(ARGV[2] or 1)
+local bitmap = ARGV[3] == 'bitmap'
+local quota_field = ARGV[4]
+
+local limit = tonumber(redis.call('get', limit_key) or '0')
+if limit > 1 then
+    local left = redis.call('hincrby', quota_key, quota_field, -count)
+    if left > 0 then
+        return left  -- Earlier purchases keep the user registered
+    end
+    redis.call('hdel', quota_key, quota_field)
+end
+
+if bitmap then
+    if redis.call('setbit', user_key, user_id, 0) == 1 then
+        redis.call('decr', count_key)
+    end
+else
+    redis.call('srem', user_key, user_id)
+end
+return 0
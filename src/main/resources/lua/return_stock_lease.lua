@@ -0,0 +1,18 @@
+-- Stock Lease Return Lua Script
+-- Gives unused lease units back to Redis, unless the stock was re-initialized since they were leased
+--
+-- KEYS[1]: flash:stock:{skuId}
+-- KEYS[2]: flash:stock:gen:{skuId}
+-- ARGV[1]: unused units
+-- ARGV[2]: generation the units were leased in
+--
+-- Returns 1 if the units were returned, 0 if they belonged to an older generation and were dropped
+
+local generation = tonumber(redis.call('get', KEYS[2]) or '0')
+
+if generation ~= tonumber(ARGV[2]) then
+    return 0  -- Warm-up replaced the stock these units came from
+end
+
+redis.call('incrby', KEYS[1], tonumber(ARGV[1]))
+return 1
@@ -0,0 +1,19 @@
+-- Segmented Stock Take Lua Script (sibling bucket)
+-- Plain stock deduction used when falling over from a drained home bucket.
+-- The buyer has already been claimed in the home bucket's user set.
+--
+-- KEYS[1]: flash:stock:seg:{skuId:bucket}
+-- ARGV[1]: count (optional, default 1)
+
+local stock_key = KEYS[1]
+local count = tonumber(ARGV[1] or 1)
+
+local current_stock = tonumber(redis.call('get', stock_key) or '0')
+
+if current_stock < count then
+    return -1  -- Insufficient stock
+end
+
+redis.call('decrby', stock_key, count)
+
+return current_stock - count
@@ -50,7 +50,8 @@ CREATE TABLE `product_spu` (
   `create_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
   `update_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
   INDEX `idx_status` (`status`),
-  INDEX `idx_category` (`category_id`)
+  INDEX `idx_category` (`category_id`),
+  INDEX `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Product SPU';
 
 -- Product SKU (Stock Keeping Unit)
@@ -64,7 +65,8 @@ CREATE TABLE `product_sku` (
   `stock` int NOT NULL DEFAULT 0 COMMENT 'Available stock',
   `create_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
   `update_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
-  INDEX `idx_spu` (`spu_id`)
+  INDEX `idx_spu` (`spu_id`),
+  INDEX `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Product SKU';
 
 -- Stock ledger (financial audit)
@@ -111,7 +113,8 @@ CREATE TABLE `flash_item` (
   `create_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
   `update_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
   UNIQUE KEY `uk_event_sku` (`event_id`, `sku_id`),
-  INDEX `idx_event` (`event_id`)
+  INDEX `idx_event` (`event_id`),
+  INDEX `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Flash Sale Item';
 
 -- Group buy rule
@@ -161,7 +164,10 @@ CREATE TABLE `trade_order` (
   `create_time` datetime(3) DEFAULT CURRENT_TIMESTAMP(3),
   `pay_time` datetime(3),
   `extra_json` json COMMENT 'Extended information',
-  INDEX `idx_user` (`user_id`),
+  `queue_id` varchar(64) COMMENT 'Seckill request ticket; unique so a redelivered message never creates a second order',
+  UNIQUE KEY `uk_queue_id` (`queue_id`),
+  INDEX `idx_user_create_time` (`user_id`, `create_time`),
+  INDEX `idx_marketing_type` (`marketing_id`, `order_type`),
   INDEX `idx_status` (`status`),
   INDEX `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Trade Order';
@@ -0,0 +1,126 @@
+package com.flashbuy.application.product;
+
+import com.flashbuy.domain.item.entity.FlashItem;
+import com.flashbuy.domain.item.entity.ProductSku;
+import com.flashbuy.domain.item.entity.ProductSpu;
+import com.flashbuy.domain.item.mapper.FlashItemMapper;
+import com.flashbuy.domain.item.mapper.ProductSkuMapper;
+import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CatalogAssembler
+ * Mappers are stand-ins returning canned rows, counting every call as one query
+ */
+class CatalogAssemblerTest {
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    private <M> M mapper(Class<M> type, List<?> rows) {
+        return (M) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("select")) {
+                queries.incrementAndGet();
+                return rows;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private CatalogAssembler assembler(List<FlashItem> flashItems, List<ProductSku> skus, List<ProductSpu> spus) {
+        return new CatalogAssembler(
+                mapper(FlashItemMapper.class, flashItems),
+                mapper(ProductSkuMapper.class, skus),
+                mapper(ProductSpuMapper.class, spus));
+    }
+
+    @Test
+    void testFlashItemsQueryCountIsConstant() {
+        for (int size : new int[]{1, 10, 50}) {
+            List<FlashItem> flashItems = new ArrayList<>();
+            List<ProductSku> skus = new ArrayList<>();
+            List<ProductSpu> spus = new ArrayList<>();
+            for (long i = 1; i <= size; i++) {
+                flashItems.add(flashItem(i, 100 + i));
+                skus.add(sku(100 + i, 1000 + i));
+                spus.add(spu(1000 + i));
+            }
+
+            queries.set(0);
+            List<CatalogAssembler.Entry> entries = assembler(List.of(), skus, spus).forFlashItems(flashItems);
+
+            assertEquals(size, entries.size());
+            assertEquals(2, queries.get(), "queries for " + size + " items");
+        }
+    }
+
+    @Test
+    void testFlashItemsKeepOrderAndSkipMissing() {
+        List<FlashItem> flashItems = List.of(flashItem(1, 102), flashItem(2, 101), flashItem(3, 103));
+        // Rows come back in primary key order; SKU 103 and the SPU of 101 are gone
+        List<ProductSku> skus = List.of(sku(101, 1001), sku(102, 1002));
+        List<ProductSpu> spus = List.of(spu(1002));
+
+        List<CatalogAssembler.Entry> entries = assembler(List.of(), skus, spus).forFlashItems(flashItems);
+
+        assertEquals(1, entries.size());
+        assertEquals(102L, entries.get(0).sku().getId());
+        assertEquals(1002L, entries.get(0).spu().getId());
+        assertEquals(1L, entries.get(0).flashItem().getId());
+    }
+
+    @Test
+    void testSpusUseFirstSkuAndItsFlashItem() {
+        List<ProductSpu> spus = List.of(spu(2000), spu(1000), spu(3000));
+        List<ProductSku> skus = List.of(sku(11, 1000), sku(12, 1000), sku(21, 2000));
+        List<FlashItem> flashItems = List.of(flashItem(1, 11), flashItem(2, 11), flashItem(3, 12));
+
+        queries.set(0);
+        List<CatalogAssembler.Entry> entries = assembler(flashItems, skus, List.of()).forSpus(spus);
+
+        assertEquals(2, queries.get());
+        assertEquals(2, entries.size());
+        assertEquals(2000L, entries.get(0).spu().getId());
+        assertEquals(21L, entries.get(0).sku().getId());
+        assertNull(entries.get(0).flashItem());
+        assertEquals(1000L, entries.get(1).spu().getId());
+        assertEquals(11L, entries.get(1).sku().getId());
+        assertEquals(1L, entries.get(1).flashItem().getId());
+    }
+
+    @Test
+    void testEmptyPageRunsNoQueries() {
+        CatalogAssembler assembler = assembler(List.of(), List.of(), List.of());
+
+        assertTrue(assembler.forFlashItems(List.of()).isEmpty());
+        assertTrue(assembler.forSpus(List.of()).isEmpty());
+        assertEquals(0, queries.get());
+    }
+
+    private static FlashItem flashItem(long id, long skuId) {
+        FlashItem flashItem = new FlashItem();
+        flashItem.setId(id);
+        flashItem.setSkuId(skuId);
+        return flashItem;
+    }
+
+    private static ProductSku sku(long id, long spuId) {
+        ProductSku sku = new ProductSku();
+        sku.setId(id);
+        sku.setSpuId(spuId);
+        return sku;
+    }
+
+    private static ProductSpu spu(long id) {
+        ProductSpu spu = new ProductSpu();
+        spu.setId(id);
+        return spu;
+    }
+}
@@ -0,0 +1,90 @@
+package com.flashbuy.application.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashbuy.infrastructure.cache.LocalStockCache;
+import com.flashbuy.infrastructure.cache.StockStatusBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FlashListSnapshot
+ * Uses a ProductService stand-in whose list can be changed between refreshes
+ */
+class FlashListSnapshotTest {
+
+    private final List<String> requestedSlots = new ArrayList<>();
+    private volatile int stock = 10;
+
+    private final ProductService productService = new ProductService(null, null, null, null, null, null) {
+        @Override
+        public List<FlashProductDto> getFlashList(String timeSlot) {
+            requestedSlots.add(String.valueOf(timeSlot));
+            return List.of(new FlashProductDto(1L, "Phone", "", "", List.of(), BigDecimal.ONE, BigDecimal.TEN,
+                    BigDecimal.TEN, 100, stock, 0, 1, "", List.of(), ""));
+        }
+    };
+
+    // No Redis: publishing to other nodes fails and is only logged
+    private final StockStatusBroadcaster stockStatusBroadcaster =
+            new StockStatusBroadcaster(new LocalStockCache(60), null, new RedisMessageListenerContainer());
+
+    private final FlashListSnapshot flashListSnapshot =
+            new FlashListSnapshot(productService, new ObjectMapper(), stockStatusBroadcaster, 60_000);
+
+    @Test
+    void testBodyIsFullResultJson() {
+        FlashListSnapshot.Snapshot snapshot = flashListSnapshot.get();
+        String body = new String(snapshot.body(), StandardCharsets.UTF_8);
+
+        assertTrue(body.startsWith("{\"code\":200"));
+        assertTrue(body.contains("\"title\":\"Phone\""));
+        assertTrue(snapshot.etag().startsWith("\"") && snapshot.etag().endsWith("\""));
+    }
+
+    @Test
+    void testSnapshotIsReusedUntilListChanges() {
+        FlashListSnapshot.Snapshot first = flashListSnapshot.get();
+        assertSame(first, flashListSnapshot.get());
+
+        // Rebuilt with the same list: same snapshot, same ETag
+        flashListSnapshot.refresh();
+        assertSame(first, flashListSnapshot.get());
+
+        // Not due for a periodic rebuild, but a sold-out event forces one
+        stock = 9;
+        flashListSnapshot.refresh();
+        assertSame(first, flashListSnapshot.get());
+        stockStatusBroadcaster.markEmpty(1L);
+        flashListSnapshot.refresh();
+        FlashListSnapshot.Snapshot second = flashListSnapshot.get();
+        assertNotEquals(first.etag(), second.etag());
+        assertTrue(new String(second.body(), StandardCharsets.UTF_8).contains("\"stock\":9"));
+    }
+
+    @Test
+    void testBuiltOnceUntilRefresh() {
+        FlashListSnapshot.Snapshot snapshot = flashListSnapshot.get();
+
+        assertSame(snapshot, flashListSnapshot.get());
+        assertEquals(List.of("null"), requestedSlots);
+    }
+
+    @Test
+    void testIfNoneMatch() {
+        FlashListSnapshot.Snapshot snapshot = new FlashListSnapshot.Snapshot(new byte[0], "\"abc\"", 0);
+
+        assertTrue(snapshot.matches("\"abc\""));
+        assertTrue(snapshot.matches("W/\"abc\""));
+        assertTrue(snapshot.matches("\"x\", \"abc\""));
+        assertTrue(snapshot.matches("*"));
+        assertFalse(snapshot.matches("\"abd\""));
+        assertFalse(snapshot.matches(null));
+    }
+}
@@ -0,0 +1,110 @@
+package com.flashbuy.application.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductDetailCache
+ * Runs without Redis (every L2 call fails and is only logged), so only L1 behaviour is covered
+ */
+class ProductDetailCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ProductService productService = new ProductService(null, null, null, null, null, null) {
+        @Override
+        public FlashProductDto getFlashProduct(Long skuId) {
+            loads.incrementAndGet();
+            if (skuId < 0) {
+                return null;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new FlashProductDto(skuId, "Phone", "", "", List.of(), BigDecimal.ONE, BigDecimal.TEN,
+                    BigDecimal.TEN, 100, 10, 0, 1, "", List.of(), "");
+        }
+    };
+
+    private final ProductDetailCache productDetailCache = new ProductDetailCache(
+            productService, new StringRedisTemplate(), new ObjectMapper(), new CaffeineCacheManager(),
+            new RedisMessageListenerContainer(), 300, 100);
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<FlashProductDto>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return productDetailCache.get(1L);
+                }));
+            }
+            start.countDown();
+            for (Future<FlashProductDto> result : results) {
+                assertEquals(1L, result.get().skuId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testMissingProductIsCached() {
+        assertNull(productDetailCache.get(-1L));
+        assertNull(productDetailCache.get(-1L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictionFromOtherNodeDropsL1() {
+        productDetailCache.get(1L);
+        productDetailCache.get(2L);
+
+        productDetailCache.onMessage(message("1,3:other-node"), null);
+        productDetailCache.get(1L);
+        productDetailCache.get(2L);
+        assertEquals(3, loads.get());
+
+        productDetailCache.onMessage(message("*:other-node"), null);
+        productDetailCache.get(2L);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void testLocalEvictReloads() {
+        productDetailCache.get(1L);
+        productDetailCache.evict(1L);
+        productDetailCache.get(1L);
+
+        assertEquals(2, loads.get());
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(
+                "product:detail:evict".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,156 @@
+package com.flashbuy.application.product;
+
+import com.flashbuy.domain.item.entity.ProductSpu;
+import com.flashbuy.domain.item.mapper.ProductSpuMapper;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductSearchIndex
+ * The mapper stand-in returns the current rows for any query
+ */
+class ProductSearchIndexTest {
+
+    private final List<ProductSpu> rows = new ArrayList<>();
+
+    private final ProductSpuMapper mapper = (ProductSpuMapper) Proxy.newProxyInstance(
+            ProductSpuMapper.class.getClassLoader(), new Class<?>[]{ProductSpuMapper.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("selectListByQuery")) {
+                    return List.copyOf(rows);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    private final ProductSearchIndex index = new ProductSearchIndex(mapper, 600_000);
+
+    @Test
+    void testNotReadyUntilBuilt() {
+        assertFalse(index.isReady());
+        assertNull(index.search("手机", 0, 10));
+
+        index.rebuild();
+        assertTrue(index.isReady());
+        assertEquals(0, index.search("手机", 0, 10).total());
+    }
+
+    @Test
+    void testMatchesSubstringsLikeSql() {
+        rows.add(spu(1, "Apple iPhone 15 Pro 手机"));
+        rows.add(spu(2, "华为 Mate 60 智能手机"));
+        rows.add(spu(3, "小米手环 8"));
+        rows.add(spu(4, "机械键盘"));
+        index.rebuild();
+
+        assertEquals(List.of(2L, 1L), ids("手机"));
+        assertEquals(List.of(4L, 2L, 1L), ids("机"));
+        assertEquals(List.of(1L), ids("IPHONE"));
+        assertEquals(List.of(1L), ids("ｉｐｈｏｎｅ"));
+        assertEquals(List.of(1L), ids("15 pro"));
+        assertEquals(List.of(), ids("手机壳"));
+        // Shares bigrams "手" + "机" with no adjacent pair in any name
+        assertEquals(List.of(), ids("机手"));
+        assertEquals(4, index.search("", 0, 10).total());
+    }
+
+    @Test
+    void testRankingAndPaging() {
+        rows.add(spu(1, "苹果手机"));
+        rows.add(spu(2, "手机支架"));
+        rows.add(spu(3, "手机"));
+        rows.add(spu(4, "手机壳"));
+        rows.add(spu(5, "手机膜"));
+        index.rebuild();
+
+        // Match at the start first, then shorter names, then newer SPUs
+        assertEquals(List.of(3L, 5L, 4L, 2L, 1L), ids("手机"));
+
+        ProductSearchIndex.Page page = index.search("手机", 2, 2);
+        assertEquals(5, page.total());
+        assertEquals(List.of(4L, 2L), page.spuIds());
+        assertEquals(List.of(), index.search("手机", 10, 2).spuIds());
+    }
+
+    @Test
+    void testCursorPagingMatchesOffsetPaging() {
+        for (long id = 1; id <= 25; id++) {
+            rows.add(spu(id, id % 3 == 0 ? "手机" + id : "智能手机" + id));
+        }
+        index.rebuild();
+
+        List<Long> byOffset = index.search("手机", 0, 100).spuIds();
+        List<Long> byCursor = new ArrayList<>();
+        ProductSearchIndex.Page page = index.search("手机", 0, 4);
+        while (true) {
+            assertEquals(25, page.total());
+            byCursor.addAll(page.spuIds());
+            if (page.last() == null) {
+                break;
+            }
+            page = index.searchAfter("手机", page.last(), 4);
+        }
+
+        assertEquals(25, byCursor.size());
+        assertEquals(byOffset, byCursor);
+    }
+
+    @Test
+    void testIncrementalChanges() {
+        rows.add(spu(1, "蓝牙耳机"));
+        rows.add(spu(2, "有线耳机"));
+        index.rebuild();
+
+        // Polled renames and additions; deleted rows never show up in the poll
+        rows.clear();
+        rows.add(spu(1, "蓝牙音箱"));
+        rows.add(spu(3, "降噪耳机"));
+        index.refresh();
+        index.remove(2L);
+        assertEquals(List.of(3L), ids("耳机"));
+        assertEquals(List.of(1L), ids("蓝牙"));
+
+        // Polled change: the stand-in now returns only the renamed row
+        rows.clear();
+        rows.add(spu(3, "头戴式耳机"));
+        index.refresh();
+        assertEquals(List.of(3L), ids("头戴"));
+        assertEquals(List.of(), ids("降噪"));
+    }
+
+    @Test
+    void testOverlayIsFoldedIntoPostings() {
+        index.rebuild();
+        for (long id = 1; id <= 3000; id++) {
+            rows.add(spu(id, (id % 2 == 0 ? "手机" : "电脑") + id));
+        }
+        index.refresh();
+        for (long id = 1; id <= 3000; id += 3) {
+            index.remove(id);
+        }
+
+        ProductSearchIndex.Page page = index.search("手机", 0, 3);
+        assertEquals(1000, page.total());
+        assertEquals(List.of(8L, 6L, 2L), page.spuIds());
+        assertEquals(List.of(2996L), ids("手机2996"));
+        // Removed after being added
+        assertEquals(List.of(), ids("手机2998"));
+    }
+
+    private List<Long> ids(String keyword) {
+        return index.search(keyword, 0, 100).spuIds();
+    }
+
+    private static ProductSpu spu(long id, String name) {
+        ProductSpu spu = new ProductSpu();
+        spu.setId(id);
+        spu.setName(name);
+        spu.setUpdateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return spu;
+    }
+}
@@ -38,6 +38,15 @@ class SeckillServiceTest {
         assertNotNull(response.timestamp());
     }
 
+    @Test
+    void testSeckillResponseQueuingWithQueueId() {
+        SeckillResponse response = SeckillResponse.queuing("Q-abc-1");
+
+        assertEquals(0, response.status());
+        assertEquals("Q-abc-1", response.queueId());
+        assertNull(response.orderId());
+    }
+
     @Test
     void testSeckillResponseSuccess() {
         Long orderId = 12345L;
@@ -69,4 +78,16 @@ class SeckillServiceTest {
         assertEquals(2, message.count());
         assertNotNull(message.timestamp());
     }
+
+    @Test
+    void testTradeOrderMessageWithQueueId() {
+        TradeOrderMessage message = new TradeOrderMessage(10001L, 1L, 100L, 1, null, "Q-abc-1");
+
+        assertEquals("Q-abc-1", message.queueId());
+        // Timestamp defaults to now when null is passed
+        assertNotNull(message.timestamp());
+
+        // Legacy constructor leaves the queue ticket empty
+        assertNull(new TradeOrderMessage(10001L, 1L, 100L, 1, 1L).queueId());
+    }
 }
@@ -0,0 +1,46 @@
+package com.flashbuy.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PageCursor
+ */
+class PageCursorTest {
+
+    @Test
+    void testRoundTrip() {
+        String token = PageCursor.encode(1718000000123L, -5L, 0L);
+
+        assertArrayEquals(new long[]{1718000000123L, -5L, 0L}, PageCursor.decode(token, 3));
+        // URL-safe without escaping
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void testNoCursor() {
+        assertNull(PageCursor.decode(null, 2));
+        assertNull(PageCursor.decode("  ", 2));
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        String twoKeys = PageCursor.encode(1L, 2L);
+
+        assertThrows(BusinessException.class, () -> PageCursor.decode(twoKeys, 3));
+        assertThrows(BusinessException.class, () -> PageCursor.decode("not a cursor!", 2));
+        assertThrows(BusinessException.class, () -> PageCursor.decode("djE6YSxi", 2)); // "v1:a,b"
+        assertThrows(BusinessException.class, () -> PageCursor.decode("eDox", 1));    // "x:1"
+    }
+
+    @Test
+    void testTimeKeepsMilliseconds() {
+        LocalDateTime time = LocalDateTime.of(2024, 6, 18, 20, 0, 0, 123_000_000);
+
+        assertEquals(time, PageCursor.toTime(PageCursor.toKey(time)));
+        assertTrue(PageCursor.toKey(time) > PageCursor.toKey(time.minusNanos(1_000_000)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BuyerRegistry slot layout
+ * Validates per-event encoding selection and bitmap chunking
+ */
+class BuyerRegistryTest {
+
+    private final BuyerRegistry registry = new BuyerRegistry(null, "set", "7, 9", 16);
+
+    @Test
+    void testEncodingPerEvent() {
+        assertEquals(BuyerRegistry.Encoding.SET, registry.encodingFor(1L));
+        assertEquals(BuyerRegistry.Encoding.BITMAP, registry.encodingFor(7L));
+        assertEquals(BuyerRegistry.Encoding.BITMAP, registry.encodingFor(9L));
+
+        BuyerRegistry bitmapByDefault = new BuyerRegistry(null, "BITMAP", "", 16);
+        assertEquals(BuyerRegistry.Encoding.BITMAP, bitmapByDefault.encodingFor(1L));
+    }
+
+    @Test
+    void testSetSlot() {
+        BuyerRegistry.Slot slot = registry.slot(1L, BuyerRegistry.userKey(1L, 100L), 10001L);
+
+        assertEquals("flash:user:1:{100}", slot.key());
+        assertEquals("10001", slot.member());
+        assertEquals("set", slot.encoding().arg());
+        assertEquals("flash:quota:1:{100}", slot.quotaKey());
+        assertEquals("10001", slot.userId());
+    }
+
+    @Test
+    void testBitmapSlotChunks() {
+        BuyerRegistry.Slot first = registry.slot(7L, BuyerRegistry.userKey(7L, 100L), 65535L);
+        BuyerRegistry.Slot next = registry.slot(7L, BuyerRegistry.userKey(7L, 100L), 65536L + 5);
+
+        assertEquals("flash:user:7:{100}:bm:0", first.key());
+        assertEquals("65535", first.member());
+        assertEquals("flash:user:7:{100}:bm:1", next.key());
+        assertEquals("5", next.member());
+        assertEquals("bitmap", next.encoding().arg());
+        // Quota counts are keyed by the full user ID, not the bit offset
+        assertEquals("flash:quota:7:{100}", next.quotaKey());
+        assertEquals("65541", next.userId());
+        // One buyer count per registry, shared by all its chunks
+        assertEquals("flash:buyers:7:{100}", next.countKey());
+        assertEquals(first.countKey(), next.countKey());
+    }
+
+    @Test
+    void testBaseKey() {
+        assertEquals("flash:user:7:{100}", BuyerRegistry.baseKey("flash:user:7:{100}:bm:12"));
+        assertEquals("flash:user:7:{100:3}", BuyerRegistry.baseKey("flash:user:7:{100:3}:bm:0"));
+        assertEquals("flash:user:1:{100}", BuyerRegistry.baseKey("flash:user:1:{100}"));
+    }
+
+    @Test
+    void testKeysShareSkuHashTag() {
+        // deduct_stock.lua touches all five keys in one call; on a cluster they must hash to one slot
+        String stockKey = StockLuaScript.stockKey(100L);
+        BuyerRegistry.Slot slot = registry.slot(7L, BuyerRegistry.userKey(7L, 100L), 65541L);
+
+        assertEquals("flash:stock:{100}", stockKey);
+        assertEquals("flash:limit:{100}", StockLuaScript.limitKey(stockKey));
+        for (String key : List.of(stockKey, StockLuaScript.limitKey(stockKey), slot.key(), slot.quotaKey(),
+                slot.countKey())) {
+            assertEquals("100", key.substring(key.indexOf('{') + 1, key.indexOf('}')), key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiringLongSet
+ * Validates mark/clear/TTL semantics of the sold-out filter
+ */
+class ExpiringLongSetTest {
+
+    @Test
+    void testAddAndContains() {
+        ExpiringLongSet set = new ExpiringLongSet(16, 1, TimeUnit.MINUTES);
+
+        set.add(100L);
+
+        assertTrue(set.contains(100L));
+        assertFalse(set.contains(101L));
+    }
+
+    @Test
+    void testRemove() {
+        ExpiringLongSet set = new ExpiringLongSet(16, 1, TimeUnit.MINUTES);
+        set.add(100L);
+
+        set.remove(100L);
+
+        assertFalse(set.contains(100L));
+
+        // Re-adding a removed key brings it back
+        set.add(100L);
+        assertTrue(set.contains(100L));
+    }
+
+    @Test
+    void testExpiry() throws InterruptedException {
+        ExpiringLongSet set = new ExpiringLongSet(16, 20, TimeUnit.MILLISECONDS);
+        set.add(100L);
+
+        Thread.sleep(50);
+
+        assertFalse(set.contains(100L));
+    }
+
+    @Test
+    void testRebuildKeepsLiveKeys() {
+        ExpiringLongSet set = new ExpiringLongSet(4, 1, TimeUnit.MINUTES);
+
+        // Far more keys than the initial table holds, with some removed along the way
+        for (long sku = 1; sku <= 1000; sku++) {
+            set.add(sku);
+            if (sku % 3 == 0) {
+                set.remove(sku);
+            }
+        }
+
+        for (long sku = 1; sku <= 1000; sku++) {
+            assertEquals(sku % 3 != 0, set.contains(sku), "sku " + sku);
+        }
+    }
+
+    @Test
+    void testClear() {
+        ExpiringLongSet set = new ExpiringLongSet(16, 1, TimeUnit.MINUTES);
+        set.add(1L);
+        set.add(2L);
+
+        set.clear();
+
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains(2L));
+    }
+}
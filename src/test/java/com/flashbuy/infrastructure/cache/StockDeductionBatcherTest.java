@@ -0,0 +1,112 @@
+package com.flashbuy.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StockDeductionBatcher
+ * Validates that a caller timeout never leaves a purchase behind
+ */
+class StockDeductionBatcherTest {
+
+    private static final String STOCK_KEY = StockLuaScript.stockKey(100L);
+
+    private final FakeStockLuaScript lua = new FakeStockLuaScript();
+    private final FakeBuyerRegistry registry = new FakeBuyerRegistry();
+
+    @Test
+    void testBatchedResults() {
+        StockDeductionBatcher batcher = new StockDeductionBatcher(lua, registry, true, 1000, 64, 3000);
+        lua.gate.countDown();
+
+        assertEquals(7L, batcher.deductStock(STOCK_KEY, slot(10001L), 1));
+        assertEquals(1, lua.calls.get());
+        batcher.shutdown();
+    }
+
+    @Test
+    void testTimeoutBeforeFlushWithdrawsRequest() throws InterruptedException {
+        // Window longer than the caller waits: the request is still queued when it gives up
+        StockDeductionBatcher batcher = new StockDeductionBatcher(lua, registry, true, 200_000, 64, 50);
+        lua.gate.countDown();
+
+        assertThrows(IllegalStateException.class, () -> batcher.deductStock(STOCK_KEY, slot(10001L), 1));
+        Thread.sleep(400);
+
+        assertEquals(0, lua.calls.get());
+        batcher.shutdown();
+    }
+
+    @Test
+    void testLateSuccessRolledBack() throws InterruptedException {
+        StockDeductionBatcher batcher = new StockDeductionBatcher(lua, registry, true, 1, 64, 50);
+
+        // Batch is in flight (blocked in Redis) when the caller times out
+        assertThrows(IllegalStateException.class, () -> batcher.deductStock(STOCK_KEY, slot(10001L), 2));
+        lua.gate.countDown();
+
+        assertTrue(registry.released.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(2), lua.recovered);
+        assertEquals(1, lua.calls.get());
+        batcher.shutdown();
+    }
+
+    private BuyerRegistry.Slot slot(Long userId) {
+        return registry.slot(1L, BuyerRegistry.userKey(1L, 100L), userId);
+    }
+
+    /**
+     * Answers every request with remaining stock 7 once the gate opens
+     */
+    private static final class FakeStockLuaScript extends StockLuaScript {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<Integer> recovered = new ArrayList<>();
+
+        private FakeStockLuaScript() {
+            super(null);
+        }
+
+        @Override
+        public List<Long> deductStockBatch(String stockKey, String buyerKey, String quotaKey, String countKey,
+                                           BuyerRegistry.Encoding encoding, List<String> members,
+                                           List<String> userIds, List<Integer> counts) {
+            calls.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<Long> results = new ArrayList<>();
+            members.forEach(m -> results.add(7L));
+            return results;
+        }
+
+        @Override
+        public void recoverStock(String stockKey, int count) {
+            synchronized (recovered) {
+                recovered.add(count);
+            }
+        }
+    }
+
+    private static final class FakeBuyerRegistry extends BuyerRegistry {
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        private FakeBuyerRegistry() {
+            super(null, "set", "", 16);
+        }
+
+        @Override
+        public void release(Slot slot, String limitKey, int count) {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.flashbuy.infrastructure.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnowflakeIdGenerator
+ * Validates ordering, bit layout, sequence carry-over, clock rollback and batch reservation
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void testIdsIncreaseAndEncodeWorker() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 0, 5000, clock::get);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+        clock.addAndGet(1);
+        long third = generator.nextId();
+
+        assertTrue(first < second && second < third);
+        assertEquals(7, (first >>> 12) & 1023);
+        assertEquals(NOW - SnowflakeIdGenerator.EPOCH, first >>> 22);
+        // New millisecond restarts the sequence
+        assertEquals(0, third & 4095);
+    }
+
+    @Test
+    void testSequenceExhaustionCarriesIntoNextMillisecond() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, 5000, clock::get);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(ids.add(generator.nextId()));
+        }
+        // 10000 IDs in one wall-clock millisecond borrow two more
+        assertEquals(NOW + 2, generator.lastTimestamp());
+    }
+
+    @Test
+    void testClockRollbackKeepsIdsUnique() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, 5000, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-1000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void testLargeClockRollbackFails() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 0, 5000, clock::get);
+
+        generator.nextId();
+        clock.addAndGet(-10000);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void testStartsAfterPersistedTimestamp() {
+        AtomicLong clock = new AtomicLong(NOW);
+        // Previous run issued IDs up to NOW + 100 before the clock stepped back
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, NOW + 100, 5000, clock::get);
+
+        assertTrue((generator.nextId() >>> 22) > 100 + NOW - SnowflakeIdGenerator.EPOCH);
+    }
+
+    @Test
+    void testNextIdsAreConsecutiveAndUniqueAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 0, 5000);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    for (long id : generator.nextIds(10)) {
+                        ids.add(id);
+                    }
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+
+        assertEquals(threads * 1000 * 10, ids.size());
+    }
+
+    @Test
+    void testWorkerIdOutOfRangeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, 0, 5000));
+    }
+}
@@ -0,0 +1,89 @@
+package com.flashbuy.infrastructure.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LatencyHistogram
+ * Validates bucketing precision, percentiles and concurrent recording
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketBoundsCoverValue() {
+        long[] values = {0, 1, 63, 64, 65, 1000, 123_456, 10_000_000_000L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertTrue(highest >= value, "bucket upper bound below value " + value);
+            // Within ~3% (1/32) of the true value
+            assertTrue(highest - value <= Math.max(0, value / 32), "bucket too wide for " + value);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10_000; v++) {
+            histogram.record(v * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.max());
+        assertEquals(5_000_500, snapshot.mean(), 1.0);
+        assertEquals(5_000_000, snapshot.p50(), 5_000_000 / 32.0);
+        assertEquals(9_900_000, snapshot.p99(), 9_900_000 / 32.0);
+        assertEquals(9_990_000, snapshot.p999(), 9_990_000 / 32.0);
+    }
+
+    @Test
+    void testEmptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().count());
+
+        histogram.record(42);
+        histogram.record(-5);
+        assertEquals(2, histogram.snapshot().count());
+        assertEquals(42, histogram.snapshot().max());
+
+        histogram.reset();
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.max());
+    }
+
+    @Test
+    void testConcurrentRecord() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals((long) threads * perThread, snapshot.count());
+        assertEquals(perThread - 1, snapshot.max());
+    }
+}
@@ -0,0 +1,95 @@
+package com.flashbuy.infrastructure.mq.journal;
+
+import com.flashbuy.application.seckill.TradeOrderMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderJournal
+ * Validates append/replay ordering, checkpoints, restart recovery and segment roll-over
+ */
+class OrderJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private static TradeOrderMessage message(long userId) {
+        return new TradeOrderMessage(userId, 1L, 100L, 1, 1700000000000L, "Q-" + userId);
+    }
+
+    @Test
+    void testReplayInOrder() throws Exception {
+        try (OrderJournal journal = new OrderJournal(dir, 1024 * 1024, 1000)) {
+            for (long i = 1; i <= 3; i++) {
+                assertTrue(journal.append(message(i)));
+            }
+
+            List<TradeOrderMessage> replayed = new ArrayList<>();
+            assertEquals(3, journal.replay(replayed::add));
+
+            assertEquals(List.of(message(1), message(2), message(3)), replayed);
+            assertEquals(0, journal.backlog());
+            assertEquals(0, journal.replay(replayed::add));
+        }
+    }
+
+    @Test
+    void testFailedReplayResumesAtFailedRecord() throws Exception {
+        try (OrderJournal journal = new OrderJournal(dir, 1024 * 1024, 1000)) {
+            journal.append(message(1));
+            journal.append(message(2));
+
+            List<TradeOrderMessage> replayed = new ArrayList<>();
+            int count = journal.replay(m -> {
+                if (m.userId() == 2L) {
+                    throw new IllegalStateException("db down");
+                }
+                replayed.add(m);
+            });
+
+            assertEquals(1, count);
+            assertEquals(1, journal.backlog());
+            assertEquals(1, journal.replay(replayed::add));
+            assertEquals(List.of(message(1), message(2)), replayed);
+        }
+    }
+
+    @Test
+    void testRecoverAfterRestart() throws Exception {
+        try (OrderJournal journal = new OrderJournal(dir, 1024 * 1024, 1000)) {
+            journal.append(message(1));
+            journal.append(message(2));
+            journal.replay(m -> { });
+            journal.append(message(3));
+        }
+
+        try (OrderJournal journal = new OrderJournal(dir, 1024 * 1024, 1000)) {
+            assertEquals(1, journal.backlog());
+            journal.append(message(4));
+
+            List<TradeOrderMessage> replayed = new ArrayList<>();
+            journal.replay(replayed::add);
+            assertEquals(List.of(message(3), message(4)), replayed);
+        }
+    }
+
+    @Test
+    void testSegmentRollOver() throws Exception {
+        // Room for only a few records per segment
+        try (OrderJournal journal = new OrderJournal(dir, 256, 1000)) {
+            for (long i = 1; i <= 20; i++) {
+                assertTrue(journal.append(message(i)));
+            }
+
+            List<TradeOrderMessage> replayed = new ArrayList<>();
+            assertEquals(20, journal.replay(replayed::add));
+            assertEquals(20L, replayed.get(19).userId());
+        }
+    }
+}
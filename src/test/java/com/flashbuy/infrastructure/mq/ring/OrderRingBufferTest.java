@@ -0,0 +1,85 @@
+package com.flashbuy.infrastructure.mq.ring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OrderRingBuffer
+ * Validates FIFO order, full-ring rejection and concurrent producers
+ */
+class OrderRingBufferTest {
+
+    @Test
+    void testFifoDrain() {
+        OrderRingBuffer<Integer> ring = new OrderRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(i));
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertEquals(2, ring.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void testRejectWhenFull() {
+        OrderRingBuffer<Integer> ring = new OrderRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        // Consuming frees slots for the next lap
+        ring.drainTo(new ArrayList<>(), 2);
+        assertTrue(ring.offer(4));
+        assertTrue(ring.offer(5));
+        assertFalse(ring.offer(6));
+    }
+
+    @Test
+    void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(8, new OrderRingBuffer<>(5).capacity());
+        assertEquals(8, new OrderRingBuffer<>(8).capacity());
+    }
+
+    @Test
+    void testConcurrentProducers() throws Exception {
+        int producers = 8;
+        int perProducer = 10000;
+        OrderRingBuffer<Integer> ring = new OrderRingBuffer<>(1024);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> batch = new ArrayList<>();
+        while (seen.size() < producers * perProducer) {
+            ring.drainTo(batch, 256);
+            for (Integer value : batch) {
+                assertTrue(seen.add(value), "duplicate " + value);
+            }
+            batch.clear();
+        }
+        done.await();
+        assertEquals(0, ring.size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.flashbuy.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Shape of request arrivals over a run
+ *
+ * SPIKE: light background traffic with 80% of requests packed into a window
+ *        of a tenth of the run, halfway through
+ * RAMP:  rate grows linearly from zero to its peak at the end of the run
+ * HERD:  everyone fires at start_time, spread only by a short exponential jitter
+ */
+public enum ArrivalCurve {
+
+    SPIKE,
+    RAMP,
+    HERD;
+
+    private static final double SPIKE_SHARE = 0.8;
+    private static final double SPIKE_WIDTH = 0.1;
+
+    public static ArrivalCurve parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Arrival offsets from the start of the run, sorted ascending
+     *
+     * @param requests       Number of arrivals
+     * @param durationMillis Length of the run (SPIKE, RAMP); upper bound for HERD
+     * @param jitterMillis   Mean spread of the HERD burst
+     */
+    public long[] offsetsMillis(int requests, long durationMillis, long jitterMillis, Random random) {
+        long[] offsets = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            double u = random.nextDouble();
+            double offset = switch (this) {
+                case SPIKE -> random.nextDouble() < SPIKE_SHARE
+                        ? durationMillis * (0.5 - SPIKE_WIDTH / 2 + u * SPIKE_WIDTH)
+                        : durationMillis * u;
+                case RAMP -> durationMillis * Math.sqrt(u);
+                case HERD -> Math.min(durationMillis, -jitterMillis * Math.log(1 - u));
+            };
+            offsets[i] = (long) offset;
+        }
+        Arrays.sort(offsets);
+        return offsets;
+    }
+}
@@ -0,0 +1,361 @@
+package com.flashbuy.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flashbuy.infrastructure.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flash-sale launch simulator against a running pinshop-server
+ *
+ * Every arrival of a LoadPlan gets its own virtual thread, which calls
+ * POST /api/v1/trade/seckill at its scheduled time and then polls
+ * GET /api/v1/trade/result/{queueId} until the order is decided
+ *
+ * Latency is measured from the scheduled arrival, not from when the request was
+ * actually sent, so a stalled client does not hide server stalls (coordinated omission);
+ * the scheduling lag is reported separately
+ *
+ * Checked invariants:
+ * - no oversell: queued and created units per SKU never exceed its stock
+ * - one purchase per user: queued and created orders per user and SKU never exceed the limit
+ *
+ * Run (server and stock already prepared, e.g. via POST /api/v1/admin/init-test-data):
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.flashbuy.loadtest.FlashSaleLoadGenerator \
+ *     -Dexec.args="--base-url=http://localhost:8080 --event-id=1 --skus=101:100,102:50
+ *                  --curve=herd --requests=20000 --users=5000 --start-at=2026-01-01T20:00:00"
+ *
+ * Options (defaults in brackets):
+ *   --base-url [http://localhost:8080]  --event-id [1]       --skus=skuId:stock,... (hottest first, required)
+ *   --curve=spike|ramp|herd [spike]     --requests [10000]   --duration-ms [10000]   --jitter-ms [20]
+ *   --users [2000]   --first-user-id [1000000]   --sku-skew [1.0]   --count [1]   --limit-per-user [1]
+ *   --start-at=yyyy-MM-ddTHH:mm:ss (wait for start_time, e.g. with --curve=herd)
+ *   --poll-ms [500]  --poll-max-ms [10000]  --timeout-ms [5000]  --seed [42]
+ *   --record=plan.csv (save the generated plan)   --replay=plan.csv (run a saved plan instead)
+ *
+ * Exits with 1 if an invariant is violated
+ */
+public class FlashSaleLoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final long eventId;
+    private final int count;
+    private final int limitPerUser;
+    private final long pollMillis;
+    private final long pollMaxMillis;
+    private final Duration timeout;
+    private final Map<Long, Integer> stocks;
+    private final HttpClient client;
+
+    private final Map<String, LongAdder> seckillOutcomes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> orderOutcomes = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> queuedUnits = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> orderedUnits = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> queuedPerUser = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> orderedPerUser = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LatencyHistogram schedulingLag = new LatencyHistogram();
+    private final LatencyHistogram timeToOrder = new LatencyHistogram();
+    private final AtomicLong lastResponseNanos = new AtomicLong();
+
+    public FlashSaleLoadGenerator(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = option("base-url", "http://localhost:8080").replaceAll("/+$", "");
+        this.eventId = Long.parseLong(option("event-id", "1"));
+        this.count = Integer.parseInt(option("count", "1"));
+        this.limitPerUser = Integer.parseInt(option("limit-per-user", "1"));
+        this.pollMillis = Long.parseLong(option("poll-ms", "500"));
+        this.pollMaxMillis = Long.parseLong(option("poll-max-ms", "10000"));
+        this.timeout = Duration.ofMillis(Long.parseLong(option("timeout-ms", "5000")));
+        this.stocks = parseStocks(option("skus", ""));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    options.put(arg.substring(2), "true");
+                } else {
+                    options.put(arg.substring(2, separator), arg.substring(separator + 1));
+                }
+            }
+        }
+        boolean passed = new FlashSaleLoadGenerator(options).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Execute the plan and print the report
+     *
+     * @return Whether every invariant held
+     */
+    public boolean run() throws Exception {
+        if (stocks.isEmpty()) {
+            throw new IllegalArgumentException("--skus=skuId:stock,... is required");
+        }
+        LoadPlan plan = plan();
+        String record = options.get("record");
+        if (record != null) {
+            plan.write(Path.of(record));
+            System.out.printf("Plan written to %s%n", record);
+        }
+
+        awaitStartTime();
+        System.out.printf("Running %d requests over %d ms against %s%n",
+                plan.arrivals().size(), plan.durationMillis(), baseUrl);
+
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LoadPlan.Arrival arrival : plan.arrivals()) {
+                long dueNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(arrival.offsetMillis());
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+                executor.execute(() -> execute(arrival, dueNanos));
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        report(plan, lastResponseNanos.get() - startNanos, elapsedNanos);
+        return checkInvariants();
+    }
+
+    private LoadPlan plan() throws Exception {
+        String replay = options.get("replay");
+        if (replay != null) {
+            return LoadPlan.read(Path.of(replay));
+        }
+        return LoadPlan.generate(
+                ArrivalCurve.parse(option("curve", "spike")),
+                Integer.parseInt(option("requests", "10000")),
+                Long.parseLong(option("duration-ms", "10000")),
+                Long.parseLong(option("jitter-ms", "20")),
+                Long.parseLong(option("first-user-id", "1000000")),
+                Integer.parseInt(option("users", "2000")),
+                new ArrayList<>(stocks.keySet()),
+                Double.parseDouble(option("sku-skew", "1.0")),
+                Long.parseLong(option("seed", "42")));
+    }
+
+    private void awaitStartTime() throws InterruptedException {
+        String startAt = options.get("start-at");
+        if (startAt == null) {
+            return;
+        }
+        long startMillis = LocalDateTime.parse(startAt).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long waitMillis = startMillis - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            System.out.printf("Waiting %d ms for start_time %s%n", waitMillis, startAt);
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    // ==================== One simulated user ====================
+
+    private void execute(LoadPlan.Arrival arrival, long dueNanos) {
+        long sentNanos = System.nanoTime();
+        schedulingLag.record(sentNanos - dueNanos);
+
+        String body = "{\"eventId\":" + eventId + ",\"skuId\":" + arrival.skuId()
+                + ",\"count\":" + count + ",\"userId\":" + arrival.userId() + "}";
+        JsonNode result;
+        try {
+            result = call(HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/trade/seckill"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+        } catch (Exception e) {
+            count(seckillOutcomes, "client error: " + e.getClass().getSimpleName());
+            return;
+        } finally {
+            long doneNanos = System.nanoTime();
+            lastResponseNanos.accumulateAndGet(doneNanos, Math::max);
+            serviceTime.record(doneNanos - sentNanos);
+            responseTime.record(doneNanos - dueNanos);
+        }
+
+        String queueId = result.path("data").path("queueId").asText(null);
+        if (result.path("code").asInt() != 200 || queueId == null) {
+            count(seckillOutcomes, result.path("code").asInt() + " " + result.path("message").asText());
+            return;
+        }
+
+        count(seckillOutcomes, "queued");
+        queuedUnits.computeIfAbsent(arrival.skuId(), sku -> new LongAdder()).add(count);
+        count(queuedPerUser, arrival.userId() + ":" + arrival.skuId());
+
+        awaitOrder(arrival, queueId, dueNanos);
+    }
+
+    private void awaitOrder(LoadPlan.Arrival arrival, String queueId, long dueNanos) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pollMaxMillis);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollMillis);
+                JsonNode result = call(HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/v1/trade/result/" + queueId)).GET());
+                int status = result.path("data").path("status").asInt(0);
+                if (result.path("code").asInt() != 200) {
+                    count(orderOutcomes, result.path("code").asInt() + " " + result.path("message").asText());
+                    return;
+                }
+                if (status == 1) {
+                    timeToOrder.record(System.nanoTime() - dueNanos);
+                    count(orderOutcomes, "created");
+                    orderedUnits.computeIfAbsent(arrival.skuId(), sku -> new LongAdder()).add(count);
+                    count(orderedPerUser, arrival.userId() + ":" + arrival.skuId());
+                    return;
+                }
+                if (status == -1) {
+                    count(orderOutcomes, "failed: " + result.path("data").path("message").asText());
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Transient; keep polling until the deadline
+            }
+        }
+        count(orderOutcomes, "unresolved");
+    }
+
+    private JsonNode call(HttpRequest.Builder request) throws Exception {
+        HttpResponse<String> response = client.send(request.timeout(timeout).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return MAPPER.createObjectNode()
+                    .put("code", response.statusCode())
+                    .put("message", "HTTP " + response.statusCode());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    // ==================== Report ====================
+
+    private void report(LoadPlan plan, long seckillNanos, long elapsedNanos) {
+        double seconds = Math.max(1, seckillNanos) / 1e9;
+        long requests = plan.arrivals().size();
+        System.out.println();
+        System.out.println("==== Flash sale load report ====");
+        System.out.printf("Seckill requests: %d answered within %.2f s (%.0f req/s); run incl. polling %.2f s%n",
+                requests, seconds, requests / seconds, elapsedNanos / 1e9);
+
+        System.out.println("Latency (ms)                       count      p50      p90      p99     p999      max");
+        printLatency("seckill response (from arrival)", responseTime);
+        printLatency("seckill service time", serviceTime);
+        printLatency("client scheduling lag", schedulingLag);
+        printLatency("arrival -> order created", timeToOrder);
+
+        System.out.println("Seckill outcomes:");
+        new TreeMap<>(seckillOutcomes).forEach((outcome, n) -> System.out.printf("  %-40s %d%n", outcome, n.sum()));
+        System.out.println("Order outcomes:");
+        new TreeMap<>(orderOutcomes).forEach((outcome, n) -> System.out.printf("  %-40s %d%n", outcome, n.sum()));
+
+        System.out.println("Per SKU              stock   queued  ordered");
+        stocks.forEach((skuId, stock) -> System.out.printf("  %-16d %8d %8d %8d%n",
+                skuId, stock, sum(queuedUnits, skuId), sum(orderedUnits, skuId)));
+    }
+
+    private static void printLatency(String name, LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot s = histogram.snapshot();
+        System.out.printf("  %-32s %7d %8.2f %8.2f %8.2f %8.2f %8.2f%n", name, s.count(),
+                s.p50() / 1e6, s.p90() / 1e6, s.p99() / 1e6, s.p999() / 1e6, s.max() / 1e6);
+    }
+
+    private boolean checkInvariants() {
+        List<String> violations = new ArrayList<>();
+        stocks.forEach((skuId, stock) -> {
+            if (sum(queuedUnits, skuId) > stock) {
+                violations.add("oversell: SKU " + skuId + " queued " + sum(queuedUnits, skuId) + " of " + stock);
+            }
+            if (sum(orderedUnits, skuId) > stock) {
+                violations.add("oversell: SKU " + skuId + " ordered " + sum(orderedUnits, skuId) + " of " + stock);
+            }
+        });
+        checkPerUser(queuedPerUser, "queued", violations);
+        checkPerUser(orderedPerUser, "ordered", violations);
+
+        if (violations.isEmpty()) {
+            System.out.println("Invariants: PASS (no oversell, at most " + limitPerUser + " purchase(s) per user and SKU)");
+            return true;
+        }
+        System.out.println("Invariants: FAIL");
+        violations.stream().limit(50).forEach(v -> System.out.println("  " + v));
+        if (violations.size() > 50) {
+            System.out.printf("  ... %d more%n", violations.size() - 50);
+        }
+        return false;
+    }
+
+    private void checkPerUser(Map<String, LongAdder> perUser, String what, List<String> violations) {
+        perUser.forEach((userSku, n) -> {
+            if (n.sum() > limitPerUser) {
+                violations.add("duplicate purchase: user:sku " + userSku + " " + what + " " + n.sum() + " times");
+            }
+        });
+    }
+
+    // ==================== Helpers ====================
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * skuId:stock,skuId:stock,... in the given order (hottest first)
+     */
+    static Map<Long, Integer> parseStocks(String value) {
+        Map<Long, Integer> stocks = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            stocks.put(Long.parseLong(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : Integer.MAX_VALUE);
+        }
+        return stocks;
+    }
+
+    private static void count(Map<String, LongAdder> counters, String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    private static long sum(Map<Long, LongAdder> counters, Long key) {
+        LongAdder counter = counters.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+}
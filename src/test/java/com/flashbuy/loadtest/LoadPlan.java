@@ -0,0 +1,102 @@
+package com.flashbuy.loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fully materialized schedule of one load run: when each request fires, for which user and SKU
+ *
+ * Plans are generated from a seed, and can be written to / read from a CSV file
+ * (offsetMillis,userId,skuId) so the exact same launch can be replayed later
+ *
+ * @param arrivals Sorted by offset
+ */
+public record LoadPlan(List<Arrival> arrivals) {
+
+    private static final String HEADER = "offsetMillis,userId,skuId";
+
+    public record Arrival(long offsetMillis, long userId, long skuId) {
+    }
+
+    /**
+     * Build a plan: arrival times from the curve, users uniform over the pool
+     * (so users come back and retry), SKUs Zipf-distributed by list order
+     *
+     * @param skuIds   SKUs, hottest first
+     * @param skuSkew  Zipf exponent (0 = uniform, 1 = classic long tail)
+     */
+    public static LoadPlan generate(ArrivalCurve curve, int requests, long durationMillis, long jitterMillis,
+                                    long firstUserId, int users, List<Long> skuIds, double skuSkew, long seed) {
+        Random random = new Random(seed);
+        long[] offsets = curve.offsetsMillis(requests, durationMillis, jitterMillis, random);
+
+        double[] cumulative = new double[skuIds.size()];
+        double total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            total += 1.0 / Math.pow(i + 1, skuSkew);
+            cumulative[i] = total;
+        }
+
+        List<Arrival> arrivals = new ArrayList<>(requests);
+        for (long offset : offsets) {
+            long userId = firstUserId + random.nextInt(users);
+            arrivals.add(new Arrival(offset, userId, skuIds.get(pick(cumulative, random.nextDouble() * total))));
+        }
+        return new LoadPlan(arrivals);
+    }
+
+    private static int pick(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public long durationMillis() {
+        return arrivals.isEmpty() ? 0 : arrivals.get(arrivals.size() - 1).offsetMillis();
+    }
+
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Arrival arrival : arrivals) {
+                writer.write(arrival.offsetMillis() + "," + arrival.userId() + "," + arrival.skuId());
+                writer.newLine();
+            }
+        }
+    }
+
+    public static LoadPlan read(Path file) throws IOException {
+        List<Arrival> arrivals = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith(HEADER)) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                arrivals.add(new Arrival(
+                        Long.parseLong(fields[0].trim()),
+                        Long.parseLong(fields[1].trim()),
+                        Long.parseLong(fields[2].trim())));
+            }
+        }
+        arrivals.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return new LoadPlan(arrivals);
+    }
+}
@@ -0,0 +1,77 @@
+package com.flashbuy.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the load generator's plan: arrival curves, distributions and replay files
+ */
+class LoadPlanTest {
+
+    private static final List<Long> SKUS = List.of(101L, 102L, 103L, 104L);
+
+    @Test
+    void testCurvesStayWithinDurationAndSorted() {
+        for (ArrivalCurve curve : ArrivalCurve.values()) {
+            long[] offsets = curve.offsetsMillis(10_000, 10_000, 20, new Random(1));
+            for (int i = 0; i < offsets.length; i++) {
+                assertTrue(offsets[i] >= 0 && offsets[i] <= 10_000, curve + " offset out of range");
+                if (i > 0) {
+                    assertTrue(offsets[i] >= offsets[i - 1], curve + " offsets not sorted");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCurveShapes() {
+        long[] spike = ArrivalCurve.SPIKE.offsetsMillis(10_000, 10_000, 20, new Random(1));
+        long inWindow = Arrays.stream(spike).filter(o -> o >= 4_500 && o < 5_500).count();
+        assertTrue(inWindow > 8_000, "most spike arrivals fall in the middle window");
+
+        long[] ramp = ArrivalCurve.RAMP.offsetsMillis(10_000, 10_000, 20, new Random(1));
+        long firstHalf = Arrays.stream(ramp).filter(o -> o < 5_000).count();
+        assertEquals(2_500, firstHalf, 250, "a linear ramp puts a quarter of arrivals in the first half");
+
+        long[] herd = ArrivalCurve.HERD.offsetsMillis(10_000, 10_000, 20, new Random(1));
+        assertTrue(herd[herd.length / 2] < 50, "herd arrivals cluster at start_time");
+    }
+
+    @Test
+    void testGenerateIsDeterministicAndSkewed() {
+        LoadPlan first = LoadPlan.generate(ArrivalCurve.SPIKE, 20_000, 1_000, 20, 1_000, 500, SKUS, 1.0, 7);
+        LoadPlan second = LoadPlan.generate(ArrivalCurve.SPIKE, 20_000, 1_000, 20, 1_000, 500, SKUS, 1.0, 7);
+        assertEquals(first, second);
+
+        long hottest = first.arrivals().stream().filter(a -> a.skuId() == 101L).count();
+        long coldest = first.arrivals().stream().filter(a -> a.skuId() == 104L).count();
+        assertTrue(hottest > 3 * coldest, "Zipf puts the first SKU well ahead of the last");
+        assertTrue(first.arrivals().stream().allMatch(a -> a.userId() >= 1_000 && a.userId() < 1_500));
+    }
+
+    @Test
+    void testWriteAndReplay(@TempDir Path dir) throws Exception {
+        LoadPlan plan = LoadPlan.generate(ArrivalCurve.HERD, 1_000, 1_000, 20, 1, 100, SKUS, 0.0, 3);
+        Path file = dir.resolve("plan.csv");
+        plan.write(file);
+
+        assertEquals(plan, LoadPlan.read(file));
+    }
+
+    @Test
+    void testParseStocks() {
+        Map<Long, Integer> stocks = FlashSaleLoadGenerator.parseStocks("101:100, 102:5,103");
+
+        assertEquals(List.of(101L, 102L, 103L), List.copyOf(stocks.keySet()));
+        assertEquals(100, stocks.get(101L));
+        assertEquals(Integer.MAX_VALUE, stocks.get(103L));
+    }
+}